@@ -0,0 +1,45 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+//One game-loop screen through ConsoleRenderer, written to a null stream (BenchmarkSuite console.frame)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConsoleBenchmark {
+    @Param({"plain", "ansi"})
+    public String mode;
+
+    private Runnable op;
+
+    @Setup
+    public void setUp() {
+        op = Suite.prepare("console.frame", "mode", mode);
+    }
+
+    @TearDown
+    public void tearDown() {
+        Suite.cleanup();
+    }
+
+    @Benchmark
+    public void frame() {
+        op.run();
+    }
+}
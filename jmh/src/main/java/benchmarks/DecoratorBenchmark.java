@@ -0,0 +1,51 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+//Cost of the PetDecorator delegation chain as it gets deeper (BenchmarkSuite decorator.*)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DecoratorBenchmark {
+    @Param({"0", "1", "2", "3", "4", "5", "6", "7", "8"})
+    public String depth;
+
+    private Runnable op;
+
+    @Setup
+    public void setUp(BenchmarkParams running) {
+        op = Suite.prepare(running, "decorator", "depth", depth);
+    }
+
+    @TearDown
+    public void tearDown() {
+        Suite.cleanup();
+    }
+
+    @Benchmark
+    public void tick() {
+        op.run();
+    }
+
+    @Benchmark
+    public void getMaxHealth() {
+        op.run();
+    }
+}
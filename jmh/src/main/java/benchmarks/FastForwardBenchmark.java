@@ -0,0 +1,47 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+//FastForward catching one pet up on a day of 2-second ticks (BenchmarkSuite pet.fastForward)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FastForwardBenchmark {
+    @Param({"happy", "normal", "hungry", "sleeping"})
+    public String state;
+    @Param({"43200"})
+    public String ticks;
+
+    private Runnable op;
+
+    @Setup
+    public void setUp() {
+        op = Suite.prepare("pet.fastForward", "state", state, "ticks", ticks);
+    }
+
+    @TearDown
+    public void tearDown() {
+        Suite.cleanup();
+    }
+
+    @Benchmark
+    public void advance() {
+        op.run();
+    }
+}
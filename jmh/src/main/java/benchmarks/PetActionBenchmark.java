@@ -0,0 +1,49 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+//IPet.tick/feed/play/sleep for every species in every state (BenchmarkSuite pet.action)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PetActionBenchmark {
+    @Param({"cat", "dragon"})
+    public String type;
+    @Param({"happy", "normal", "hungry", "sleeping", "dead"})
+    public String state;
+    @Param({"tick", "feed", "play", "sleep"})
+    public String action;
+
+    private Runnable op;
+
+    @Setup
+    public void setUp() {
+        op = Suite.prepare("pet.action", "type", type, "state", state, "action", action);
+    }
+
+    @TearDown
+    public void tearDown() {
+        Suite.cleanup();
+    }
+
+    @Benchmark
+    public void run() {
+        op.run();
+    }
+}
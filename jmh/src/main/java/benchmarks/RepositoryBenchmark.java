@@ -0,0 +1,71 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+//Both PetRepository backends against throw-away storage seeded with pets and history rows, set up anew for every
+//benchmark method (BenchmarkSuite db.*). savePet adds a pet per call, so its storage grows during the run.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RepositoryBenchmark {
+    @Param({"sqlite", "mapped"})
+    public String backend;
+    @Param({"2000"})
+    public String pets;
+    @Param({"100000"})
+    public String history;
+
+    private Runnable op;
+
+    @Setup
+    public void setUp(BenchmarkParams running) {
+        op = Suite.prepare(running, "db", "backend", backend, "pets", pets, "history", history);
+    }
+
+    @TearDown
+    public void tearDown() {
+        Suite.cleanup();
+    }
+
+    @Benchmark
+    public void loadPet() {
+        op.run();
+    }
+
+    @Benchmark
+    public void getSavedPets() {
+        op.run();
+    }
+
+    @Benchmark
+    public void updatePet() {
+        op.run();
+    }
+
+    @Benchmark
+    public void logAction() {
+        op.run();
+    }
+
+    @Benchmark
+    public void savePet() {
+        op.run();
+    }
+}
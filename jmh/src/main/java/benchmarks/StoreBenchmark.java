@@ -0,0 +1,49 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+//The PetStore tick kernel: one op ticks every pet of the store once (BenchmarkSuite store.tickAll)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StoreBenchmark {
+    @Param({"heap", "direct"})
+    public String backing;
+    @Param({"mixed", "happy"})
+    public String states;
+    @Param({"10000"})
+    public String pets;
+
+    private Runnable op;
+
+    @Setup
+    public void setUp() {
+        op = Suite.prepare("store.tickAll", "backing", backing, "states", states, "pets", pets);
+    }
+
+    @TearDown
+    public void tearDown() {
+        Suite.cleanup();
+    }
+
+    @Benchmark
+    public void tickAll() {
+        op.run();
+    }
+}
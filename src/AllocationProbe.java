@@ -0,0 +1,68 @@
+import java.lang.management.ManagementFactory;
+
+//Checks that the feed/play/sleep/tick path allocates nothing once warmed up, including through decorator chains.
+//Uses the HotSpot per-thread allocation counter, so it needs no agent: java AllocationProbe [iterations]
+//Exits with status 1 if any operation allocates.
+class AllocationProbe {
+    private static final String[] ACTIONS = {"feed", "play", "sleep", "tick"};
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!threads.isThreadAllocatedMemorySupported()) {
+            System.err.println("❌ This JVM does not report per-thread allocations");
+            return;
+        }
+        threads.setThreadAllocatedMemoryEnabled(true);
+        PetConsole.setEnabled(false); //nobody is listening, so no message may be built
+
+        boolean clean = true;
+        long thread = Thread.currentThread().getId();
+        for (String type : new String[] {"cat", "dragon"}) {
+            for (int depth = 0; depth <= 2; depth++) {
+                for (int state = IPetState.HAPPY; state <= IPetState.DEAD; state++) {
+                    for (String action : ACTIONS) {
+                        IPet pet = decorate(new PetBuilder().setType(type).setName("Probe").build(), depth);
+                        run(pet, state, action, iterations); //warm-up, lets the JIT compile the path
+                        long before = threads.getThreadAllocatedBytes(thread);
+                        run(pet, state, action, iterations);
+                        long allocated = threads.getThreadAllocatedBytes(thread) - before;
+
+                        double perOp = (double) allocated / iterations;
+                        //A few hundred bytes of noise can come from the JVM itself; anything per-op would be far larger
+                        boolean ok = allocated < 4096;
+                        clean &= ok;
+                        System.out.printf("%s %-6s depth=%d %-28s %-5s %8.4f B/op%n",
+                                ok ? "✅" : "❌", type, depth, IPetState.forCode(state).getStateName(), action, perOp);
+                    }
+                }
+            }
+        }
+        System.out.println(clean ? "✅ Steady-state pet actions are allocation-free" : "❌ Some pet actions allocate");
+        if (!clean) System.exit(1);
+    }
+
+    private static IPet decorate(IPet pet, int depth) {
+        if (depth >= 1) pet = new ArmorDecorator(pet);
+        if (depth >= 2) pet = new AmuletDecorator(pet);
+        return pet;
+    }
+
+    //Puts the pet back into the same state and stats before every call, so every iteration walks the same path
+    private static void run(IPet pet, int state, String action, int iterations) {
+        IPetState target = IPetState.forCode(state);
+        for (int i = 0; i < iterations; i++) {
+            pet.setHealth(60);
+            pet.setEnergy(60);
+            pet.setHunger(40);
+            pet.setHappiness(60);
+            pet.setState(target);
+            switch (action) {
+                case "feed" -> pet.feed();
+                case "play" -> pet.play();
+                case "sleep" -> pet.sleep();
+                default -> pet.tick();
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,479 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+//Micro-benchmarks for the simulation and persistence hot paths.
+//  java -cp .:sqlite-jdbc.jar BenchmarkSuite [--filter regex] [--out file.json] [--quick]
+//Each benchmark is warmed up, then measured in timed iterations; results are printed and written as JSON in the same
+//layout JMH uses (benchmark/params/primaryMetric/secondaryMetrics), so two runs can be compared with the usual tools.
+//The sqlite backend benchmarks need the SQLite driver on the classpath and are skipped without it.
+//jmh/ runs the same benchmarks under JMH - a fork per benchmark, JMH statistics and -rf json; see jmh/pom.xml.
+class BenchmarkSuite {
+    interface Op {
+        void run() throws Exception;
+    }
+
+    interface Setup {
+        Op create() throws Exception;
+    }
+
+    static final class Result {
+        final String name;
+        final Map<String, String> params;
+        final double score, error, allocPerOp;
+        final int iterations;
+
+        Result(String name, Map<String, String> params, double score, double error, double allocPerOp, int iterations) {
+            this.name = name;
+            this.params = params;
+            this.score = score;
+            this.error = error;
+            this.allocPerOp = allocPerOp;
+            this.iterations = iterations;
+        }
+    }
+
+    private static final PrintStream CONSOLE = System.out;
+    private static final PrintStream MUTED = new PrintStream(OutputStream.nullOutputStream(), false, StandardCharsets.UTF_8);
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    static volatile long sink; //keeps the JIT from optimising measured work away
+    private static final BenchmarkSuite PREPARED = new BenchmarkSuite(null, 0, 0, 0); //sets up benchmarks for prepare()
+
+    private final Pattern filter;
+    private final int warmupIterations, measurementIterations;
+    private final long iterationMillis;
+    private final List<Result> results = new ArrayList<>();
+    private final List<Runnable> cleanups = new ArrayList<>();
+    private String wantedId; //prepare(): the one benchmark to set up instead of measuring
+    private Op wantedOp;
+
+    BenchmarkSuite(Pattern filter, int warmupIterations, int measurementIterations, long iterationMillis) {
+        this.filter = filter;
+        this.warmupIterations = warmupIterations;
+        this.measurementIterations = measurementIterations;
+        this.iterationMillis = iterationMillis;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String out = "benchmark-results.json";
+        Pattern filter = Pattern.compile(".*");
+        boolean quick = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--filter" -> filter = Pattern.compile(args[++i]);
+                case "--out" -> out = args[++i];
+                case "--quick" -> quick = true;
+                default -> System.err.println("❌ Unknown option: " + args[i]);
+            }
+        }
+
+        BenchmarkSuite suite = quick ? new BenchmarkSuite(filter, 2, 3, 100) : new BenchmarkSuite(filter, 3, 5, 300);
+        PetConsole.setEnabled(false);
+        if (THREADS.isThreadAllocatedMemorySupported()) THREADS.setThreadAllocatedMemoryEnabled(true);
+
+        suite.petBenchmarks();
+        suite.decoratorBenchmarks();
+        suite.builderBenchmarks();
+        suite.kernelBenchmarks();
+        suite.consoleBenchmarks();
+        suite.databaseBenchmarks(Integer.getInteger("bench.seedPets", 2_000), Integer.getInteger("bench.seedHistory", 100_000));
+        suite.cleanup();
+
+        suite.writeJson(new File(out));
+        CONSOLE.println("📄 Results written to " + out);
+    }
+
+    //For the JMH module: the op of the benchmark with exactly this name and these params, set up but not run.
+    //JMH benchmarks have to live in a named package, which can't see this one, so jmh/ calls this and cleanupPrepared()
+    //reflectively and only gets JDK types back. Game output is muted until cleanupPrepared().
+    static Runnable prepare(String name, Map<String, String> params) throws Exception {
+        BenchmarkSuite suite = PREPARED;
+        suite.wantedId = name + params;
+        suite.wantedOp = null;
+        PetConsole.setEnabled(false);
+        System.setOut(MUTED);
+        if (name.startsWith("db.")) {
+            suite.repositoryBenchmarks(params.get("backend"), Integer.parseInt(params.get("pets")), Integer.parseInt(params.get("history")));
+        } else {
+            suite.petBenchmarks();
+            suite.decoratorBenchmarks();
+            suite.builderBenchmarks();
+            suite.kernelBenchmarks();
+            suite.consoleBenchmarks();
+        }
+        Op op = suite.wantedOp;
+        if (op == null) throw new IllegalArgumentException("no benchmark " + suite.wantedId);
+        return () -> {
+            try {
+                op.run();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+
+    static void cleanupPrepared() {
+        PREPARED.cleanup();
+        System.setOut(CONSOLE);
+    }
+
+    //IPet.tick/feed/play/sleep for every species in every state
+    void petBenchmarks() {
+        for (String type : new String[] {"cat", "dragon"}) {
+            for (int code = IPetState.HAPPY; code <= IPetState.DEAD; code++) {
+                IPetState state = IPetState.forCode(code);
+                for (String action : new String[] {"tick", "feed", "play", "sleep"}) {
+                    Map<String, String> params = params("type", type, "state", stateLabel(code), "action", action);
+                    bench("pet.action", params, () -> {
+                        IPet pet = new PetBuilder().setType(type).setName("Bench").build();
+                        return () -> {
+                            reset(pet, state);
+                            act(pet, action);
+                            sink += pet.getHappiness();
+                        };
+                    });
+                }
+            }
+        }
+    }
+
+    //Cost of the PetDecorator delegation chain as it gets deeper
+    void decoratorBenchmarks() {
+        for (int depth = 0; depth <= 8; depth++) {
+            int chainDepth = depth;
+            bench("decorator.tick", params("depth", String.valueOf(depth)), () -> {
+                IPet pet = chain(chainDepth);
+                return () -> {
+                    reset(pet, IPetState.forCode(IPetState.NORMAL));
+                    pet.tick();
+                    sink += pet.getHealth();
+                };
+            });
+            bench("decorator.getMaxHealth", params("depth", String.valueOf(depth)), () -> {
+                IPet pet = chain(chainDepth);
+                return () -> sink += pet.getMaxHealth();
+            });
+        }
+    }
+
+    void builderBenchmarks() {
+        for (String type : new String[] {"cat", "dragon"}) {
+            bench("builder.build", params("type", type), () -> () -> {
+                IPet pet = new PetBuilder().setType(type).setName("Bench").setHunger(20).build();
+                sink += pet.getMaxHealth();
+            });
+        }
+    }
+
+    //The PetStore tick kernel over 10,000 pets in mixed states or all in one (one op = one tick of all of them), and
+    //FastForward catching one pet up on a day of 2-second ticks
+    void kernelBenchmarks() {
+        for (String backing : new String[] {"heap", "direct"}) for (String states : new String[] {"mixed", "happy"}) {
+            bench("store.tickAll", params("backing", backing, "states", states, "pets", "10000"), () -> {
+                PetStore store = backing.equals("heap") ? PetStore.onHeap(10_000) : PetStore.offHeap(10_000);
+                Random random = new Random(42);
+                for (int i = 0; i < 10_000; i++) {
+                    IPet pet = new PetBuilder().setType(i % 2 == 0 ? "cat" : "dragon").setName("Bench" + i).build();
+                    reset(pet, IPetState.forCode(states.equals("mixed") ? random.nextInt(IPetState.DEAD) : IPetState.HAPPY));
+                    store.add(pet);
+                }
+                int[] rows = new int[store.size()];
+                for (int row = 0; row < rows.length; row++) rows[row] = store.health(row) | store.energy(row) << 8
+                        | store.hunger(row) << 16 | store.happiness(row) << 24;
+                int[] codes = new int[store.size()];
+                for (int row = 0; row < codes.length; row++) codes[row] = store.stateCode(row);
+                return () -> {
+                    for (int row = 0; row < rows.length; row++) { //same starting point every op, or everyone is dead after a few
+                        store.setHealthRaw(row, rows[row] & 0xFF);
+                        store.setEnergyRaw(row, rows[row] >>> 8 & 0xFF);
+                        store.setHungerRaw(row, rows[row] >>> 16 & 0xFF);
+                        store.setHappinessRaw(row, rows[row] >>> 24);
+                        store.setStateCodeRaw(row, codes[row]);
+                    }
+                    store.tickAll();
+                    sink += store.health(0);
+                };
+            });
+        }
+        for (int code = IPetState.HAPPY; code < IPetState.DEAD; code++) {
+            IPetState state = IPetState.forCode(code);
+            bench("pet.fastForward", params("state", stateLabel(code), "ticks", "43200"), () -> {
+                IPet pet = new PetBuilder().setName("Bench").build();
+                return () -> {
+                    reset(pet, state);
+                    sink += FastForward.advance(pet, 43_200);
+                };
+            });
+        }
+    }
+
+    //One game-loop screen (status panel + actions menu) through ConsoleRenderer; the pet ticks between frames,
+    //so the ansi renderer has a few changed lines to redraw every time
+    void consoleBenchmarks() {
+        for (String mode : new String[] {"plain", "ansi"}) {
+            bench("console.frame", params("mode", mode), () -> {
+                ConsoleRenderer screen = new ConsoleRenderer(MUTED, mode.equals("ansi"));
+                IPet pet = new PetBuilder().setName("Bench").build();
+                reset(pet, IPetState.forCode(IPetState.NORMAL));
+                return () -> {
+                    if (pet.getEnergy() < 40) reset(pet, IPetState.forCode(IPetState.NORMAL));
+                    else pet.tick();
+                    StringBuilder frame = screen.begin();
+                    pet.appendStatus(frame);
+                    frame.append("\n📋 Actions:\n1. 🍖 Feed\n2. 🎾 Play\n3. 😴 Sleep\n");
+                    screen.draw("Choice: ");
+                    sink += frame.length();
+                };
+            });
+        }
+    }
+
+    //Both PetRepository backends against throw-away storage seeded with the same realistic amount of data,
+    //so db.* results with backend=sqlite and backend=mapped compare directly
+    void databaseBenchmarks(int seedPets, int seedHistory) throws Exception {
+        for (String backend : new String[] {"sqlite", "mapped"}) {
+            if (backend.equals("sqlite") && !sqliteDriverPresent()) {
+                CONSOLE.println("⏭️  SQLite driver not on the classpath - skipping the sqlite backend");
+                continue;
+            }
+            repositoryBenchmarks(backend, seedPets, seedHistory);
+        }
+    }
+
+    private static boolean sqliteDriverPresent() {
+        try {
+            Class.forName("org.sqlite.JDBC");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    private void repositoryBenchmarks(String backend, int seedPets, int seedHistory) throws IOException {
+        Random random = new Random(42);
+        PetRepository db = openSeededRepository(backend, seedPets, seedHistory);
+        IPet pet = new PetBuilder().setName("Bench").build();
+        Map<String, String> params = params("backend", backend, "pets", String.valueOf(seedPets), "history", String.valueOf(seedHistory));
+
+        //Reads first, while the tables still hold exactly the seeded pets - db.savePet adds one pet per call
+        bench("db.loadPet", params, () -> () -> {
+            PetRecord loaded = db.loadPet(1 + random.nextInt(seedPets));
+            sink += loaded == null ? 0 : loaded.toPet().getHealth();
+        });
+        bench("db.getSavedPets", params, () -> () -> sink += db.getSavedPets().size());
+        bench("db.updatePet", params, () -> () -> {
+            pet.setPetId(1 + random.nextInt(seedPets));
+            pet.tick();
+            db.updatePet(pet);
+        });
+        bench("db.logAction", params, () -> () -> db.logAction(1 + random.nextInt(seedPets), "FEED", pet));
+        bench("db.savePet", params, () -> () -> sink += db.savePet(new PetBuilder().setName("Bench").build()));
+    }
+
+    private PetRepository openSeededRepository(String backend, int pets, int history) throws IOException {
+        File file = File.createTempFile("pet-bench", backend.equals("sqlite") ? ".db" : "");
+        if (backend.equals("mapped")) {
+            file.delete(); //the mapped backend wants a directory
+            System.setProperty("pet.mapped.dir", file.getAbsolutePath());
+        }
+        file.deleteOnExit();
+        System.setProperty("pet.storage", backend);
+        System.setProperty("pet.db.url", "jdbc:sqlite:" + file.getAbsolutePath());
+
+        PrintStream out = System.out;
+        System.setOut(MUTED);
+        PetRepository db = PetRepository.open(new GameConfig());
+        Random random = new Random(7);
+        List<IPet> seeds = new ArrayList<>();
+        for (int i = 0; i < pets; i++) {
+            IPet pet = new PetBuilder().setName("Seed" + i).setType(i % 2 == 0 ? "cat" : "dragon").build();
+            if (i % 4 == 0) pet = new ArmorDecorator(pet);
+            seeds.add(pet);
+        }
+        db.savePets(seeds);
+        WriteBatch batch = new WriteBatch();
+        IPet sample = new PetBuilder().build();
+        String[] actions = {"FEED", "PLAY", "SLEEP"};
+        for (int i = 0; i < history; i++) {
+            batch.addAction(1 + random.nextInt(pets), actions[i % actions.length], sample);
+            if (batch.size() == 10_000) {
+                db.writeBatch(batch);
+                batch = new WriteBatch();
+            }
+        }
+        db.writeBatch(batch);
+        System.setOut(out);
+
+        cleanups.add(() -> {
+            db.close();
+            delete(file);
+            new File(file.getPath() + "-wal").delete();
+            new File(file.getPath() + "-shm").delete();
+        });
+        return db;
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) child.delete();
+        }
+        file.delete();
+    }
+
+    //Runs one benchmark: warm-up iterations, then timed iterations reported as ops/s
+    void bench(String name, Map<String, String> params, Setup setup) {
+        String id = name + params;
+        if (wantedId != null) { //prepare(): only set up the wanted one, measure nothing
+            if (id.equals(wantedId)) {
+                try {
+                    wantedOp = setup.create();
+                } catch (Exception e) {
+                    throw new IllegalStateException("Benchmark " + id + " could not be set up", e);
+                }
+            }
+            return;
+        }
+        if (!filter.matcher(id).find()) return;
+
+        try {
+            Op op = setup.create();
+            System.setOut(MUTED); //the game prints as it plays; that would only benchmark the terminal
+            for (int i = 0; i < warmupIterations; i++) {
+                iteration(op);
+            }
+            double[] scores = new double[measurementIterations];
+            long thread = Thread.currentThread().getId();
+            long allocatedBefore = THREADS.getThreadAllocatedBytes(thread);
+            long totalOps = 0;
+            for (int i = 0; i < measurementIterations; i++) {
+                long[] opsAndNanos = iteration(op);
+                totalOps += opsAndNanos[0];
+                scores[i] = opsAndNanos[0] * 1e9 / opsAndNanos[1];
+            }
+            long allocated = THREADS.getThreadAllocatedBytes(thread) - allocatedBefore;
+            System.setOut(CONSOLE);
+
+            double mean = 0;
+            for (double score : scores) mean += score;
+            mean /= scores.length;
+            double variance = 0;
+            for (double score : scores) variance += (score - mean) * (score - mean);
+            double error = scores.length > 1 ? Math.sqrt(variance / (scores.length - 1)) : 0;
+            double allocPerOp = totalOps == 0 ? 0 : (double) allocated / totalOps;
+
+            results.add(new Result(name, params, mean, error, allocPerOp, scores.length));
+            CONSOLE.printf("%-24s %-50s %14.1f ± %10.1f ops/s %10.2f B/op%n", name, params, mean, error, allocPerOp);
+        } catch (Exception e) {
+            System.setOut(CONSOLE);
+            System.err.println("❌ Benchmark " + id + " failed: " + e);
+        }
+    }
+
+    private long[] iteration(Op op) throws Exception {
+        long deadline = System.nanoTime() + iterationMillis * 1_000_000;
+        long start = System.nanoTime();
+        long ops = 0;
+        long now;
+        do {
+            for (int i = 0; i < 64; i++) { //check the clock once per 64 calls so timing doesn't dominate tiny ops
+                op.run();
+            }
+            ops += 64;
+            now = System.nanoTime();
+        } while (now < deadline);
+        return new long[] {ops, now - start};
+    }
+
+    void cleanup() {
+        for (Runnable cleanup : cleanups) cleanup.run();
+        cleanups.clear();
+    }
+
+    List<Result> getResults() { return results; }
+
+    void writeJson(File file) throws IOException {
+        try (PrintWriter out = new PrintWriter(file, StandardCharsets.UTF_8)) {
+            out.println("[");
+            for (int i = 0; i < results.size(); i++) {
+                Result r = results.get(i);
+                out.print("  {\"benchmark\": " + json(r.name) + ", \"mode\": \"thrpt\", \"measurementIterations\": " + r.iterations);
+                out.print(", \"params\": {");
+                int p = 0;
+                for (Map.Entry<String, String> param : r.params.entrySet()) {
+                    out.print((p++ > 0 ? ", " : "") + json(param.getKey()) + ": " + json(param.getValue()));
+                }
+                out.print("}, \"primaryMetric\": {\"score\": " + r.score + ", \"scoreError\": " + r.error + ", \"scoreUnit\": \"ops/s\"}");
+                out.print(", \"secondaryMetrics\": {\"gc.alloc.rate.norm\": {\"score\": " + r.allocPerOp + ", \"scoreUnit\": \"B/op\"}}}");
+                out.println(i + 1 < results.size() ? "," : "");
+            }
+            out.println("]");
+        }
+    }
+
+    static Map<String, String> params(String... keyValues) {
+        Map<String, String> params = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < keyValues.length; i += 2) {
+            params.put(keyValues[i], keyValues[i + 1]);
+        }
+        return params;
+    }
+
+    static String json(String value) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                default -> {
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+                }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    //State names are kaomoji; parameters stay plain ASCII so they are easy to filter on
+    static String stateLabel(int code) {
+        return PetRules.stateKey(code);
+    }
+
+    static void reset(IPet pet, IPetState state) {
+        pet.setHealth(60);
+        pet.setEnergy(60);
+        pet.setHunger(40);
+        pet.setHappiness(60);
+        pet.setState(state);
+    }
+
+    static void act(IPet pet, String action) {
+        switch (action) {
+            case "feed" -> pet.feed();
+            case "play" -> pet.play();
+            case "sleep" -> pet.sleep();
+            default -> pet.tick();
+        }
+    }
+
+    static IPet chain(int depth) {
+        IPet pet = new PetBuilder().setName("Bench").build();
+        for (int i = 0; i < depth; i++) {
+            pet = i % 2 == 0 ? new ArmorDecorator(pet) : new AmuletDecorator(pet);
+        }
+        return pet;
+    }
+}
\ No newline at end of file
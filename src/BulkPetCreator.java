@@ -0,0 +1,51 @@
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+//Creates pets in bulk from a stream of PetBuilder specs, e.g. to seed a shard: java Main --create <count> [cat|dragon|mixed]
+//Specs are taken pet.bulk.batchRows at a time. Each chunk is built on pet.bulk.threads threads while the chunk
+//before it is being stored, and stored with PetRepository.savePets - one transaction per chunk.
+class BulkPetCreator {
+    private final PetRepository repository;
+    private final int batchRows;
+    private final int threads;
+
+    BulkPetCreator(PetRepository repository, GameConfig config) {
+        this.repository = repository;
+        this.batchRows = Math.max(1, config.bulkBatchRows);
+        this.threads = Math.max(1, config.bulkThreads);
+    }
+
+    //Returns the created pets' count; every created pet has its id set
+    long create(Stream<PetBuilder> specs) {
+        long started = System.nanoTime();
+        long created = 0;
+        Iterator<PetBuilder> source = specs.iterator();
+        ForkJoinPool builders = new ForkJoinPool(threads);
+        try {
+            CompletableFuture<List<IPet>> next = buildNext(source, builders);
+            while (true) {
+                List<IPet> chunk = next.join();
+                if (chunk.isEmpty()) break;
+                next = buildNext(source, builders); //building overlaps the insert below
+                created += repository.savePets(chunk);
+            }
+        } finally {
+            builders.shutdown();
+        }
+
+        double seconds = Math.max(1e-9, (System.nanoTime() - started) / 1e9);
+        System.out.printf("🐣 Created %,d pets in %.2f s (%,.0f pets/s)%n", created, seconds, created / seconds);
+        return created;
+    }
+
+    //Reading the specs stays on the caller's thread (the stream may not be thread-safe); only build() runs in parallel
+    private CompletableFuture<List<IPet>> buildNext(Iterator<PetBuilder> source, ForkJoinPool builders) {
+        List<PetBuilder> specs = new ArrayList<>(batchRows);
+        while (specs.size() < batchRows && source.hasNext()) specs.add(source.next());
+        return CompletableFuture.supplyAsync(() -> specs.parallelStream().map(PetBuilder::build).toList(), builders);
+    }
+}
@@ -1,9 +1,11 @@
 class Cat extends Pet {
+    static final String SPECIES = "🐱 Cat";
+
     public Cat(String name, int health, int energy, int hunger, int happiness) {
         super(name, health, energy, hunger, happiness);
     }
     @Override
-    public String getType() {
-        return "🐱 Cat";
+    public String getSpecies() {
+        return SPECIES;
     }
 }
\ No newline at end of file
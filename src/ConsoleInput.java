@@ -0,0 +1,92 @@
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+import java.util.Scanner;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+//Reads console lines on a daemon thread and queues them, so waiting for the player never blocks the game clock.
+//Every part of the game reads through here - there is only ever one reader of the stream.
+//Also measures command latency: from the moment the game could start on a line (it had arrived and the game was
+//asking for input) until the game asks for the next one. Lines a client sends ahead don't count their wait in the queue.
+class ConsoleInput {
+    private static final Line END = new Line(null, 0); //compared by identity, can't clash with a typed line
+    private final BlockingQueue<Line> lines = new LinkedBlockingQueue<>();
+    private final LatencyStats latency = new LatencyStats();
+    private long answeringSince; //when work on the current line started, 0 when the game is waiting for input
+    private long askedAt; //when the game last asked for input
+
+    ConsoleInput(InputStream in) {
+        this(in, runnable -> {
+            Thread thread = new Thread(runnable, "pet-console-input");
+            thread.setDaemon(true); //a read blocked on System.in must not keep the JVM alive
+            return thread;
+        });
+    }
+
+    ConsoleInput(InputStream in, ThreadFactory readerThreads) {
+        readerThreads.newThread(() -> read(in)).start();
+    }
+
+    private void read(InputStream in) {
+        Scanner scanner = new Scanner(in, StandardCharsets.UTF_8);
+        try {
+            while (scanner.hasNextLine()) {
+                lines.add(new Line(scanner.nextLine(), System.nanoTime()));
+            }
+        } catch (IllegalStateException e) {
+            //the stream was closed under us - same as the end of input
+        }
+        lines.add(END);
+    }
+
+    //Waits for the next line. Throws NoSuchElementException once the input is closed, like Scanner.nextLine.
+    String nextLine() {
+        answered();
+        try {
+            return take(lines.take());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new NoSuchElementException("Interrupted while waiting for input");
+        }
+    }
+
+    //The next line, or null if none arrives within timeoutMillis. Throws NoSuchElementException like nextLine.
+    String poll(long timeoutMillis) {
+        answered();
+        try {
+            Line line = lines.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+            return line == null ? null : take(line);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); //being interrupted ends the session, same as the end of input
+            throw new NoSuchElementException("Interrupted while waiting for input");
+        }
+    }
+
+    LatencyStats getLatency() { return latency; }
+
+    //The game asking for input again means it has finished with the previous line
+    private void answered() {
+        long now = System.nanoTime();
+        if (answeringSince != 0) {
+            latency.record(now - answeringSince);
+            answeringSince = 0;
+            askedAt = now;
+        } else if (askedAt == 0) {
+            askedAt = now;
+        }
+    }
+
+    private String take(Line line) {
+        if (line == END) {
+            lines.add(END); //keep reporting the end to every later call
+            throw new NoSuchElementException("No line found");
+        }
+        answeringSince = Math.max(line.arrivedNanos, askedAt);
+        return line.text;
+    }
+
+    private record Line(String text, long arrivedNanos) {}
+}
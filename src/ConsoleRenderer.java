@@ -0,0 +1,122 @@
+import java.io.PrintStream;
+
+//Draws the game loop's screen - the pet's status panel and the actions menu - as one frame.
+//The frame is built in a StringBuilder that is reused from turn to turn and goes out in a single write, prompt included,
+//so a tick message from the clock thread can never land in the middle of it.
+//  plain - the whole frame every turn, for pipes, files, sockets and dumb terminals
+//  ansi  - the frame stays pinned at the top of the screen and only the lines that changed since the last frame are
+//          redrawn; pet messages, statistics and the prompt scroll in the region below it. The window has to be
+//          taller than the frame - on a very small one use plain.
+//Choose with -Dpet.console=auto|ansi|plain; auto is ansi for the local game on a terminal, plain otherwise.
+final class ConsoleRenderer {
+    static final String RULE = "=".repeat(50); //the status panel's top and bottom border
+
+    private static final String CSI = "\u001b[";
+    private static final String SAVE_CURSOR = "\u001b7", RESTORE_CURSOR = "\u001b8";
+
+    private final PrintStream out;
+    private final boolean ansi;
+    private StringBuilder frame = new StringBuilder(1024);
+    private final StringBuilder output = new StringBuilder(1024); //ansi: the escape sequences plus the changed lines
+
+    //ansi: what is on the screen now, kept to diff the next frame against. Line i ends at the '\n' at shownEnds[i].
+    private StringBuilder shown = new StringBuilder(1024);
+    private int[] frameEnds = new int[32], shownEnds = new int[32];
+    private int shownLines = -1; //-1 = nothing pinned yet
+
+    ConsoleRenderer(PrintStream out, boolean ansi) {
+        this.out = out;
+        this.ansi = ansi;
+    }
+
+    static ConsoleRenderer create(String mode, PrintStream out) {
+        boolean ansi = switch (mode.toLowerCase()) {
+            case "ansi" -> true;
+            case "plain" -> false;
+            case "auto" -> out == System.out && isAnsiTerminal();
+            default -> {
+                System.err.println("❌ Unknown pet.console: " + mode + " (allowed: auto, ansi, plain) - using plain");
+                yield false;
+            }
+        };
+        return new ConsoleRenderer(out, ansi);
+    }
+
+    //System.console() is only there when both stdin and stdout are a terminal
+    private static boolean isAnsiTerminal() {
+        String term = System.getenv("TERM");
+        return System.console() != null && term != null && !term.equals("dumb");
+    }
+
+    //The empty frame to append this turn's lines to. Every line ends with '\n'.
+    StringBuilder begin() {
+        frame.setLength(0);
+        return frame;
+    }
+
+    //Writes the frame begun with begin(), then the prompt, and flushes once
+    void draw(String prompt) {
+        if (!ansi) {
+            out.append(frame.append(prompt)).flush();
+            return;
+        }
+        int lines = indexLines();
+        output.setLength(0);
+        if (lines != shownLines) {
+            //First frame, or it grew or shrank (a new equipment line): start over on a clean screen
+            output.append(CSI).append("2J").append(CSI).append('H').append(frame)
+                    .append(CSI).append(lines + 1).append(";r")    //only the rows below the frame scroll
+                    .append(CSI).append(lines + 1).append(";1H");  //setting the region sent the cursor home
+        } else {
+            output.append(SAVE_CURSOR); //somewhere in the scrolling region, after the last message
+            for (int i = 0, start = 0, shownStart = 0; i < lines; i++) {
+                int end = frameEnds[i], shownEnd = shownEnds[i];
+                if (!sameLine(frame, start, end, shown, shownStart, shownEnd)) {
+                    output.append(CSI).append(i + 1).append(";1H").append(frame, start, end).append(CSI).append('K');
+                }
+                start = end + 1;
+                shownStart = shownEnd + 1;
+            }
+            output.append(RESTORE_CURSOR);
+        }
+        out.append(output.append(prompt)).flush();
+
+        StringBuilder drawn = frame;
+        frame = shown;
+        shown = drawn;
+        int[] ends = frameEnds;
+        frameEnds = shownEnds;
+        shownEnds = ends;
+        shownLines = lines;
+    }
+
+    //Unpins the frame so whatever is printed after the game loop scrolls over the whole screen again
+    void finish() {
+        if (ansi && shownLines >= 0) {
+            output.setLength(0);
+            output.append(CSI).append('r').append(CSI).append("999;1H").append('\n'); //999: the last row, whatever the height
+            out.append(output).flush();
+            shownLines = -1;
+        }
+    }
+
+    //Fills frameEnds with where each line of the frame ends and returns how many lines it has
+    private int indexLines() {
+        int lines = 0;
+        for (int i = 0, length = frame.length(); i < length; i++) {
+            if (frame.charAt(i) != '\n') continue;
+            if (lines == frameEnds.length) frameEnds = java.util.Arrays.copyOf(frameEnds, lines * 2);
+            frameEnds[lines++] = i;
+        }
+        return lines;
+    }
+
+    private static boolean sameLine(StringBuilder a, int aStart, int aEnd, StringBuilder b, int bStart, int bEnd) {
+        if (aEnd - aStart != bEnd - bStart) return false;
+        for (int i = aStart, j = bStart; i < aEnd; i++, j++) {
+            if (a.charAt(i) != b.charAt(j)) return false;
+        }
+        return true;
+    }
+}
+//✅ Single Responsibility - pets and menus only append their lines; how they reach the terminal is decided here
@@ -1,330 +1,1234 @@
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
-class DatabaseManager {
-    private static final String DB_URL = "jdbc:sqlite:virtual_pet.db"; //It tells the driver to use a file named virtual_pet.db in the current directory.
-    private Connection connection;
+class DatabaseManager implements PetRepository {
+    //Every query lives in a constant so StatementCache can prepare it once and reuse it for the whole session.
+    private static final String INSERT_PET_SQL = """
+            INSERT INTO pets (name, type, health, max_health, energy, hunger, happiness, state, decorators, equipment)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+        """;
+    //UPDATE pets statements by dirty-field mask, each setting only the changed columns (see updatePetSql)
+    private static final String[] UPDATE_PET_SQL = new String[IPet.DIRTY_ALL + 1];
+    //SET fragment per dirty bit; the loadout is written both as the equipment bitset and as the legacy label list
+    private static final String[] PET_COLUMNS = {"health = ?", "energy = ?", "hunger = ?", "happiness = ?", "state = ?",
+            "decorators = ?, equipment = ?"};
+    //Bulk creation: ids are handed out by savePets itself, so a whole chunk is one batch with no key read-back per row
+    private static final String INSERT_PET_WITH_ID_SQL = """
+            INSERT INTO pets (id, name, type, health, max_health, energy, hunger, happiness, state, decorators, equipment)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+        """;
+    //Past both the highest id in use and the highest AUTOINCREMENT ever gave out, so a deleted pet's id is never reused
+    private static final String NEXT_PET_ID_SQL = """
+            SELECT MAX(COALESCE((SELECT MAX(id) FROM pets), 0),
+                       COALESCE((SELECT seq FROM sqlite_sequence WHERE name = 'pets'), 0)) + 1
+        """;
+    private static final String INSERT_HISTORY_SQL = """
+            INSERT INTO game_history (pet_id, action, health_after, energy_after, hunger_after, happiness_after)
+            VALUES (?, ?, ?, ?, ?, ?)
+        """;
+    private static final String ADD_STATISTICS_SQL = """
+            UPDATE pet_statistics
+            SET total_feeds = total_feeds + ?, total_plays = total_plays + ?,
+                total_sleeps = total_sleeps + ?, total_turns = total_turns + ?
+            WHERE pet_id = ?
+        """;
+    private static final String INSERT_STATISTICS_SQL = "INSERT INTO pet_statistics (pet_id) VALUES (?)";
+    //Newest first, id breaks ties; both queries walk idx_pets_last_played and stop after LIMIT rows
+    private static final String SELECT_PETS_FIRST_PAGE_SQL = """
+            SELECT id, name, type, health, last_played FROM pets
+            ORDER BY last_played DESC, id DESC LIMIT ?
+        """;
+    private static final String SELECT_PETS_NEXT_PAGE_SQL = """
+            SELECT id, name, type, health, last_played FROM pets
+            WHERE (last_played, id) < (?, ?)
+            ORDER BY last_played DESC, id DESC LIMIT ?
+        """;
+    private static final String COUNT_PETS_SQL = "SELECT COUNT(*) FROM pets";
+    private static final String SELECT_PET_SQL = "SELECT * FROM pets WHERE id = ?";
+    private static final String SELECT_STATISTICS_SQL = "SELECT * FROM pet_statistics WHERE pet_id = ?";
+    //Top pets per Leaderboard, indexed by ordinal. Each walks its idx_*_leaderboard index and stops after LIMIT rows.
+    private static final String[] LEADERBOARD_SQL = leaderboardSql();
+    private static final String SELECT_HISTORY_SQL = "SELECT * FROM game_history WHERE pet_id = ? ORDER BY timestamp DESC, id DESC LIMIT ?";
+    //Upper id of the next compaction chunk: rows are appended in time order, so the oldest rows have the lowest ids
+    private static final String COMPACTION_CHUNK_END_SQL = "SELECT MAX(id) FROM (SELECT id FROM game_history ORDER BY id LIMIT ?)";
+    //One aggregate row per pet, day and action. The bare *_after columns come from the row with MAX(id), i.e. the day's last one
+    private static final String ROLL_UP_HISTORY_SQL = """
+            INSERT INTO game_history_daily (pet_id, day, action, action_count, last_history_id,
+                                            health_after, energy_after, hunger_after, happiness_after)
+            SELECT pet_id, date(timestamp), action, COUNT(*), MAX(id),
+                   health_after, energy_after, hunger_after, happiness_after
+            FROM game_history
+            WHERE id <= ? AND timestamp < datetime('now', ?)
+            GROUP BY pet_id, date(timestamp), action
+            ON CONFLICT (pet_id, day, action) DO UPDATE SET
+                action_count = action_count + excluded.action_count,
+                last_history_id = excluded.last_history_id,
+                health_after = excluded.health_after,
+                energy_after = excluded.energy_after,
+                hunger_after = excluded.hunger_after,
+                happiness_after = excluded.happiness_after
+        """;
+    private static final String DELETE_COMPACTED_HISTORY_SQL = "DELETE FROM game_history WHERE id <= ? AND timestamp < datetime('now', ?)";
+    //Bulk transfer (PetTransfer): forward-only cursors in id order, and inserts that keep the ids they are given
+    private static final String EXPORT_PETS_SQL = """
+            SELECT p.*, COALESCE(s.total_feeds, 0) AS total_feeds, COALESCE(s.total_plays, 0) AS total_plays,
+                   COALESCE(s.total_sleeps, 0) AS total_sleeps, COALESCE(s.total_turns, 0) AS total_turns
+            FROM pets p LEFT JOIN pet_statistics s ON s.pet_id = p.id
+            ORDER BY p.id
+        """;
+    private static final String EXPORT_HISTORY_SQL = "SELECT * FROM game_history ORDER BY id";
+    private static final String IMPORT_PET_SQL = """
+            INSERT OR REPLACE INTO pets (id, name, type, health, max_health, energy, hunger, happiness, state, decorators,
+                                         equipment, created_at, last_played, survival_seconds)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, COALESCE(?, CURRENT_TIMESTAMP), COALESCE(?, CURRENT_TIMESTAMP),
+                    CAST(strftime('%s', COALESCE(?, CURRENT_TIMESTAMP)) AS INTEGER) - CAST(strftime('%s', COALESCE(?, CURRENT_TIMESTAMP)) AS INTEGER))
+        """;
+    private static final String IMPORT_STATISTICS_SQL = """
+            INSERT OR REPLACE INTO pet_statistics (pet_id, total_feeds, total_plays, total_sleeps, total_turns)
+            VALUES (?, ?, ?, ?, ?)
+        """;
+    //Rows already there (same id) are kept, so re-running an import adds nothing twice
+    private static final String IMPORT_HISTORY_SQL = """
+            INSERT OR IGNORE INTO game_history (id, pet_id, action, timestamp, health_after, energy_after, hunger_after, happiness_after)
+            VALUES (?, ?, ?, COALESCE(?, CURRENT_TIMESTAMP), ?, ?, ?, ?)
+        """;
+    //Bulk delete and archival work on the ids in temp.selected_pets, so a whole chunk of pets is one statement per table
+    private static final String CLEAR_SELECTED_SQL = "DELETE FROM temp.selected_pets";
+    private static final String SELECT_PET_ID_SQL = "INSERT OR IGNORE INTO temp.selected_pets (id) VALUES (?)";
+    private static final String SELECTED = "(SELECT id FROM temp.selected_pets)";
+    private static final String[] DELETE_SELECTED_SQL = {
+            "DELETE FROM main.game_history WHERE pet_id IN " + SELECTED,
+            "DELETE FROM main.game_history_daily WHERE pet_id IN " + SELECTED,
+            "DELETE FROM main.pet_statistics WHERE pet_id IN " + SELECTED,
+            "DELETE FROM main.pets WHERE id IN " + SELECTED};
+    //Archive candidates, oldest first. The dead-state literal is part of the SQL so idx_pets_dead (a partial index) applies.
+    private static final String SELECT_DEAD_PETS_SQL = "SELECT id FROM pets WHERE state = '" + IPetState.forCode(IPetState.DEAD).getStateName()
+            + "' AND last_played < datetime('now', ?) ORDER BY last_played LIMIT ?";
+    private static final String SELECT_INACTIVE_PETS_SQL = "SELECT id FROM pets WHERE last_played < datetime('now', ?) ORDER BY last_played LIMIT ?";
+    private static final String PET_ARCHIVE_COLUMNS = "id, name, type, health, max_health, energy, hunger, happiness, state, "
+            + "decorators, equipment, created_at, last_played, survival_seconds";
+    private static final String HISTORY_ARCHIVE_COLUMNS = "id, pet_id, action, timestamp, health_after, energy_after, hunger_after, happiness_after";
+    private static final String DAILY_ARCHIVE_COLUMNS = "pet_id, day, action, action_count, last_history_id, "
+            + "health_after, energy_after, hunger_after, happiness_after";
+    private static final String[] ARCHIVE_SELECTED_SQL = {
+            "INSERT OR REPLACE INTO archive.pets (" + PET_ARCHIVE_COLUMNS + ", archived_at) SELECT " + PET_ARCHIVE_COLUMNS
+                    + ", CURRENT_TIMESTAMP FROM main.pets WHERE id IN " + SELECTED,
+            "INSERT OR REPLACE INTO archive.pet_statistics SELECT pet_id, total_feeds, total_plays, total_sleeps, total_turns"
+                    + " FROM main.pet_statistics WHERE pet_id IN " + SELECTED,
+            "INSERT OR REPLACE INTO archive.game_history (" + HISTORY_ARCHIVE_COLUMNS + ") SELECT " + HISTORY_ARCHIVE_COLUMNS
+                    + " FROM main.game_history WHERE pet_id IN " + SELECTED,
+            "INSERT OR REPLACE INTO archive.game_history_daily (" + DAILY_ARCHIVE_COLUMNS + ") SELECT " + DAILY_ARCHIVE_COLUMNS
+                    + " FROM main.game_history_daily WHERE pet_id IN " + SELECTED};
+
+    //One latency timer per public call (see Metrics); writes queued for the writer are timed up to the hand-off
+    private static final Metrics.Timer SAVE_PET_TIMER = Metrics.timer("db.savePet");
+    private static final Metrics.Timer SAVE_PETS_TIMER = Metrics.timer("db.savePets");
+    private static final Metrics.Timer UPDATE_PET_TIMER = Metrics.timer("db.updatePet");
+    private static final Metrics.Timer LOG_ACTION_TIMER = Metrics.timer("db.logAction");
+    private static final Metrics.Timer GET_SAVED_PETS_TIMER = Metrics.timer("db.getSavedPets");
+    private static final Metrics.Timer LIST_PETS_TIMER = Metrics.timer("db.listPets");
+    private static final Metrics.Timer COUNT_PETS_TIMER = Metrics.timer("db.countPets");
+    private static final Metrics.Timer LOAD_PET_TIMER = Metrics.timer("db.loadPet");
+    private static final Metrics.Timer DELETE_PET_TIMER = Metrics.timer("db.deletePet");
+    private static final Metrics.Timer DELETE_PETS_TIMER = Metrics.timer("db.deletePets");
+    private static final Metrics.Timer ARCHIVE_PETS_TIMER = Metrics.timer("db.archivePets");
+    private static final Metrics.Timer UPDATE_STATISTICS_TIMER = Metrics.timer("db.updateStatistics");
+    private static final Metrics.Timer WRITE_BATCH_TIMER = Metrics.timer("db.writeBatch");
+    private static final Metrics.Timer COMPACT_HISTORY_TIMER = Metrics.timer("db.compactHistory");
+    private static final Metrics.Timer GET_STATISTICS_TIMER = Metrics.timer("db.getStatistics");
+    private static final Metrics.Timer LEADERBOARD_TIMER = Metrics.timer("db.leaderboard");
+    private static final Metrics.Timer DISPLAY_STATISTICS_TIMER = Metrics.timer("db.displayStatistics");
+    private static final Metrics.Timer DISPLAY_RECENT_HISTORY_TIMER = Metrics.timer("db.displayRecentHistory");
+    private static final Metrics.Timer EXPORT_TIMER = Metrics.timer("db.export");
+    private static final Metrics.Timer IMPORT_TIMER = Metrics.timer("db.import");
+    private static final Metrics.Counter ERRORS = Metrics.counter("db.errors");
+
+    private final String dbUrl; //e.g. jdbc:sqlite:virtual_pet.db - tells the driver to use a file named virtual_pet.db in the current directory.
+    private final SqlitePragmaProfile pragmaProfile;
+    private Connection connection; //the write connection - after initialization only the writer thread touches it
+    private StatementCache statements;
+    private final DatabaseWriter writer;
+    private final int readerCount;
+    private final int fetchSize;
+    private final String archivePath; //attached as "archive" on the first archivePets call
+    private boolean archiveAttached;  //writer thread only
+    private boolean vacuumWarned;
+    private ReaderPool readers; //null when queries run on the writer thread; set by initializeDatabase
+    private final java.util.concurrent.CountDownLatch initialized = new java.util.concurrent.CountDownLatch(1);
+    private final Map<Integer, Integer> queuedPetUpdates = new ConcurrentHashMap<>(); //pet id -> updatePet writes not applied yet
+    private final PetCache cache;
+    private final PetWriteStats writeStats = new PetWriteStats();
 
     public DatabaseManager() {
-        initializeDatabase(); //Calls the private method to set up the connection and ensure the tables exist.
+        this(new GameConfig());
+    }
+
+    public DatabaseManager(GameConfig config) {
+        this.dbUrl = config.databaseUrl;
+        this.pragmaProfile = config.pragmaProfile;
+        this.cache = new PetCache(config.cacheMaxPets);
+        this.writer = new DatabaseWriter(config);
+        this.fetchSize = Math.max(1, config.transferFetchSize);
+        this.archivePath = archivePath(dbUrl, config.archiveFile);
+        //every connection to :memory: is a separate empty database, so there the writer's connection answers queries too
+        this.readerCount = dbUrl.contains(":memory:") ? 0 : Math.max(0, config.dbReaders);
+        //The connection is opened on the writer thread, so the caller - usually the game putting up its first menu -
+        //doesn't wait for the driver, the file and the schema check. Writes queue behind it; reads wait for 'initialized'.
+        writer.execute(this::initializeDatabase, "initializing the database");
     }
+
     private void initializeDatabase() {
         try {
             Class.forName("org.sqlite.JDBC"); //Loads the JDBC driver for SQLite
-            connection = DriverManager.getConnection(DB_URL); //Establishes the database connection. This creates the virtual_pet.db file if it doesn't exist and opens a connection to it
-            createTables();
-            System.out.println("✅ Database initialized successfully!");
+            connection = DriverManager.getConnection(dbUrl); //Establishes the database connection. This creates the virtual_pet.db file if it doesn't exist and opens a connection to it
+            //Only takes effect on a brand-new file, before the journal mode writes its header: archived and deleted rows
+            //can then be handed back to the file system a few pages at a time (reclaimSpace) instead of by a full VACUUM
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("PRAGMA auto_vacuum = INCREMENTAL");
+            }
+            pragmaProfile.apply(connection);
+            statements = new StatementCache(connection);
+            SchemaMigrations.migrate(connection);
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("CREATE TEMP TABLE IF NOT EXISTS selected_pets (id INTEGER PRIMARY KEY)"); //this connection only
+            }
+            if (readerCount > 0) readers = new ReaderPool(dbUrl, pragmaProfile, readerCount); //after the migrations, so they see the schema
         } catch (ClassNotFoundException | SQLException e) {
+            ERRORS.increment();
             System.err.println("❌ Database initialization error: " + e.getMessage());
+        } catch (LinkageError e) { //e.g. the driver's slf4j jar is missing - the message alone is just a class name
+            ERRORS.increment();
+            System.err.println("❌ Database initialization error: " + e);
+        } finally {
+            initialized.countDown();
         }
     }
 
-    private void createTables() {
-        String createPetsTable = """
-            CREATE TABLE IF NOT EXISTS pets (
-                id INTEGER PRIMARY KEY AUTOINCREMENT,
-                name TEXT NOT NULL,
-                type TEXT NOT NULL,
-                health INTEGER NOT NULL,
-                max_health INTEGER NOT NULL,
-                energy INTEGER NOT NULL,
-                hunger INTEGER NOT NULL,
-                happiness INTEGER NOT NULL,
-                state TEXT NOT NULL,
-                decorators TEXT,
-                created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-                last_played TIMESTAMP DEFAULT CURRENT_TIMESTAMP
-            )
-        """;
-        String createGameHistoryTable = """
-            CREATE TABLE IF NOT EXISTS game_history (
-                id INTEGER PRIMARY KEY AUTOINCREMENT,
-                pet_id INTEGER NOT NULL,
-                action TEXT NOT NULL,
-                timestamp TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-                health_after INTEGER,
-                energy_after INTEGER,
-                hunger_after INTEGER,
-                happiness_after INTEGER,
-                FOREIGN KEY (pet_id) REFERENCES pets(id)
-            )
-        """;
-
-        String createStatsTable = """
-            CREATE TABLE IF NOT EXISTS pet_statistics (
-                pet_id INTEGER PRIMARY KEY,
-                total_feeds INTEGER DEFAULT 0,
-                total_plays INTEGER DEFAULT 0,
-                total_sleeps INTEGER DEFAULT 0,
-                total_turns INTEGER DEFAULT 0,
-                FOREIGN KEY (pet_id) REFERENCES pets(id)
-            )
-        """;
-
-        try (Statement stmt = connection.createStatement()) {//A Statement is used for general SQL execution.
-            stmt.execute(createPetsTable); //Executes the SQL commands to create the three tables.
-            stmt.execute(createGameHistoryTable);
-            stmt.execute(createStatsTable);
-        } catch (SQLException e) {
-            System.err.println("❌ Error creating tables: " + e.getMessage());
+    //Blocks until initializeDatabase has finished (successfully or not); afterwards 'readers' is safe to read
+    private void awaitInitialized() throws SQLException {
+        try {
+            initialized.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for the database to open");
         }
     }
+
     //Method accepts an IPet object and returns the new pet's generated database ID.
+    //Waits for the writer, because the caller needs the id.
+    @Override
     public int savePet(IPet pet) {
-        String sql = """
-            INSERT INTO pets (name, type, health, max_health, energy, hunger, happiness, state, decorators)
-            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
-        """;
-       //Using PreparedStatement to safely insert data
-        try (PreparedStatement pstmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            pstmt.setString(1, pet.getName());
-            pstmt.setString(2, pet.getType());
-            pstmt.setInt(3, pet.getHealth());
-            pstmt.setInt(4, pet.getMaxHealth());
-            pstmt.setInt(5, pet.getEnergy());
-            pstmt.setInt(6, pet.getHunger());
-            pstmt.setInt(7, pet.getHappiness());
-            pstmt.setString(8, pet.getState().getStateName());
-            pstmt.setString(9, pet.getDecorators());
-
-            pstmt.executeUpdate();
-
-            ResultSet rs = pstmt.getGeneratedKeys();
-            if (rs.next()) {
-                int petId = rs.getInt(1);
-                pet.setPetId(petId);
-                initializeStatistics(petId);
-                System.out.println("💾 Pet saved to database with ID: " + petId);
+        long started = Metrics.start();
+        try {
+            try {
+                int petId = writer.call(() -> {
+                    int id = inTransaction(() -> insertPet(pet));
+                    if (id != -1) { //committed
+                        pet.setPetId(id);
+                        pet.clearDirtyFields(IPet.DIRTY_ALL);
+                        cache.putPet(PetRecord.of(pet, PetRecord.now()));
+                        cache.putStatistics(id, new PetStatistics(0, 0, 0, 0));
+                    }
+                    return id;
+                });
+                if (petId != -1) {
+                    PetConsole.out().println("💾 Pet saved to database with ID: " + petId);
+                }
                 return petId;
+            } catch (SQLException e) {
+                ERRORS.increment();
+                System.err.println("❌ Error saving pet: " + e.getMessage());
+                return -1;
+            }
+        } finally {
+            SAVE_PET_TIMER.stop(started);
+        }
+    }
+
+    private int insertPet(IPet pet) throws SQLException {
+       //Using PreparedStatement to safely insert data
+        PreparedStatement pstmt = statements.getReturningKeys(INSERT_PET_SQL);
+        pstmt.setString(1, pet.getName());
+        pstmt.setString(2, pet.getType());
+        pstmt.setInt(3, pet.getHealth());
+        pstmt.setInt(4, pet.getMaxHealth() - pet.getLoadout().maxHealthBonus); //base max health, equipment is stored separately
+        pstmt.setInt(5, pet.getEnergy());
+        pstmt.setInt(6, pet.getHunger());
+        pstmt.setInt(7, pet.getHappiness());
+        pstmt.setString(8, pet.getState().getStateName());
+        pstmt.setString(9, pet.getDecorators());
+        pstmt.setLong(10, pet.getLoadout().bits);
+
+        pstmt.executeUpdate();
+
+        int petId = -1;
+        try (ResultSet rs = pstmt.getGeneratedKeys()) {
+            if (rs.next()) petId = rs.getInt(1);
+        }
+        if (petId != -1) initializeStatistics(petId);
+        return petId;
+    }
+
+    //Many new pets in one transaction: one JDBC batch into pets and one into pet_statistics.
+    //The ids are taken inside the transaction on the writer thread, so no other insert can claim them meanwhile.
+    @Override
+    public int savePets(List<IPet> pets) {
+        long started = Metrics.start();
+        try {
+            if (pets.isEmpty()) return 0;
+            try {
+                int firstId = writer.call(() -> inTransaction(() -> insertPets(pets)));
+                for (int i = 0; i < pets.size(); i++) { //only now that the rows are committed
+                    pets.get(i).setPetId(firstId + i);
+                    pets.get(i).clearDirtyFields(IPet.DIRTY_ALL);
+                }
+                return pets.size();
+            } catch (SQLException e) {
+                ERRORS.increment();
+                System.err.println("❌ Error saving pets: " + e.getMessage());
+                return 0;
             }
+        } finally {
+            SAVE_PETS_TIMER.stop(started);
+        }
+    }
+
+    //Returns the id of the first pet; the others follow in list order
+    private int insertPets(List<IPet> pets) throws SQLException {
+        int firstId;
+        try (ResultSet rs = statements.get(NEXT_PET_ID_SQL).executeQuery()) {
+            rs.next();
+            firstId = rs.getInt(1);
+        }
+        PreparedStatement insert = statements.get(INSERT_PET_WITH_ID_SQL);
+        PreparedStatement stats = statements.get(INSERT_STATISTICS_SQL);
+        for (int i = 0; i < pets.size(); i++) {
+            IPet pet = pets.get(i);
+            insert.setInt(1, firstId + i);
+            insert.setString(2, pet.getName());
+            insert.setString(3, pet.getType());
+            insert.setInt(4, pet.getHealth());
+            insert.setInt(5, pet.getMaxHealth() - pet.getLoadout().maxHealthBonus);
+            insert.setInt(6, pet.getEnergy());
+            insert.setInt(7, pet.getHunger());
+            insert.setInt(8, pet.getHappiness());
+            insert.setString(9, pet.getState().getStateName());
+            insert.setString(10, pet.getDecorators());
+            insert.setLong(11, pet.getLoadout().bits);
+            insert.addBatch();
+            stats.setInt(1, firstId + i);
+            stats.addBatch();
+        }
+        insert.executeBatch();
+        stats.executeBatch();
+        return firstId;
+    }
+
+    //Writer thread only. After initializeDatabase failed there is no connection: each write then fails with an
+    //SQLException that its caller reports, instead of a NullPointerException.
+    private void requireOpen() throws SQLException {
+        if (connection == null) throw new SQLException("the database is not open");
+    }
+
+    //Undoes the open transaction - writer thread only. Rows a failed executeBatch never reached are still queued on the
+    //cached statements and would be written with the next batch that uses them, so they are dropped as well.
+    private void rollback() throws SQLException {
+        statements.clearBatches();
+        connection.rollback();
+    }
+
+    //Runs the work as one transaction on the write connection - writer thread only
+    private <T> T inTransaction(java.util.concurrent.Callable<T> work) throws SQLException {
+        requireOpen();
+        connection.setAutoCommit(false);
+        try {
+            T result = work.call();
+            connection.commit();
+            return result;
         } catch (SQLException e) {
-            System.err.println("❌ Error saving pet: " + e.getMessage());
+            rollback();
+            throw e;
+        } catch (Exception e) {
+            rollback();
+            throw new SQLException(e);
+        } finally {
+            connection.setAutoCommit(true);
         }
-        return -1;
     }
 
+    //Writes only the columns that changed since the pet was last written, or nothing at all. Returns once queued.
+    @Override
     public void updatePet(IPet pet) {
-        String sql = """
-            UPDATE pets 
-            SET health = ?, energy = ?, hunger = ?, happiness = ?, state = ?, 
-                decorators = ?, last_played = CURRENT_TIMESTAMP
-            WHERE id = ?
-        """;
+        long started = Metrics.start();
+        try {
+            int dirty = pet.getDirtyFields();
+            if (dirty == 0) {
+                writeStats.recordSkipped();
+                return;
+            }
 
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setInt(1, pet.getHealth());
-            pstmt.setInt(2, pet.getEnergy());
-            pstmt.setInt(3, pet.getHunger());
-            pstmt.setInt(4, pet.getHappiness());
-            pstmt.setString(5, pet.getState().getStateName());
-            pstmt.setString(6, pet.getDecorators());
-            pstmt.setInt(7, pet.getPetId());
+            //Copied on the caller's thread - the pet keeps changing while the write waits in the queue
+            //Cleared before queueing: the writer may run (and fail, giving the fields back) before execute() returns
+            WriteBatch.PetSnapshot snapshot = WriteBatch.PetSnapshot.of(pet, dirty);
+            pet.clearDirtyFields(dirty);
+            queuedPetUpdates.merge(snapshot.petId(), 1, Integer::sum);
+            boolean queued = writer.execute(() -> {
+                try {
+                    requireOpen();
+                    PreparedStatement pstmt = statements.get(updatePetSql(dirty));
+                    bindPetUpdate(pstmt, dirty, snapshot.health(), snapshot.energy(), snapshot.hunger(), snapshot.happiness(),
+                            snapshot.state(), snapshot.loadout(), snapshot.petId());
 
-            pstmt.executeUpdate();
-        } catch (SQLException e) {
-            System.err.println("❌ Error updating pet: " + e.getMessage());
+                    pstmt.executeUpdate();
+                    writeStats.recordWrite(dirty);
+                    cache.petWritten(snapshot, PetRecord.now());
+                } catch (SQLException | RuntimeException e) {
+                    pet.markDirty(dirty); //the columns were never written - the next update has to try them again
+                    throw e;
+                } finally {
+                    updateApplied(snapshot.petId());
+                }
+            }, "updating pet");
+            if (!queued) {
+                pet.markDirty(dirty); //dropped - the next update writes these fields again
+                updateApplied(snapshot.petId());
+            }
+        } finally {
+            UPDATE_PET_TIMER.stop(started);
         }
     }
 
-    public void logAction(int petId, String action, IPet pet) {
-        String sql = """
-            INSERT INTO game_history (pet_id, action, health_after, energy_after, hunger_after, happiness_after)
-            VALUES (?, ?, ?, ?, ?, ?)
-        """;
+    private void updateApplied(int petId) {
+        queuedPetUpdates.computeIfPresent(petId, (id, count) -> count == 1 ? null : count - 1);
+    }
 
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setInt(1, petId);
-            pstmt.setString(2, action);
-            pstmt.setInt(3, pet.getHealth());
-            pstmt.setInt(4, pet.getEnergy());
-            pstmt.setInt(5, pet.getHunger());
-            pstmt.setInt(6, pet.getHappiness());
+    @Override
+    public void logAction(int petId, String action, IPet pet) {
+        long started = Metrics.start();
+        try {
+            int health = pet.getHealth(), energy = pet.getEnergy(), hunger = pet.getHunger(), happiness = pet.getHappiness();
+            writer.execute(() -> {
+                requireOpen();
+                PreparedStatement pstmt = statements.get(INSERT_HISTORY_SQL);
+                pstmt.setInt(1, petId);
+                pstmt.setString(2, action);
+                pstmt.setInt(3, health);
+                pstmt.setInt(4, energy);
+                pstmt.setInt(5, hunger);
+                pstmt.setInt(6, happiness);
 
-            pstmt.executeUpdate();
-        } catch (SQLException e) {
-            System.err.println("❌ Error logging action: " + e.getMessage());
+                pstmt.executeUpdate();
+            }, "logging action");
+        } finally {
+            LOG_ACTION_TIMER.stop(started);
         }
     }
 
+    //Every saved pet as a formatted line. Loads the whole table - menus should page with listPets instead.
+    @Override
     public List<String> getSavedPets() {
-        List<String> pets = new ArrayList<>();
-        String sql = "SELECT id, name, type, health, last_played FROM pets ORDER BY last_played DESC";
+        long started = Metrics.start();
+        try {
+            List<String> pets = new ArrayList<>();
+            for (PetSummary summary : listPets(null, Integer.MAX_VALUE)) {
+                pets.add(summary.toString());
+            }
+            return pets;
+        } finally {
+            GET_SAVED_PETS_TIMER.stop(started);
+        }
+    }
 
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+    //One page of saved pets, most recently played first. Pass null for the first page, or the last
+    //summary of the previous page to continue after it (keyset pagination - no OFFSET scan).
+    @Override
+    public List<PetSummary> listPets(PetSummary after, int limit) {
+        long started = Metrics.start();
+        try {
+            try {
+                return read(statements -> {
+                    List<PetSummary> pets = new ArrayList<>();
+                    PreparedStatement pstmt;
+                    if (after == null) {
+                        pstmt = statements.get(SELECT_PETS_FIRST_PAGE_SQL);
+                        pstmt.setInt(1, limit);
+                    } else {
+                        pstmt = statements.get(SELECT_PETS_NEXT_PAGE_SQL);
+                        pstmt.setString(1, after.lastPlayed);
+                        pstmt.setInt(2, after.id);
+                        pstmt.setInt(3, limit);
+                    }
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            pets.add(new PetSummary(rs.getInt("id"),
+                                    rs.getString("name"),
+                                    rs.getString("type"),
+                                    rs.getInt("health"),
+                                    rs.getString("last_played")));
+                        }
+                    }
+                    return pets;
+                });
+            } catch (SQLException e) {
+                ERRORS.increment();
+                System.err.println("❌ Error retrieving pets: " + e.getMessage());
+                return new ArrayList<>();
+            }
+        } finally {
+            LIST_PETS_TIMER.stop(started);
+        }
+    }
 
-            while (rs.next()) {
-                String petInfo = String.format("ID: %d | %s | Type: %s | HP: %d | Last Played: %s",
-                        rs.getInt("id"),
-                        rs.getString("name"),
-                        rs.getString("type"),
-                        rs.getInt("health"),
-                        rs.getString("last_played"));
-                pets.add(petInfo);
+    @Override
+    public int countPets() {
+        long started = Metrics.start();
+        try {
+            try {
+                return read(statements -> {
+                    try (ResultSet rs = statements.get(COUNT_PETS_SQL).executeQuery()) {
+                        return rs.next() ? rs.getInt(1) : 0;
+                    }
+                });
+            } catch (SQLException e) {
+                ERRORS.increment();
+                System.err.println("❌ Error counting pets: " + e.getMessage());
+                return 0;
             }
-        } catch (SQLException e) {
-            System.err.println("❌ Error retrieving pets: " + e.getMessage());
+        } finally {
+            COUNT_PETS_TIMER.stop(started);
         }
+    }
+
+    //The committed row, or its cached copy
+    @Override
+    public PetRecord loadPet(int petId) {
+        long started = Metrics.start();
+        try {
+            try {
+                //An update of the pet is still queued - neither the cache nor a reader has it yet
+                if (queuedPetUpdates.containsKey(petId)) writer.awaitQueued();
+                PetRecord cached = cache.getPet(petId);
+                if (cached != null) return cached;
 
-        return pets;
+                long writesSeen = cache.petWrites();
+                PetRecord row = read(statements -> {
+                    PreparedStatement pstmt = statements.get(SELECT_PET_SQL);
+                    pstmt.setInt(1, petId);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        return rs.next() ? petFromRow(petId, rs) : null;
+                    }
+                });
+                if (row == null) return null;
+                cache.putPetIfUnchanged(row, writesSeen);
+                PetConsole.out().println("📂 Loaded pet: " + row.name());
+                return row;
+            } catch (SQLException e) {
+                ERRORS.increment();
+                System.err.println("❌ Error loading pet: " + e.getMessage());
+                return null;
+            }
+        } finally {
+            LOAD_PET_TIMER.stop(started);
+        }
     }
 
-    public IPet loadPet(int petId) {
-        String sql = "SELECT * FROM pets WHERE id = ?";
+    private PetRecord petFromRow(int petId, ResultSet rs) throws SQLException {
+        //Rows written before the equipment bitset only have the decorators labels
+        long equipment = rs.getLong("equipment");
+        if (equipment == 0) equipment = Loadout.fromNames(rs.getString("decorators")).bits;
+
+        return new PetRecord(petId, rs.getString("name"), rs.getString("type").contains("Dragon"),
+                rs.getInt("health"), rs.getInt("max_health"), rs.getInt("energy"), rs.getInt("hunger"),
+                rs.getInt("happiness"), IPetState.forName(rs.getString("state")).getCode(), equipment,
+                rs.getString("last_played"));
+    }
+
+    @Override
+    public void deletePet(int petId) {
+        long started = Metrics.start();
+        try {
+            if (deletePets(List.of(petId)) > 0) PetConsole.out().println("🗑️  Pet deleted from database");
+        } finally {
+            DELETE_PET_TIMER.stop(started);
+        }
+    }
 
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setInt(1, petId);
-            ResultSet rs = pstmt.executeQuery();
+    //Pets, statistics and both kinds of history in one transaction: either all of a pet goes or none of it
+    @Override
+    public int deletePets(List<Integer> petIds) {
+        long started = Metrics.start();
+        try {
+            if (petIds.isEmpty()) return 0;
+            try {
+                return writer.call(() -> {
+                    int deleted = inTransaction(() -> {
+                        selectPets(petIds);
+                        int pets = runOnSelected(DELETE_SELECTED_SQL);
+                        statements.get(CLEAR_SELECTED_SQL).executeUpdate();
+                        return pets;
+                    });
+                    for (int petId : petIds) cache.invalidate(petId);
+                    return deleted;
+                });
+            } catch (SQLException e) {
+                ERRORS.increment();
+                System.err.println("❌ Error deleting pets: " + e.getMessage());
+                return 0;
+            }
+        } finally {
+            DELETE_PETS_TIMER.stop(started);
+        }
+    }
+
+    @Override
+    public List<Integer> archiveCandidates(int deadGraceHours, int inactiveDays, int limit) {
+        try {
+            return read(statements -> {
+                java.util.Set<Integer> ids = new java.util.LinkedHashSet<>();
+                collectIds(statements.get(SELECT_DEAD_PETS_SQL), "-" + Math.max(0, deadGraceHours) + " hours", limit, ids);
+                if (inactiveDays > 0 && ids.size() < limit) {
+                    collectIds(statements.get(SELECT_INACTIVE_PETS_SQL), "-" + inactiveDays + " days", limit - ids.size(), ids);
+                }
+                return new ArrayList<>(ids);
+            });
+        } catch (SQLException e) {
+            ERRORS.increment();
+            System.err.println("❌ Error finding pets to archive: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    private static void collectIds(PreparedStatement pstmt, String window, int limit, java.util.Set<Integer> ids) throws SQLException {
+        pstmt.setString(1, window);
+        pstmt.setInt(2, limit);
+        try (ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) ids.add(rs.getInt(1));
+        }
+    }
 
-            if (rs.next()) {
-                String type = rs.getString("type");
-                Pet pet;
+    //Copies the pets and everything that belongs to them into the archive database, then deletes them here -
+    //one transaction across both files, so a pet is never in both or in neither
+    @Override
+    public int archivePets(List<Integer> petIds) {
+        long started = Metrics.start();
+        try {
+            if (petIds.isEmpty()) return 0;
+            try {
+                return writer.call(() -> {
+                    attachArchive();
+                    int archived = inTransaction(() -> {
+                        selectPets(petIds);
+                        runOnSelected(ARCHIVE_SELECTED_SQL);
+                        int pets = runOnSelected(DELETE_SELECTED_SQL);
+                        statements.get(CLEAR_SELECTED_SQL).executeUpdate();
+                        return pets;
+                    });
+                    for (int petId : petIds) cache.invalidate(petId);
+                    return archived;
+                });
+            } catch (SQLException e) {
+                ERRORS.increment();
+                System.err.println("❌ Error archiving pets: " + e.getMessage());
+                return 0;
+            }
+        } finally {
+            ARCHIVE_PETS_TIMER.stop(started);
+        }
+    }
 
-                if (type.contains("Dragon")) {
-                    pet = new Dragon(rs.getString("name"),
-                            rs.getInt("health"),
-                            rs.getInt("energy"),
-                            rs.getInt("hunger"),
-                            rs.getInt("happiness"));
-                } else {
-                    pet = new Cat(rs.getString("name"),
-                            rs.getInt("health"),
-                            rs.getInt("energy"),
-                            rs.getInt("hunger"),
-                            rs.getInt("happiness"));
+    //Hands up to 'pages' free pages back to the file system. Needs auto_vacuum = INCREMENTAL, which only databases
+    //created since archival was added have; an older one says so once and keeps its free pages for reuse.
+    @Override
+    public int reclaimSpace(int pages) {
+        try {
+            return writer.call(() -> {
+                requireOpen();
+                try (Statement stmt = connection.createStatement()) {
+                    if (pragmaInt(stmt, "auto_vacuum") != 2) {
+                        if (!vacuumWarned) {
+                            vacuumWarned = true;
+                            System.out.println("💡 " + dbUrl + " has no incremental auto-vacuum - run \"PRAGMA auto_vacuum = INCREMENTAL; VACUUM;\" once to enable it");
+                        }
+                        return 0;
+                    }
+                    int free = pragmaInt(stmt, "freelist_count");
+                    //The pragma frees a page per step, but its result rows have no columns and the driver stops after the
+                    //first one - so it runs once per page, all in one transaction so there is a single commit
+                    return inTransaction(() -> {
+                        int left = free;
+                        for (int i = 0; i < pages && left > 0; i++) {
+                            stmt.execute("PRAGMA incremental_vacuum(1)");
+                            int now = pragmaInt(stmt, "freelist_count");
+                            if (now == left) break;
+                            left = now;
+                        }
+                        return free - left;
+                    });
                 }
+            });
+        } catch (SQLException e) {
+            ERRORS.increment();
+            System.err.println("❌ Error reclaiming space: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    private static int pragmaInt(Statement stmt, String pragma) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("PRAGMA " + pragma)) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    //Fills temp.selected_pets with the ids - part of the caller's transaction
+    private void selectPets(List<Integer> petIds) throws SQLException {
+        statements.get(CLEAR_SELECTED_SQL).executeUpdate();
+        PreparedStatement select = statements.get(SELECT_PET_ID_SQL);
+        for (int petId : petIds) {
+            select.setInt(1, petId);
+            select.addBatch();
+        }
+        select.executeBatch();
+    }
+
+    //Runs each statement once; returns the row count of the last one
+    private int runOnSelected(String[] sqls) throws SQLException {
+        int rows = 0;
+        for (String sql : sqls) {
+            rows = statements.get(sql).executeUpdate();
+        }
+        return rows;
+    }
 
-                pet.setPetId(petId);
-                pet.maxHealth = rs.getInt("max_health");
+    //ATTACH can't run inside a transaction, so it happens on the writer right before the first archival
+    private void attachArchive() throws SQLException {
+        if (archiveAttached) return;
+        requireOpen();
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("ATTACH DATABASE '" + archivePath.replace("'", "''") + "' AS archive");
+            stmt.execute("CREATE TABLE IF NOT EXISTS archive.pets (id INTEGER PRIMARY KEY, name TEXT NOT NULL, type TEXT NOT NULL, "
+                    + "health INTEGER, max_health INTEGER, energy INTEGER, hunger INTEGER, happiness INTEGER, state TEXT, "
+                    + "decorators TEXT, equipment INTEGER, created_at TIMESTAMP, last_played TIMESTAMP, "
+                    + "survival_seconds INTEGER, archived_at TIMESTAMP)");
+            stmt.execute("CREATE TABLE IF NOT EXISTS archive.pet_statistics (pet_id INTEGER PRIMARY KEY, total_feeds INTEGER, "
+                    + "total_plays INTEGER, total_sleeps INTEGER, total_turns INTEGER)");
+            stmt.execute("CREATE TABLE IF NOT EXISTS archive.game_history (id INTEGER PRIMARY KEY, pet_id INTEGER NOT NULL, "
+                    + "action TEXT NOT NULL, timestamp TIMESTAMP, health_after INTEGER, energy_after INTEGER, "
+                    + "hunger_after INTEGER, happiness_after INTEGER)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS archive.idx_archive_history_pet ON game_history(pet_id)");
+            stmt.execute("CREATE TABLE IF NOT EXISTS archive.game_history_daily (pet_id INTEGER NOT NULL, day TEXT NOT NULL, "
+                    + "action TEXT NOT NULL, action_count INTEGER NOT NULL, last_history_id INTEGER, health_after INTEGER, "
+                    + "energy_after INTEGER, hunger_after INTEGER, happiness_after INTEGER, PRIMARY KEY (pet_id, day, action))");
+        }
+        archiveAttached = true;
+        System.out.println("🗄️  Archive database attached: " + archivePath);
+    }
 
-                // Restore state
-                String stateName = rs.getString("state");
-                pet.setState(getStateFromName(stateName));
+    //pet.archive.file, or the database's own file name with _archive added (an in-memory database gets an in-memory archive)
+    private static String archivePath(String dbUrl, String configured) {
+        if (!configured.isEmpty()) return configured;
+        String path = dbUrl.replaceFirst("^jdbc:sqlite:", "");
+        if (path.isEmpty() || path.contains(":memory:")) return ":memory:";
+        return path.endsWith(".db") ? path.substring(0, path.length() - 3) + "_archive.db" : path + "_archive";
+    }
 
-                // Apply decorators if any
-                String decorators = rs.getString("decorators");
-                pet.setDecorators(decorators);
+    private void initializeStatistics(int petId) throws SQLException {
+        PreparedStatement pstmt = statements.get(INSERT_STATISTICS_SQL);
+        pstmt.setInt(1, petId);
+        pstmt.executeUpdate(); //a failure rolls back the pet row too - no pet without statistics
+    }
 
-                IPet finalPet = pet;
-                if (decorators != null && !decorators.isEmpty()) {
-                    if (decorators.contains("Armor")) {
-                        finalPet = new ArmorDecorator(finalPet);
+    @Override
+    public void updateStatistics(int petId, String action) {
+        long started = Metrics.start();
+        try {
+            int column = WriteBatch.statisticIndex(action);
+
+            if (column >= 0) {
+                //One fixed statement for every action: +1 on the matching column, +0 on the others
+                writer.execute(() -> {
+                    requireOpen();
+                    PreparedStatement pstmt = statements.get(ADD_STATISTICS_SQL);
+                    for (int i = 0; i < 4; i++) {
+                        pstmt.setInt(i + 1, i == column ? 1 : 0);
                     }
-                    if (decorators.contains("Amulet")) {
-                        finalPet = new AmuletDecorator(finalPet);
+                    pstmt.setInt(5, petId);
+                    cache.statisticsWriteStarted();
+                    try {
+                        pstmt.executeUpdate();
+
+                        int[] delta = new int[4];
+                        delta[column] = 1;
+                        cache.addStatistics(petId, delta);
+                    } finally {
+                        cache.statisticsWriteFinished();
                     }
-                }
+                }, "updating stats");
+            }
+        } finally {
+            UPDATE_STATISTICS_TIMER.stop(started);
+        }
+    }
+
+    //Applies a whole WriteBehindQueue batch in one transaction - one commit instead of one per call.
+    //Returns once the batch is committed, or false if it was rolled back - then none of it was written.
+    @Override
+    public boolean writeBatch(WriteBatch batch) {
+        long started = Metrics.start();
+        try {
+            if (batch.isEmpty()) return true;
 
-                System.out.println("📂 Loaded pet: " + pet.getName());
-                return finalPet;
+            try {
+                writer.call(() -> {
+                    applyBatch(batch);
+                    return null;
+                });
+                return true;
+            } catch (SQLException | RuntimeException e) {
+                ERRORS.increment();
+                System.err.println("❌ Error writing batch: " + e.getMessage());
+                batch.returnDirtyFields(); //rolled back, or never queued
+                return false;
             }
-        } catch (SQLException e) {
-            System.err.println("❌ Error loading pet: " + e.getMessage());
+        } finally {
+            WRITE_BATCH_TIMER.stop(started);
         }
+    }
+
+    private void applyBatch(WriteBatch batch) throws SQLException {
+        requireOpen();
+        connection.setAutoCommit(false);
+        cache.statisticsWriteStarted();
+        try {
+            PreparedStatement history = statements.get(INSERT_HISTORY_SQL);
+            PreparedStatement stats = statements.get(ADD_STATISTICS_SQL);
+
+            for (WriteBatch.ActionSnapshot action : batch.actions) {
+                history.setInt(1, action.petId());
+                history.setString(2, action.action());
+                history.setInt(3, action.health());
+                history.setInt(4, action.energy());
+                history.setInt(5, action.hunger());
+                history.setInt(6, action.happiness());
+                history.addBatch();
+            }
+
+            for (var entry : batch.statisticDeltas.entrySet()) {
+                int[] delta = entry.getValue();
+                for (int i = 0; i < delta.length; i++) {
+                    stats.setInt(i + 1, delta[i]);
+                }
+                stats.setInt(5, entry.getKey());
+                stats.addBatch();
+            }
+
+            //One JDBC batch per distinct column set - a turn usually produces only one or two of them
+            Map<Integer, PreparedStatement> petBatches = new LinkedHashMap<>();
+            for (WriteBatch.PetSnapshot pet : batch.petUpdates.values()) {
+                int dirty = pet.dirtyFields();
+                PreparedStatement pets = petBatches.get(dirty);
+                if (pets == null) {
+                    pets = statements.get(updatePetSql(dirty));
+                    petBatches.put(dirty, pets);
+                }
+                bindPetUpdate(pets, dirty, pet.health(), pet.energy(), pet.hunger(), pet.happiness(),
+                        pet.state(), pet.loadout(), pet.petId());
+                pets.addBatch();
+            }
 
-        return null;
+            history.executeBatch();
+            stats.executeBatch();
+            for (PreparedStatement pets : petBatches.values()) {
+                pets.executeBatch();
+            }
+            connection.commit();
+
+            for (WriteBatch.PetSnapshot pet : batch.petUpdates.values()) {
+                writeStats.recordWrite(pet.dirtyFields());
+            }
+
+            for (var entry : batch.statisticDeltas.entrySet()) {
+                cache.addStatistics(entry.getKey(), entry.getValue());
+            }
+            String now = PetRecord.now();
+            for (WriteBatch.PetSnapshot pet : batch.petUpdates.values()) {
+                cache.petWritten(pet, now);
+            }
+        } catch (SQLException | RuntimeException e) {
+            rollback(); //setAutoCommit(true) below would otherwise commit the part that ran
+            throw e;
+        } finally {
+            cache.statisticsWriteFinished();
+            connection.setAutoCommit(true);
+        }
     }
 
-    private IPetState getStateFromName(String stateName) {
-        return switch (stateName) {
-            case "◝(ᵔᗜᵔ)◜Happy" -> new HappyState();
-            case "( •̀ ᴖ •́ )Hungry" -> new HungryState();
-            case "(ᴗ_ ᴗ。)Sleeping" -> new SleepingState();
-            case "💀 Dead" -> new DeadState();
-            default -> new NormalState();
-        };
+    //Rolls up at most chunkRows of the oldest history rows that are older than retentionDays into game_history_daily,
+    //then deletes them - all in one transaction. Returns how many detail rows were removed.
+    @Override
+    public int compactHistory(int retentionDays, int chunkRows) {
+        long started = Metrics.start();
+        try {
+            try {
+                return writer.call(() -> compactChunk("-" + retentionDays + " days", chunkRows));
+            } catch (SQLException e) {
+                ERRORS.increment();
+                System.err.println("❌ Error compacting history: " + e.getMessage());
+                return 0;
+            }
+        } finally {
+            COMPACT_HISTORY_TIMER.stop(started);
+        }
     }
 
-    public void deletePet(int petId) {
+    private int compactChunk(String window, int chunkRows) throws SQLException {
+        requireOpen();
+        connection.setAutoCommit(false);
         try {
-            connection.createStatement().execute("DELETE FROM game_history WHERE pet_id = " + petId);
-            connection.createStatement().execute("DELETE FROM pet_statistics WHERE pet_id = " + petId);
-            connection.createStatement().execute("DELETE FROM pets WHERE id = " + petId);
-            System.out.println("🗑️  Pet deleted from database");
+            PreparedStatement chunkEnd = statements.get(COMPACTION_CHUNK_END_SQL);
+            chunkEnd.setInt(1, chunkRows);
+            long upperId;
+            try (ResultSet rs = chunkEnd.executeQuery()) {
+                upperId = rs.next() ? rs.getLong(1) : 0;
+            }
+            if (upperId == 0) {
+                connection.commit();
+                return 0;
+            }
+
+            PreparedStatement rollUp = statements.get(ROLL_UP_HISTORY_SQL);
+            rollUp.setLong(1, upperId);
+            rollUp.setString(2, window);
+            rollUp.executeUpdate();
+
+            PreparedStatement delete = statements.get(DELETE_COMPACTED_HISTORY_SQL);
+            delete.setLong(1, upperId);
+            delete.setString(2, window);
+            int removed = delete.executeUpdate();
+            connection.commit();
+            return removed;
         } catch (SQLException e) {
-            System.err.println("❌ Error deleting pet: " + e.getMessage());
+            rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
         }
     }
 
-    private void initializeStatistics(int petId) {
-        String sql = "INSERT INTO pet_statistics (pet_id) VALUES (?)";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setInt(1, petId);
-            pstmt.executeUpdate();
-        } catch (SQLException e) {
-            System.err.println("❌ Error initializing stats: " + e.getMessage());
+    //The pet_statistics row, from the cache when possible. Returns null if the pet has no statistics row.
+    @Override
+    public PetStatistics getStatistics(int petId) {
+        long started = Metrics.start();
+        try {
+            PetStatistics cached = cache.getStatistics(petId);
+            if (cached != null) return cached;
+
+            long writesSeen = cache.statisticsWrites();
+            try {
+                PetStatistics stats = read(statements -> {
+                    PreparedStatement pstmt = statements.get(SELECT_STATISTICS_SQL);
+                    pstmt.setInt(1, petId);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        if (!rs.next()) return null;
+                        return new PetStatistics(rs.getInt("total_feeds"),
+                                rs.getInt("total_plays"),
+                                rs.getInt("total_sleeps"),
+                                rs.getInt("total_turns"));
+                    }
+                });
+                if (stats != null) cache.putStatisticsIfUnchanged(petId, stats, writesSeen);
+                return stats;
+            } catch (SQLException e) {
+                ERRORS.increment();
+                System.err.println("❌ Error displaying stats: " + e.getMessage());
+                return null;
+            }
+        } finally {
+            GET_STATISTICS_TIMER.stop(started);
         }
     }
 
-    public void updateStatistics(int petId, String action) {
-        String column = switch (action) {
-            case "FEED" -> "total_feeds";
-            case "PLAY" -> "total_plays";
-            case "SLEEP" -> "total_sleeps";
-            case "TICK" -> "total_turns";
-            default -> null;
-        };
-
-        if (column != null) {
-            String sql = "UPDATE pet_statistics SET " + column + " = " + column + " + 1 WHERE pet_id = ?";
-            try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-                pstmt.setInt(1, petId);
-                pstmt.executeUpdate();
+    @Override
+    public List<LeaderboardEntry> leaderboard(Leaderboard board, int limit) {
+        long started = Metrics.start();
+        try {
+            try {
+                return read(statements -> {
+                    PreparedStatement pstmt = statements.get(LEADERBOARD_SQL[board.ordinal()]);
+                    pstmt.setInt(1, limit);
+                    List<LeaderboardEntry> entries = new ArrayList<>();
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            entries.add(new LeaderboardEntry(rs.getInt("id"), rs.getString("name"), rs.getString("type"),
+                                    rs.getLong("value")));
+                        }
+                    }
+                    return entries;
+                });
             } catch (SQLException e) {
-                System.err.println("❌ Error updating stats: " + e.getMessage());
+                ERRORS.increment();
+                System.err.println("❌ Error reading leaderboard: " + e.getMessage());
+                return new ArrayList<>();
             }
+        } finally {
+            LEADERBOARD_TIMER.stop(started);
         }
     }
 
-    public void displayStatistics(int petId) {
-        String sql = "SELECT * FROM pet_statistics WHERE pet_id = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setInt(1, petId);
-            ResultSet rs = pstmt.executeQuery();
-
-            if (rs.next()) {
-                System.out.println("\n📊 Pet Statistics:");
-                System.out.println("   🍖 Total Feeds: " + rs.getInt("total_feeds"));
-                System.out.println("   🎾 Total Plays: " + rs.getInt("total_plays"));
-                System.out.println("   😴 Total Sleeps: " + rs.getInt("total_sleeps"));
-                System.out.println("   🔄 Total Turns: " + rs.getInt("total_turns"));
+    //Runs on a reader connection, so the export is one consistent snapshot (a WAL read transaction) while the game keeps writing
+    @Override
+    public long exportPets(Consumer<PetTransfer.PetRow> sink) {
+        return export(EXPORT_PETS_SQL, rs -> sink.accept(new PetTransfer.PetRow(rs.getInt("id"), rs.getString("name"),
+                rs.getString("type"), rs.getInt("health"), rs.getInt("max_health"), rs.getInt("energy"),
+                rs.getInt("hunger"), rs.getInt("happiness"), rs.getString("state"), rs.getString("decorators"),
+                rs.getLong("equipment"), rs.getString("created_at"), rs.getString("last_played"),
+                rs.getInt("total_feeds"), rs.getInt("total_plays"), rs.getInt("total_sleeps"), rs.getInt("total_turns"))));
+    }
+
+    @Override
+    public long exportHistory(Consumer<PetTransfer.HistoryRow> sink) {
+        return export(EXPORT_HISTORY_SQL, rs -> sink.accept(new PetTransfer.HistoryRow(rs.getLong("id"),
+                rs.getInt("pet_id"), rs.getString("action"), rs.getString("timestamp"), rs.getInt("health_after"),
+                rs.getInt("energy_after"), rs.getInt("hunger_after"), rs.getInt("happiness_after"))));
+    }
+
+    private interface RowHandler {
+        void accept(ResultSet rs) throws SQLException;
+    }
+
+    //Streams the query's rows to the handler fetchSize rows at a time - never the whole result in memory
+    private long export(String sql, RowHandler handler) {
+        long started = Metrics.start();
+        try {
+            try {
+                return read(statements -> {
+                    PreparedStatement pstmt = statements.get(sql);
+                    pstmt.setFetchSize(fetchSize);
+                    long rows = 0;
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            handler.accept(rs);
+                            rows++;
+                        }
+                    }
+                    return rows;
+                });
+            } catch (SQLException e) {
+                ERRORS.increment();
+                System.err.println("❌ Error exporting: " + e.getMessage());
+                return 0;
+            }
+        } finally {
+            EXPORT_TIMER.stop(started);
+        }
+    }
+
+    @Override
+    public void importPets(List<PetTransfer.PetRow> rows) {
+        runImport(() -> {
+            PreparedStatement pets = statements.get(IMPORT_PET_SQL);
+            PreparedStatement stats = statements.get(IMPORT_STATISTICS_SQL);
+            for (PetTransfer.PetRow row : rows) {
+                pets.setInt(1, row.id());
+                pets.setString(2, row.name());
+                pets.setString(3, row.type());
+                pets.setInt(4, row.health());
+                pets.setInt(5, row.maxHealth());
+                pets.setInt(6, row.energy());
+                pets.setInt(7, row.hunger());
+                pets.setInt(8, row.happiness());
+                pets.setString(9, row.state());
+                pets.setString(10, row.decorators());
+                pets.setLong(11, row.equipment());
+                pets.setString(12, row.createdAt());
+                pets.setString(13, row.lastPlayed());
+                pets.setString(14, row.lastPlayed());
+                pets.setString(15, row.createdAt());
+                pets.addBatch();
+
+                stats.setInt(1, row.id());
+                stats.setInt(2, row.totalFeeds());
+                stats.setInt(3, row.totalPlays());
+                stats.setInt(4, row.totalSleeps());
+                stats.setInt(5, row.totalTurns());
+                stats.addBatch();
+            }
+            pets.executeBatch();
+            stats.executeBatch();
+        }, () -> {
+            for (PetTransfer.PetRow row : rows) cache.invalidate(row.id()); //a replaced pet must not be served from the cache
+        });
+    }
+
+    @Override
+    public void importHistory(List<PetTransfer.HistoryRow> rows) {
+        runImport(() -> {
+            PreparedStatement history = statements.get(IMPORT_HISTORY_SQL);
+            for (PetTransfer.HistoryRow row : rows) {
+                history.setLong(1, row.id());
+                history.setInt(2, row.petId());
+                history.setString(3, row.action());
+                history.setString(4, row.timestamp());
+                history.setInt(5, row.health());
+                history.setInt(6, row.energy());
+                history.setInt(7, row.hunger());
+                history.setInt(8, row.happiness());
+                history.addBatch();
             }
+            history.executeBatch();
+        }, () -> { });
+    }
+
+    //One transaction on the writer per chunk, so game writes still get their turn between chunks
+    private void runImport(DatabaseWriter.SqlTask insert, Runnable afterCommit) {
+        long started = Metrics.start();
+        try {
+            writer.call(() -> {
+                inTransaction(() -> {
+                    insert.run();
+                    return null;
+                });
+                afterCommit.run();
+                return null;
+            });
         } catch (SQLException e) {
-            System.err.println("❌ Error displaying stats: " + e.getMessage());
+            ERRORS.increment();
+            System.err.println("❌ Error importing: " + e.getMessage());
+        } finally {
+            IMPORT_TIMER.stop(started);
         }
     }
 
+    @Override
+    public void displayStatistics(int petId) {
+        long started = Metrics.start();
+        try {
+            PetStatistics stats = getStatistics(petId);
+            if (stats != null) {
+                PetConsole.out().println("\n📊 Pet Statistics:");
+                PetConsole.out().println("   🍖 Total Feeds: " + stats.totalFeeds);
+                PetConsole.out().println("   🎾 Total Plays: " + stats.totalPlays);
+                PetConsole.out().println("   😴 Total Sleeps: " + stats.totalSleeps);
+                PetConsole.out().println("   🔄 Total Turns: " + stats.totalTurns);
+            }
+        } finally {
+            DISPLAY_STATISTICS_TIMER.stop(started);
+        }
+    }
+
+    public PetCache getCache() { return cache; }
+
+    @Override
+    public PetWriteStats getWriteStats() { return writeStats; }
+
+    public DatabaseWriter getWriter() { return writer; }
+
+    @Override
+    public String report() { return writer.report(); }
+
+    //Runs a query on a reader connection, or on the writer when there is no reader pool
+    private <T> T read(ReaderPool.Query<T> query) throws SQLException {
+        awaitInitialized();
+        if (readers != null) return readers.query(query);
+        return writer.call(() -> {
+            requireOpen();
+            return query.run(statements);
+        });
+    }
+
+    //UPDATE pets for one dirty-field mask: the changed columns in PET_COLUMNS order, then last_played and survival_seconds, then the id
+    private static String updatePetSql(int dirtyFields) {
+        String sql = UPDATE_PET_SQL[dirtyFields];
+        if (sql == null) {
+            StringBuilder set = new StringBuilder("UPDATE pets SET ");
+            for (int i = 0; i < PET_COLUMNS.length; i++) {
+                if ((dirtyFields & (1 << i)) != 0) set.append(PET_COLUMNS[i]).append(", ");
+            }
+            sql = set.append("last_played = CURRENT_TIMESTAMP, ").append(SchemaMigrations.SURVIVAL_SECONDS).append(" WHERE id = ?").toString();
+            UPDATE_PET_SQL[dirtyFields] = sql; //racing threads build the same string, so no lock is needed
+        }
+        return sql;
+    }
+
+    private static String[] leaderboardSql() {
+        String[] sql = new String[Leaderboard.values().length];
+        for (Leaderboard board : Leaderboard.values()) {
+            sql[board.ordinal()] = board == Leaderboard.SURVIVAL
+                    ? "SELECT id, name, type, survival_seconds AS value FROM pets ORDER BY survival_seconds DESC, id DESC LIMIT ?"
+                    : "SELECT s.pet_id AS id, p.name, p.type, s." + board.column + " AS value FROM pet_statistics s"
+                      + " JOIN pets p ON p.id = s.pet_id ORDER BY s." + board.column + " DESC, s.pet_id DESC LIMIT ?";
+        }
+        return sql;
+    }
+
+    private static void bindPetUpdate(PreparedStatement pstmt, int dirtyFields, int health, int energy, int hunger,
+                                      int happiness, String state, Loadout loadout, int petId) throws SQLException {
+        int index = 1;
+        if ((dirtyFields & IPet.DIRTY_HEALTH) != 0) pstmt.setInt(index++, health);
+        if ((dirtyFields & IPet.DIRTY_ENERGY) != 0) pstmt.setInt(index++, energy);
+        if ((dirtyFields & IPet.DIRTY_HUNGER) != 0) pstmt.setInt(index++, hunger);
+        if ((dirtyFields & IPet.DIRTY_HAPPINESS) != 0) pstmt.setInt(index++, happiness);
+        if ((dirtyFields & IPet.DIRTY_STATE) != 0) pstmt.setString(index++, state);
+        if ((dirtyFields & IPet.DIRTY_DECORATORS) != 0) {
+            pstmt.setString(index++, loadout.names);
+            pstmt.setLong(index++, loadout.bits);
+        }
+        pstmt.setInt(index, petId);
+    }
+
+    @Override
     public void displayRecentHistory(int petId, int limit) {
-        String sql = "SELECT * FROM game_history WHERE pet_id = ? ORDER BY timestamp DESC LIMIT ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setInt(1, petId);
-            pstmt.setInt(2, limit);
-            ResultSet rs = pstmt.executeQuery();
-
-            System.out.println("\n📜 Recent Activity:");
-            while (rs.next()) {
-                System.out.printf("   %s - %s (HP:%d E:%d H:%d Happiness:%d)%n",
-                        rs.getString("timestamp"),
-                        rs.getString("action"),
-                        rs.getInt("health_after"),
-                        rs.getInt("energy_after"),
-                        rs.getInt("hunger_after"),
-                        rs.getInt("happiness_after"));
+        long started = Metrics.start();
+        try {
+            try {
+                //The query may run on a reader or the writer thread; only the caller's thread knows its session's console
+                List<String> rows = read(statements -> {
+                    PreparedStatement pstmt = statements.get(SELECT_HISTORY_SQL);
+                    pstmt.setInt(1, petId);
+                    pstmt.setInt(2, limit);
+                    List<String> lines = new ArrayList<>();
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            lines.add(String.format("   %s - %s (HP:%d E:%d H:%d Happiness:%d)",
+                                    rs.getString("timestamp"),
+                                    rs.getString("action"),
+                                    rs.getInt("health_after"),
+                                    rs.getInt("energy_after"),
+                                    rs.getInt("hunger_after"),
+                                    rs.getInt("happiness_after")));
+                        }
+                    }
+                    return lines;
+                });
+                PetConsole.out().println("\n📜 Recent Activity:");
+                for (String row : rows) PetConsole.out().println(row);
+            } catch (SQLException e) {
+                ERRORS.increment();
+                System.err.println("❌ Error displaying history: " + e.getMessage());
             }
-        } catch (SQLException e) {
-            System.err.println("❌ Error displaying history: " + e.getMessage());
+        } finally {
+            DISPLAY_RECENT_HISTORY_TIMER.stop(started);
         }
     }
 
+    //Lets the writer finish everything queued, then closes the readers and the write connection
+    @Override
     public void close() {
+        writer.close();
+        if (readers != null) readers.close();
         try {
             if (connection != null && !connection.isClosed()) {
+                statements.close();
                 connection.close();
                 System.out.println("🔒 Database connection closed");
             }
         } catch (SQLException e) {
+            ERRORS.increment();
             System.err.println("❌ Error closing database: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,182 @@
+import java.sql.SQLException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+//The one thread that uses the write connection. SQLite only allows one writer at a time, so instead of taking turns
+//on a lock every write is queued here and applied in submission order.
+//execute() is fire-and-forget (errors are reported from the writer thread); call() waits for the result.
+//The queue is bounded: when it is full, BLOCK makes the caller wait for room, DROP waits at most
+//writeTimeoutMillis and then discards the write with an error.
+class DatabaseWriter {
+    enum Backpressure { BLOCK, DROP }
+
+    interface SqlTask {
+        void run() throws SQLException;
+    }
+
+    private static final Runnable STOP = () -> {}; //compared by identity
+    private static final Metrics.Timer EXECUTE_TIMER = Metrics.timer("db.writer.execute");
+    private static final Metrics.Timer WAIT_FOR_ROOM_TIMER = Metrics.timer("db.writer.waitForRoom");
+    private static final Metrics.Counter ERRORS = Metrics.counter("db.errors");
+
+    private final BlockingQueue<Runnable> queue;
+    private final int depth;
+    private final Backpressure backpressure;
+    private final long writeTimeoutMillis;
+    private final Thread thread;
+    private final AtomicLong executed = new AtomicLong();
+    private final AtomicLong waitedForRoom = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicInteger highWater = new AtomicInteger();
+    private volatile boolean closed;
+
+    DatabaseWriter(GameConfig config) {
+        this.depth = Math.max(1, config.writeQueueDepth);
+        this.queue = new ArrayBlockingQueue<>(depth);
+        this.backpressure = parse(config.writeBackpressure);
+        this.writeTimeoutMillis = Math.max(0, config.writeTimeoutMillis);
+        this.thread = new Thread(this::drain, "pet-db-writer");
+        thread.setDaemon(true); //close() drains the queue; a forgotten close must not keep the JVM alive
+        thread.start();
+        Metrics.gauge("db.writer.queued", queue::size);
+    }
+
+    private static Backpressure parse(String value) {
+        try {
+            return Backpressure.valueOf(value.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.err.println("❌ Unsupported pet.db.backpressure: " + value + " (allowed: block, drop) - using block");
+            return Backpressure.BLOCK;
+        }
+    }
+
+    //Queues a write and returns at once. 'what' completes the error message, e.g. "updating pet".
+    //Returns false if the write was discarded (full queue under DROP, or closed).
+    boolean execute(SqlTask task, String what) {
+        return enqueue(() -> {
+            try {
+                task.run();
+            } catch (SQLException | RuntimeException e) {
+                ERRORS.increment();
+                System.err.println("❌ Error " + what + ": " + e.getMessage());
+            }
+        });
+    }
+
+    //Waits until every write queued before this call has been applied
+    void awaitQueued() throws SQLException {
+        call(() -> null);
+    }
+
+    //Queues a write and waits until the writer has run it. Its SQLException is rethrown here.
+    <T> T call(Callable<T> work) throws SQLException {
+        FutureTask<T> task = new FutureTask<>(work);
+        if (!enqueue(task)) throw new SQLException("write queue is " + (closed ? "closed" : thread.isAlive() ? "full" : "stopped"));
+        try {
+            return task.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException sql) throw sql;
+            if (cause instanceof RuntimeException runtime) throw runtime;
+            throw new SQLException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for the database writer");
+        }
+    }
+
+    private boolean enqueue(Runnable operation) {
+        if (Thread.currentThread() == thread) { //a write queued by a write: run it in place, it would otherwise wait behind itself
+            operation.run();
+            return true;
+        }
+        if (closed) {
+            System.err.println("❌ Database writer is closed - write discarded");
+            return false;
+        }
+        if (!thread.isAlive()) { //nothing would ever run it, and call() would wait forever
+            System.err.println("❌ Database writer has stopped - write discarded");
+            return false;
+        }
+
+        boolean accepted = queue.offer(operation);
+        if (!accepted) {
+            waitedForRoom.incrementAndGet();
+            long started = Metrics.start();
+            try {
+                if (backpressure == Backpressure.BLOCK) {
+                    queue.put(operation);
+                    accepted = true;
+                } else {
+                    accepted = queue.offer(operation, writeTimeoutMillis, TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            WAIT_FOR_ROOM_TIMER.stop(started);
+            if (!accepted) {
+                dropped.incrementAndGet();
+                System.err.println("❌ Write queue full (" + depth + ") - write discarded");
+                return false;
+            }
+        }
+        highWater.accumulateAndGet(queue.size(), Math::max);
+        return true;
+    }
+
+    private void drain() {
+        try {
+            while (true) {
+                Runnable operation = queue.take();
+                if (operation == STOP) break;
+                long started = Metrics.start();
+                runGuarded(operation);
+                EXECUTE_TIMER.stop(started);
+                executed.incrementAndGet();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        //Anything that slipped in while closing still runs, so no caller of call() waits forever
+        Runnable late;
+        while ((late = queue.poll()) != null) {
+            if (late != STOP) runGuarded(late);
+        }
+    }
+
+    //execute() reports SQL and runtime failures itself and call() hands everything to its caller, but an Error (say a
+    //NoClassDefFoundError from a missing jar) would otherwise end the only thread that writes, and every later
+    //call() would wait for it forever
+    private static void runGuarded(Runnable operation) {
+        try {
+            operation.run();
+        } catch (Throwable e) {
+            ERRORS.increment();
+            System.err.println("❌ Database writer error: " + e);
+        }
+    }
+
+    //Runs everything already queued, then stops the thread
+    void close() {
+        if (closed) return;
+        closed = true;
+        try {
+            queue.put(STOP);
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    String report() {
+        return String.format("🧵 Database writer: %d writes | queue high-water %d/%d | %d waited for room | %d dropped (%s)",
+                executed.get(), highWater.get(), depth, waitedForRoom.get(), dropped.get(), backpressure);
+    }
+}
+//✅ Single Responsibility - DatabaseWriter decides which thread writes and in what order, DatabaseManager decides the SQL
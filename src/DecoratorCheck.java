@@ -0,0 +1,133 @@
+import java.util.Random;
+
+//Checks that ArmorDecorator and AmuletDecorator, now thin adapters over the pet's Loadout, play the same as the
+//decorators they replaced: builds every chain the game could make (each item at most once, in either order) around
+//random cats and dragons, once with the adapters and once with copies of the old decorators kept below, runs the
+//same random feed/play/sleep/tick turns on both, and compares them after every turn.
+//Two differences are intended and not counted:
+//  - the type suffixes and the decorators label list the items in item order, not in the order they were put on,
+//    so they are compared as a set
+//  - armor now raises the pet's own health cap, where the old one only changed what getMaxHealth reported; a pet
+//    is compared until its health goes above the unarmored maximum and is only counted after that
+//Usage: java DecoratorCheck [pets] [turns] [seed]
+//Exits with status 1 if any pet ends up different.
+class DecoratorCheck {
+    private static final String ARMOR_SUFFIX = " ⚔️ [Armored]", AMULET_SUFFIX = " ✨ [Amulet]";
+
+    public static void main(String[] args) {
+        int pets = args.length > 0 ? Integer.parseInt(args[0]) : 5_000;
+        int turns = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+        PetConsole.setEnabled(false); //equip messages and state changes would print per pet
+
+        Random random = new Random(seed);
+        int mismatches = 0, shown = 0, raisedCap = 0;
+        int[] chains = new int[5];
+        for (int i = 0; i < pets; i++) {
+            int chain = random.nextInt(chains.length);
+            chains[chain]++;
+            long petSeed = random.nextLong();
+            IPet adapted = wrap(randomPet(new Random(petSeed), i), chain, false);
+            IPet legacy = wrap(randomPet(new Random(petSeed), i), chain, true);
+            int baseMaxHealth = legacy.getMaxHealth() - ((chain == 1 || chain >= 3) ? LegacyArmor.BONUS : 0);
+
+            for (int turn = 1; turn <= turns; turn++) {
+                int action = random.nextInt(8);
+                act(adapted, action);
+                act(legacy, action);
+                if (adapted.getHealth() > baseMaxHealth) {
+                    raisedCap++; //only armor can get here, see above
+                    break;
+                }
+                if (describe(adapted).equals(describe(legacy))) continue;
+                mismatches++;
+                if (shown++ < 10) {
+                    System.out.printf("❌ pet %d (chain %d) after turn %d: adapters %s, old decorators %s%n",
+                            i, chain, turn, describe(adapted), describe(legacy));
+                }
+                break;
+            }
+        }
+        System.out.printf("ℹ️  chains: %d bare, %d armor, %d amulet, %d armor+amulet, %d amulet+armor; %d armored pets went above the old cap%n",
+                chains[0], chains[1], chains[2], chains[3], chains[4], raisedCap);
+        System.out.println(mismatches == 0
+                ? "✅ The equipment adapters played " + pets + " pets like the old decorators"
+                : "❌ The adapters differed from the old decorators for " + mismatches + " pets");
+        if (mismatches != 0) System.exit(1);
+    }
+
+    private static IPet randomPet(Random random, int i) {
+        IPet pet = new PetBuilder().setType(random.nextBoolean() ? "cat" : "dragon").setName("Check" + i).build();
+        pet.setHealth(10 + random.nextInt(81));
+        pet.setEnergy(random.nextInt(101));
+        pet.setHunger(random.nextInt(101));
+        pet.setHappiness(random.nextInt(101));
+        pet.updateState();
+        return pet;
+    }
+
+    //0 bare, 1 armor, 2 amulet, 3 armor then amulet, 4 amulet then armor
+    private static IPet wrap(IPet pet, int chain, boolean legacy) {
+        if (chain == 1 || chain == 3) pet = legacy ? new LegacyArmor(pet) : new ArmorDecorator(pet);
+        if (chain >= 2) pet = legacy ? new LegacyAmulet(pet) : new AmuletDecorator(pet);
+        if (chain == 4) pet = legacy ? new LegacyArmor(pet) : new ArmorDecorator(pet);
+        return pet;
+    }
+
+    //Mostly ticks, like the game clock between commands
+    private static void act(IPet pet, int action) {
+        switch (action) {
+            case 0 -> pet.feed();
+            case 1 -> pet.play();
+            case 2 -> pet.sleep();
+            default -> pet.tick();
+        }
+    }
+
+    private static String describe(IPet pet) {
+        String type = pet.getType();
+        String items = (type.contains(ARMOR_SUFFIX) ? "+armor" : "") + (type.contains(AMULET_SUFFIX) ? "+amulet" : "");
+        String labels = ("," + pet.getDecorators() + ",").contains(",Armor,") + "/" + ("," + pet.getDecorators() + ",").contains(",Amulet,");
+        return type.replace(ARMOR_SUFFIX, "").replace(AMULET_SUFFIX, "") + items + " [" + labels + "]"
+                + " h=" + pet.getHealth() + "/" + pet.getMaxHealth() + " e=" + pet.getEnergy() + " hu=" + pet.getHunger()
+                + " ha=" + pet.getHappiness() + " " + pet.getState().getStateName() + " nap=" + pet.getSleepTurns();
+    }
+
+    //The decorators as they were before the Loadout: armor only changes what getMaxHealth reports, the amulet adds
+    //its happiness after the wrapped tick. Their label is kept here instead of on the pet, since Pet.setDecorators
+    //now equips the named items.
+    private static class LegacyArmor extends PetDecorator {
+        static final int BONUS = 30;
+
+        LegacyArmor(IPet pet) { super(pet); }
+
+        @Override
+        public int getMaxHealth() { return wrappedPet.getMaxHealth() + BONUS; }
+
+        @Override
+        public String getType() { return wrappedPet.getType() + ARMOR_SUFFIX; }
+
+        @Override
+        public String getDecorators() { return label(wrappedPet.getDecorators(), "Armor"); }
+    }
+
+    private static class LegacyAmulet extends PetDecorator {
+        LegacyAmulet(IPet pet) { super(pet); }
+
+        @Override
+        public void tick() {
+            wrappedPet.tick();
+            setHappiness(Math.min(100, getHappiness() + 15));
+        }
+
+        @Override
+        public String getType() { return wrappedPet.getType() + AMULET_SUFFIX; }
+
+        @Override
+        public String getDecorators() { return label(wrappedPet.getDecorators(), "Amulet"); }
+    }
+
+    private static String label(String current, String item) {
+        return current.isEmpty() ? item : current + "," + item;
+    }
+}
@@ -1,10 +1,15 @@
 interface IPet {
+    //Dirty-field bits - which persisted columns changed since the pet was last written
+    int DIRTY_HEALTH = 1, DIRTY_ENERGY = 2, DIRTY_HUNGER = 4, DIRTY_HAPPINESS = 8, DIRTY_STATE = 16, DIRTY_DECORATORS = 32;
+    int DIRTY_ALL = 63;
+
     String getName();
     int getHealth();
     int getEnergy();
     int getHunger();
     int getHappiness();
-    String getType();
+    String getType();    //species plus the equipment suffixes, e.g. "🐱 Cat ⚔️ [Armored]"
+    String getSpecies(); //just the species, e.g. "🐱 Cat"
     void setState(IPetState state);
     IPetState getState();
     void feed();
@@ -12,6 +17,7 @@ interface IPet {
     void sleep();
     void tick();
     void displayStatus();
+    void appendStatus(StringBuilder frame); //the lines displayStatus prints, for a ConsoleRenderer frame
     int getMaxHealth();
     void setHealth(int health);
     void setEnergy(int energy);
@@ -19,8 +25,17 @@ interface IPet {
     void setHappiness(int happiness);
     int getPetId();
     void setPetId(int id);
-    String getDecorators();
+    String getDecorators(); //the equipped item labels, comma separated - same as getLoadout().names
     void setDecorators(String decorators);
+    Loadout getLoadout();
+    void setLoadout(Loadout loadout);
+    boolean equip(EquipmentItem item); //false if the pet already wears it
+    void updateState(); //re-evaluates which state the pet belongs in after its stats changed
+    int getSleepTurns();
+    void setSleepTurns(int sleepTurns);
+    int getDirtyFields();
+    void clearDirtyFields(int fields); //called by the persistence layer for the fields it has written or queued
+    void markDirty(int fields); //gives back the fields of a write that was dropped or failed - safe from any thread
 }
 abstract class PetDecorator implements IPet {
     protected IPet wrappedPet;
@@ -47,6 +62,9 @@ abstract class PetDecorator implements IPet {
     @Override
     public String getType() { return wrappedPet.getType(); }
 
+    @Override
+    public String getSpecies() { return wrappedPet.getSpecies(); }
+
     @Override
     public void setState(IPetState state) { wrappedPet.setState(state); }
 //State Pattern - allows dynamic behavior changes
@@ -66,6 +84,12 @@ abstract class PetDecorator implements IPet {
     @Override
     public void tick() { wrappedPet.tick(); }
 
+    @Override
+    public void displayStatus() { wrappedPet.displayStatus(); }
+
+    @Override
+    public void appendStatus(StringBuilder frame) { wrappedPet.appendStatus(frame); }
+
     @Override
     public int getMaxHealth() { return wrappedPet.getMaxHealth(); }
 
@@ -92,59 +116,47 @@ abstract class PetDecorator implements IPet {
 
     @Override
     public void setDecorators(String decorators) { wrappedPet.setDecorators(decorators); }
-}
 
-class ArmorDecorator extends PetDecorator {
-    private int armorBonus = 30;
+    @Override
+    public Loadout getLoadout() { return wrappedPet.getLoadout(); }
 
-    public ArmorDecorator(IPet pet) {
-        super(pet);
-        String currentDec = pet.getDecorators();
-        pet.setDecorators(currentDec.isEmpty() ? "Armor" : currentDec + ",Armor");
-        System.out.println("⚔️  Equipped Golden Armor! +" + armorBonus + " HP");
-    }
+    @Override
+    public void setLoadout(Loadout loadout) { wrappedPet.setLoadout(loadout); }
 
     @Override
-    public int getMaxHealth() {
-        return wrappedPet.getMaxHealth() + armorBonus;
-    }
+    public boolean equip(EquipmentItem item) { return wrappedPet.equip(item); }
 
     @Override
-    public String getType() {
-        return wrappedPet.getType() + " ⚔️ [Armored]";
-    }
+    public void updateState() { wrappedPet.updateState(); }
 
     @Override
-    public void displayStatus() {
-        wrappedPet.displayStatus();
-        System.out.println("🛡️  Armor Bonus: +" + armorBonus + " Max HP");
-    }
-}
+    public int getSleepTurns() { return wrappedPet.getSleepTurns(); }
 
-class AmuletDecorator extends PetDecorator {
-    private int happinessBonus = 15;
+    @Override
+    public void setSleepTurns(int sleepTurns) { wrappedPet.setSleepTurns(sleepTurns); }
 
-    public AmuletDecorator(IPet pet) {
-        super(pet);
-        String currentDec = pet.getDecorators();
-        pet.setDecorators(currentDec.isEmpty() ? "Amulet" : currentDec + ",Amulet");
-        System.out.println("✨ Equipped Magic Amulet! +" + happinessBonus + " Happiness/turn");
-    }
+    @Override
+    public int getDirtyFields() { return wrappedPet.getDirtyFields(); }
 
     @Override
-    public String getType() {
-        return wrappedPet.getType() + " ✨ [Amulet]";
-    }
+    public void clearDirtyFields(int fields) { wrappedPet.clearDirtyFields(fields); }
 
     @Override
-    public void tick() {
-        wrappedPet.tick();
-        setHappiness(Math.min(100, getHappiness() + happinessBonus));
+    public void markDirty(int fields) { wrappedPet.markDirty(fields); }
+}
+
+//ArmorDecorator and AmuletDecorator are kept as adapters for code that still wraps pets.
+//The effect itself lives in the pet's Loadout, so wrapping only equips the item and adds no work per call.
+class ArmorDecorator extends PetDecorator {
+    public ArmorDecorator(IPet pet) {
+        super(pet);
+        pet.equip(EquipmentItem.ARMOR);
     }
+}
 
-    @Override
-    public void displayStatus() {
-        wrappedPet.displayStatus();
-        System.out.println("💎 Amulet Bonus: +" + happinessBonus + " Happiness/turn");
+class AmuletDecorator extends PetDecorator {
+    public AmuletDecorator(IPet pet) {
+        super(pet);
+        pet.equip(EquipmentItem.AMULET);
     }
-}
\ No newline at end of file
+}
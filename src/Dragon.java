@@ -1,9 +1,11 @@
 class Dragon extends Pet {
+    static final String SPECIES = "🐉 Dragon";
+
     public Dragon(String name, int health, int energy, int hunger, int happiness) {
         super(name, health, energy, hunger, happiness);
     }
     @Override
-    public String getType() {
-        return "🐉 Dragon";
+    public String getSpecies() {
+        return SPECIES;
     }
 }
\ No newline at end of file
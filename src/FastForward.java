@@ -0,0 +1,171 @@
+//Advances a pet by many ticks at once, with exactly the result of calling tick() that many times.
+//While a pet stays in one awake state every stat moves by a constant amount per tick (or sits pinned at 0 or 100),
+//so those stretches are applied in one jump. Only the ticks where a state, a threshold or a clamp changes, and the
+//at most two ticks of a nap, are stepped one by one. A dead pet only collects its equipment bonus, in closed form.
+//Uses the same PetRules as the IPetState handlers + Pet.tick (and the PetStore kernel) - the pet's species' table.
+final class FastForward {
+    private static final long ALWAYS = Long.MAX_VALUE;
+
+    private final PetRules rules;
+    private int health, maxHealth, energy, hunger, happiness, code, sleepTurns;
+    private final int bonus; //happiness per tick from the loadout
+    private int segments;
+
+    private FastForward(IPet pet) {
+        rules = PetRules.of(pet);
+        health = pet.getHealth();
+        maxHealth = pet.getMaxHealth();
+        energy = pet.getEnergy();
+        hunger = pet.getHunger();
+        happiness = pet.getHappiness();
+        code = pet.getState().getCode();
+        sleepTurns = pet.getSleepTurns();
+        bonus = pet.getLoadout().happinessPerTick;
+    }
+
+    //Ticks the pet 'ticks' times without printing anything per tick. Returns how many jumps and single steps it took.
+    static int advance(IPet pet, long ticks) {
+        if (ticks <= 0) return 0;
+        FastForward run = new FastForward(pet);
+        run.run(ticks);
+
+        //Only stats that changed are written back: the setters clamp, and a stat no tick touched must stay as it was
+        pet.setState(IPetState.forCode(run.code)); //first, because entering Sleeping resets the nap counter
+        pet.setSleepTurns(run.sleepTurns);
+        if (run.health != pet.getHealth()) pet.setHealth(run.health);
+        if (run.energy != pet.getEnergy()) pet.setEnergy(run.energy);
+        if (run.hunger != pet.getHunger()) pet.setHunger(run.hunger);
+        if (run.happiness != pet.getHappiness()) pet.setHappiness(run.happiness);
+        return run.segments;
+    }
+
+    private void run(long ticks) {
+        long remaining = ticks;
+        while (remaining > 0) {
+            segments++;
+            PetRules.Rule rule = rules.ticks[code];
+            if (rule.inert) { //e.g. dead
+                //No bonus means no setter call, so happiness stays as it is - even outside 0..100. Otherwise the first
+                //tick clamps it into range, and from there the bonus has one sign, so clamping once at the end is the
+                //same as clamping every tick.
+                if (bonus != 0) {
+                    happiness = clamp(happiness + bonus, 0, 100);
+                    happiness = (int) Math.max(0, Math.min(100, happiness + (remaining - 1) * bonus));
+                }
+                return;
+            }
+            //Only a rule that re-classifies every tick has stretches with a constant step; the rest are stepped
+            boolean steady = rule.next == PetRules.CLASSIFY && !rule.guarded;
+            long jump = steady ? steadyTicks(rule, remaining) : 0;
+            if (jump > 0) {
+                jump(jump);
+                remaining -= jump;
+            } else {
+                step();
+                remaining--;
+            }
+        }
+    }
+
+    //Effective per-tick change of each stat for the current jump (0 for a stat pinned at a bound)
+    private int energyStep, hungerStep, happinessStep, healthStep;
+
+    //How many of the next ticks (at most 'limit') keep the pet in its state with no clamp and no threshold crossing.
+    //0 means the next tick has to be stepped.
+    private long steadyTicks(PetRules.Rule rule, long limit) {
+        int dEnergy = rule.energy, dHunger = rule.hunger, dHappiness = rule.happiness, dHealth = rule.health;
+
+        long runs = limit;
+        long energyRun = run(energy, dEnergy, 0, 100);
+        energyStep = dEnergy;
+        if (energyRun == 0 && clamp(energy + dEnergy, 0, 100) == energy) { energyRun = ALWAYS; energyStep = 0; }
+        long hungerRun = run(hunger, dHunger, 0, 100);
+        hungerStep = dHunger;
+        if (hungerRun == 0 && clamp(hunger + dHunger, 0, 100) == hunger) { hungerRun = ALWAYS; hungerStep = 0; }
+        long healthRun = run(health, dHealth, 0, maxHealth);
+        healthStep = dHealth;
+        if (healthRun == 0 && clamp(health + dHealth, 0, maxHealth) == health) { healthRun = ALWAYS; healthStep = 0; }
+
+        //Happiness changes twice per tick: the state's delta (what the state check sees), then the equipment bonus
+        int beforeBonus = happiness + dHappiness;
+        long happinessRun = Math.min(inRange(beforeBonus) ? 1 + run(beforeBonus, dHappiness + bonus, 0, 100) : 0,
+                run(happiness, dHappiness + bonus, 0, 100));
+        happinessStep = dHappiness + bonus;
+        if (happinessRun == 0 && clamp(clamp(beforeBonus, 0, 100) + bonus, 0, 100) == happiness) {
+            happinessRun = ALWAYS;
+            happinessStep = 0;
+            beforeBonus = clamp(beforeBonus, 0, 100);
+        }
+        runs = Math.min(runs, Math.min(Math.min(energyRun, hungerRun), Math.min(healthRun, happinessRun)));
+        if (runs == 0) return 0;
+
+        //Stats the state check sees after tick 1; every later tick adds the same steps
+        int e1 = energy + energyStep, h1 = hunger + hungerStep, hp1 = health + healthStep;
+        if (rules.classify(hp1, e1, h1, beforeBonus) != code) return 0;
+
+        //Each threshold of PetRules.classify, written as v <= T; the state can't change before one of them flips
+        runs = Math.min(runs, unchangedFor(hp1, healthStep, rules.deadHealth));                        //health <= dead
+        runs = Math.min(runs, unchangedFor(e1, energyStep, rules.sleepyEnergy));                       //energy <= sleepy
+        runs = Math.min(runs, unchangedFor(-h1, -hungerStep, -rules.hungryHunger));                    //hunger >= hungry
+        runs = Math.min(runs, unchangedFor(-beforeBonus, -happinessStep, -rules.happyHappiness));      //happiness >= happy
+        runs = Math.min(runs, unchangedFor(h1, hungerStep, rules.happyHunger - 1));                    //hunger < happy
+        runs = Math.min(runs, unchangedFor(-e1, -energyStep, -(rules.happyEnergy + 1)));               //energy > happy
+        return runs;
+    }
+
+    private void jump(long ticks) {
+        energy += (int) (ticks * energyStep);
+        hunger += (int) (ticks * hungerStep);
+        health += (int) (ticks * healthStep);
+        happiness += (int) (ticks * happinessStep);
+    }
+
+    //One ordinary tick - the PetStore.tickRange rules for a single pet
+    private void step() {
+        PetRules.Rule rule = rules.ticks[code];
+        if (!rule.inert) {
+            if (rule.energy != 0) energy = clamp(energy + rule.energy, 0, 100);
+            if (rule.hunger != 0) hunger = clamp(hunger + rule.hunger, 0, 100);
+            if (rule.happiness != 0) happiness = clamp(happiness + rule.happiness, 0, 100);
+            if (rule.health != 0) health = clamp(health + rule.health, 0, maxHealth);
+
+            boolean moves;
+            if (rule.guarded) {
+                sleepTurns++;
+                moves = sleepTurns >= rule.guardTurns || energy >= rule.guardEnergy; //wakes up refreshed
+            } else {
+                moves = rule.next != PetRules.STAY;
+            }
+            if (moves) {
+                int target = rule.target(health, energy, hunger, happiness);
+                if (rules.ticks[target].guarded) sleepTurns = 0;
+                code = target;
+            }
+        }
+        if (bonus != 0) happiness = clamp(happiness + bonus, 0, 100);
+    }
+
+    //How many ticks j = 1, 2, ... keep x + j * step inside [low, high]. A value that starts outside (a constructor can
+    //set energy 120) is clamped by its first setter call, so it gets 0.
+    private static long run(int x, int step, int low, int high) {
+        if (x < low || x > high) return 0;
+        if (step == 0) return ALWAYS;
+        return step > 0 ? Math.max(0, (high - x) / step) : Math.max(0, (x - low) / -step);
+    }
+
+    //How many ticks j = 1, 2, ... keep (first + (j - 1) * step <= threshold) the same as it is for j = 1
+    private static long unchangedFor(int first, int step, int threshold) {
+        boolean holds = first <= threshold;
+        if (holds && step > 0) return (threshold - first) / step + 1;
+        if (!holds && step < 0) return (first - threshold - 1) / -step + 1;
+        return ALWAYS;
+    }
+
+    private static boolean inRange(int value) {
+        return value >= 0 && value <= 100;
+    }
+
+    private static int clamp(int value, int low, int high) {
+        return Math.max(low, Math.min(high, value));
+    }
+}
@@ -0,0 +1,72 @@
+import java.util.Random;
+
+//Differential check of FastForward: advances random pets with FastForward.advance and a copy of each with the same
+//number of tick() calls, and compares every stat, the state and the nap counter.
+//Covers every state, every loadout and stats outside 0..100 (a constructor or an old row can hold them).
+//Usage: java FastForwardCheck [pets] [seed]
+//Exits with status 1 if any pet ends up different.
+class FastForwardCheck {
+    public static void main(String[] args) {
+        int pets = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 42L;
+        PetConsole.setEnabled(false); //state changes would print one line per tick
+        long loadouts = 1L << EquipmentItem.values().length;
+
+        Random random = new Random(seed);
+        int mismatches = 0, shown = 0;
+        for (int i = 0; i < pets; i++) {
+            boolean dragon = random.nextBoolean();
+            int health = stat(random), energy = stat(random), hunger = stat(random), happiness = stat(random);
+            int maxHealth = 50 + random.nextInt(101);
+            int state = random.nextInt(IPetState.DEAD + 1);
+            int sleepTurns = random.nextInt(4);
+            long bits = random.nextLong() & (loadouts - 1);
+            long ticks = random.nextInt(4) == 0 ? random.nextInt(5000) : random.nextInt(40);
+
+            Pet fast = pet(dragon, health, maxHealth, energy, hunger, happiness, state, sleepTurns, bits);
+            Pet slow = pet(dragon, health, maxHealth, energy, hunger, happiness, state, sleepTurns, bits);
+            FastForward.advance(fast, ticks);
+            for (long t = 0; t < ticks; t++) slow.tick();
+
+            if (!same(fast, slow)) {
+                mismatches++;
+                if (shown++ < 10) {
+                    System.out.printf("❌ %s h=%d/%d e=%d hu=%d ha=%d %s nap=%d equipment=%d, %d ticks: fast %s, ticked %s%n",
+                            dragon ? "dragon" : "cat", health, maxHealth, energy, hunger, happiness,
+                            IPetState.forCode(state).getStateName(), sleepTurns, bits, ticks, describe(fast), describe(slow));
+                }
+            }
+        }
+        System.out.println(mismatches == 0
+                ? "✅ FastForward matched tick() for " + pets + " pets"
+                : "❌ FastForward differed from tick() for " + mismatches + " of " + pets + " pets");
+        if (mismatches != 0) System.exit(1);
+    }
+
+    //Mostly in range, sometimes out of it
+    private static int stat(Random random) {
+        return random.nextInt(8) == 0 ? -20 + random.nextInt(141) : random.nextInt(101);
+    }
+
+    //Set through the fields, like a load does, so nothing is clamped or announced
+    private static Pet pet(boolean dragon, int health, int maxHealth, int energy, int hunger, int happiness,
+                           int state, int sleepTurns, long bits) {
+        Pet pet = dragon ? new Dragon("Check", health, energy, hunger, happiness) : new Cat("Check", health, energy, hunger, happiness);
+        pet.maxHealth = maxHealth;
+        pet.currentState = IPetState.forCode(state);
+        pet.sleepTurns = sleepTurns;
+        pet.setLoadout(Loadout.of(bits));
+        return pet;
+    }
+
+    private static boolean same(IPet a, IPet b) {
+        return a.getHealth() == b.getHealth() && a.getEnergy() == b.getEnergy() && a.getHunger() == b.getHunger()
+                && a.getHappiness() == b.getHappiness() && a.getState() == b.getState()
+                && a.getSleepTurns() == b.getSleepTurns();
+    }
+
+    private static String describe(IPet pet) {
+        return "h=" + pet.getHealth() + " e=" + pet.getEnergy() + " hu=" + pet.getHunger() + " ha=" + pet.getHappiness()
+                + " " + pet.getState().getStateName() + " nap=" + pet.getSleepTurns();
+    }
+}
@@ -0,0 +1,105 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//Localhost client for GameServer.
+//  java Main --client [port]                       play interactively, the same menus as the console game
+//  java Main --load [sessions] [actions] [port]    that many scripted players at once: create a pet, act, save & exit
+class GameClient {
+    static void interactive(int port) throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            Thread printer = new Thread(() -> copy(socket, System.out), "pet-client-output");
+            printer.setDaemon(true);
+            printer.start();
+
+            OutputStream toServer = socket.getOutputStream();
+            byte[] buffer = new byte[1024];
+            int read;
+            while (printer.isAlive() && (read = System.in.read(buffer)) != -1) {
+                toServer.write(buffer, 0, read);
+                toServer.flush();
+            }
+            socket.shutdownOutput();
+            printer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void copy(Socket socket, PrintStream target) {
+        try {
+            InputStream fromServer = socket.getInputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = fromServer.read(buffer)) != -1) {
+                target.write(buffer, 0, read);
+                target.flush();
+            }
+        } catch (IOException e) {
+            //server closed the session
+        }
+    }
+
+    //Runs 'sessions' scripted players in parallel and reports how many finished cleanly and how long they took
+    static void load(int sessions, int actions, int port) throws InterruptedException {
+        LatencyStats durations = new LatencyStats();
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger turnedAway = new AtomicInteger();
+        long started = System.nanoTime();
+
+        ExecutorService players = VirtualThreads.perTaskExecutor("pet-load-client");
+        List<Future<?>> results = new ArrayList<>();
+        for (int i = 0; i < sessions; i++) {
+            int player = i;
+            results.add(players.submit(() -> {
+                long begin = System.nanoTime();
+                String transcript = play(port, player, actions);
+                durations.record(System.nanoTime() - begin);
+                if (transcript.contains("Thanks for playing")) completed.incrementAndGet();
+                else if (transcript.contains("Server is full")) turnedAway.incrementAndGet();
+                return null;
+            }));
+        }
+        for (Future<?> result : results) {
+            try {
+                result.get();
+            } catch (java.util.concurrent.ExecutionException e) {
+                System.err.println("❌ Error in load session: " + e.getCause());
+            }
+        }
+        players.shutdown();
+
+        double seconds = (System.nanoTime() - started) / 1e9;
+        System.out.printf("🧪 %d sessions (%d actions each) in %.2f s | %d completed | %d turned away%n",
+                sessions, actions, seconds, completed.get(), turnedAway.get());
+        System.out.println("🧪 Whole-session time: " + durations.report().replace("commands", "sessions"));
+    }
+
+    //One scripted player: new pet, random feed/play/sleep/statistics, then save & exit. Returns everything the server said.
+    private static String play(int port, int player, int actions) throws IOException {
+        Random random = new Random(player);
+        StringBuilder script = new StringBuilder();
+        script.append("1\n").append(random.nextBoolean() ? "1\n" : "2\n").append("Bot").append(player).append('\n');
+        String[] moves = {"1", "2", "3", "6"};
+        for (int i = 0; i < actions; i++) {
+            script.append(moves[random.nextInt(moves.length)]).append('\n');
+        }
+        script.append("8\n");
+
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            socket.getOutputStream().write(script.toString().getBytes(StandardCharsets.UTF_8));
+            socket.getOutputStream().flush();
+            return new String(socket.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+//Fixed-rate game clock: runs onTick every period on a scheduler thread, no matter what the player is doing.
+//The scheduler is shared (GameServices.ticker), so a server with thousands of sessions needs only a few clock threads.
+//Tick n is due at start + n * period. How late it actually starts is its jitter; a tick that starts a whole period late
+//missed its deadline, and a tick that runs longer than a period is an overrun (fixed rate then fires the next one back to back).
+class GameClock {
+    private final long periodNanos;
+    private final Runnable onTick;
+    private final ScheduledExecutorService timer;
+    private final Object tickLock = new Object(); //held while onTick runs, so stop() can wait for a tick in progress
+    private ScheduledFuture<?> task;
+    private boolean stopped;
+
+    private long startNanos;
+    private long ticks, overruns, missedDeadlines;
+    private long totalJitterNanos, maxJitterNanos, maxTickNanos;
+
+    GameClock(long periodMillis, Runnable onTick, ScheduledExecutorService timer) {
+        this.periodNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, periodMillis));
+        this.onTick = onTick;
+        this.timer = timer;
+    }
+
+    synchronized void start() {
+        if (task != null || stopped) return;
+        startNanos = System.nanoTime();
+        task = timer.scheduleAtFixedRate(this::tick, periodNanos, periodNanos, TimeUnit.NANOSECONDS);
+    }
+
+    //Stops ticking and waits for a tick that is already running to finish. The shared scheduler keeps running.
+    void stop() {
+        synchronized (this) {
+            stopped = true;
+            if (task != null) task.cancel(false);
+        }
+        synchronized (tickLock) {
+            //nothing to do - getting the lock means no tick is running, and a cancelled task starts no new one
+        }
+    }
+
+    private void tick() {
+        long begin = System.nanoTime();
+        long due;
+        synchronized (this) {
+            due = startNanos + (ticks + 1) * periodNanos;
+        }
+        synchronized (tickLock) {
+            if (isStopped()) return;
+            try {
+                onTick.run();
+            } catch (RuntimeException e) {
+                //an exception would silently cancel a fixed-rate task, so the clock reports it and keeps going
+                System.err.println("❌ Error in game tick: " + e.getMessage());
+            } catch (Throwable e) { //an Error as well, e.g. a StackOverflowError - the message alone may be empty
+                System.err.println("❌ Error in game tick: " + e);
+            }
+        }
+        long duration = System.nanoTime() - begin;
+
+        synchronized (this) {
+            long jitter = Math.abs(begin - due);
+            ticks++;
+            totalJitterNanos += jitter;
+            maxJitterNanos = Math.max(maxJitterNanos, jitter);
+            maxTickNanos = Math.max(maxTickNanos, duration);
+            if (begin - due >= periodNanos) missedDeadlines++;
+            if (duration > periodNanos) overruns++;
+        }
+    }
+
+    private synchronized boolean isStopped() { return stopped; }
+
+    synchronized long getTicks() { return ticks; }
+    synchronized long getOverruns() { return overruns; }
+    synchronized long getMissedDeadlines() { return missedDeadlines; }
+    synchronized double getMeanJitterMillis() { return ticks == 0 ? 0 : totalJitterNanos / 1e6 / ticks; }
+    synchronized double getMaxJitterMillis() { return maxJitterNanos / 1e6; }
+
+    //How far the clock is behind where a perfect clock would be right now (0 when it is keeping up)
+    synchronized double getDriftMillis() {
+        if (task == null) return 0;
+        long expectedTicks = (System.nanoTime() - startNanos) / periodNanos;
+        return Math.max(0, expectedTicks - ticks) * periodNanos / 1e6;
+    }
+
+    synchronized String report() {
+        return String.format("⏱️  Game clock: %d ticks every %d ms | jitter avg %.2f ms, max %.2f ms | longest tick %.2f ms | %d overruns | %d missed deadlines",
+                ticks, TimeUnit.NANOSECONDS.toMillis(periodNanos), getMeanJitterMillis(), getMaxJitterMillis(),
+                maxTickNanos / 1e6, overruns, missedDeadlines);
+    }
+}
+//✅ Single Responsibility - GameClock decides WHEN a turn happens, GameEngine decides WHAT happens
@@ -0,0 +1,69 @@
+class GameConfig {
+    //Every setting can be overridden on the command line, e.g. java -Dpet.flushEveryTurns=10 Main
+    final String storage = stringProperty("pet.storage", "sqlite"); //sqlite or mapped, see PetRepository
+    final String mappedDirectory = stringProperty("pet.mapped.dir", "virtual_pet_data"); //files of the mapped backend
+    final String databaseUrl = stringProperty("pet.db.url", "jdbc:sqlite:virtual_pet.db");
+    final SqlitePragmaProfile pragmaProfile = SqlitePragmaProfile.fromConfig();
+    final int dbReaders = intProperty("pet.db.readers", 4); //read-only connections for queries; 0 runs them on the writer thread
+    final int writeQueueDepth = intProperty("pet.db.writeQueueDepth", 1024); //writes waiting for the writer thread
+    final String writeBackpressure = stringProperty("pet.db.backpressure", "block"); //full queue: block = caller waits, drop = discard after writeTimeoutMillis
+    final long writeTimeoutMillis = longProperty("pet.db.writeTimeoutMillis", 1000);
+    final boolean writeBehind = booleanProperty("pet.writeBehind", true);
+    final int flushEveryTurns = intProperty("pet.flushEveryTurns", 5);
+    final long flushIntervalMillis = longProperty("pet.flushIntervalMillis", 2000);
+    final int maxPendingWrites = intProperty("pet.maxPendingWrites", 500); //hard bound - the turn path flushes itself when the queue reaches this size
+    final int flushRetries = intProperty("pet.flushRetries", 5); //flushes in a row that may fail before the queued history is dropped
+
+    final long tickMillis = longProperty("pet.tickMillis", 2000); //game clock period - pets age this often whether or not the player types
+    final boolean fastForwardOnLoad = booleanProperty("pet.fastForward", false); //a loaded pet catches up on the ticks it missed since last_played
+    final long fastForwardMaxTicks = longProperty("pet.fastForward.maxTicks", 1800); //at most this many (an hour of 2 s ticks), however long it was away
+    final int serverPort = intProperty("pet.server.port", 7777); //server mode only listens on localhost
+    final int serverMaxSessions = intProperty("pet.server.maxSessions", 1000); //connections past this are turned away
+    final int serverClockThreads = intProperty("pet.server.clockThreads", 2); //scheduler threads shared by every session's game clock
+    final int menuPageSize = intProperty("pet.menuPageSize", 10);
+    final String console = stringProperty("pet.console", "auto"); //auto, ansi or plain - how the game loop draws its screen, see ConsoleRenderer
+    final int cacheMaxPets = intProperty("pet.cache.maxPets", 1000); //0 turns the pet/statistics cache off
+    final int historyRetentionDays = intProperty("pet.history.retentionDays", 30); //detail rows kept this long, then rolled up per day
+    final long historyCompactIntervalMinutes = longProperty("pet.history.compactIntervalMinutes", 60);
+    final int historyCompactChunkRows = intProperty("pet.history.compactChunkRows", 5000);
+    final int archiveIntervalMinutes = intProperty("pet.archive.intervalMinutes", 60); //0 turns the background archiver off
+    final int archiveDeadGraceHours = intProperty("pet.archive.deadGraceHours", 24); //dead pets stay on the menu this long
+    final int archiveInactiveDays = intProperty("pet.archive.inactiveDays", 90); //0 archives dead pets only
+    final int archiveChunkPets = intProperty("pet.archive.chunkPets", 500); //pets per archive transaction
+    final int archiveVacuumPages = intProperty("pet.archive.vacuumPages", 2000); //free pages returned to the file system per run
+    final String archiveFile = stringProperty("pet.archive.file", ""); //empty: the database file name with _archive added
+    final int transferFetchSize = intProperty("pet.transfer.fetchSize", 1000); //rows per cursor fetch when exporting
+    final int transferBatchRows = intProperty("pet.transfer.batchRows", 10000); //rows per import transaction
+    final int bulkBatchRows = intProperty("pet.bulk.batchRows", 5000); //pets per transaction when creating in bulk
+    final int bulkThreads = intProperty("pet.bulk.threads", Runtime.getRuntime().availableProcessors()); //threads running PetBuilder.build
+    final boolean eventLog = booleanProperty("pet.events", false); //binary log of every tick and action, for replays (see PetEventLog)
+    final String eventLogFile = stringProperty("pet.events.file", "virtual_pet_events.log");
+    final int eventSnapshotEvery = intProperty("pet.events.snapshotEvery", 200); //events per pet between full snapshots - bounds a replay's work
+    final long eventFlushMillis = longProperty("pet.events.flushMillis", 1000);
+
+    static int intProperty(String key, int defaultValue) {
+        return (int) longProperty(key, defaultValue);
+    }
+
+    static long longProperty(String key, long defaultValue) {
+        String value = System.getProperty(key);
+        if (value == null) return defaultValue;
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("❌ Invalid value for " + key + ": " + value + " (using " + defaultValue + ")");
+            return defaultValue;
+        }
+    }
+
+    static boolean booleanProperty(String key, boolean defaultValue) {
+        String value = System.getProperty(key);
+        return value == null ? defaultValue : Boolean.parseBoolean(value.trim());
+    }
+
+    static String stringProperty(String key, String defaultValue) {
+        String value = System.getProperty(key);
+        return value == null || value.isBlank() ? defaultValue : value.trim();
+    }
+}
+//✅ Single Responsibility - GameConfig only reads tunable settings, the classes that use them stay free of System.getProperty calls
\ No newline at end of file
@@ -0,0 +1,131 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+//Hosts many players in one JVM: every localhost TCP connection gets its own GameEngine session, speaking the same
+//menus and actions as the console game (try it with: java Main --client). Sessions run on virtual threads when the JVM
+//has them and share one GameServices - one database, one write-behind queue, a few clock threads.
+class GameServer {
+    private final GameServices services;
+    private final int port;
+    private final int maxSessions;
+    private final Semaphore slots;
+    private final ExecutorService sessions;
+    private final ThreadFactory readerThreads;
+    private final LatencyStats latency = new LatencyStats(); //every command of every finished session
+    private final AtomicInteger activeSessions = new AtomicInteger();
+    private final AtomicInteger nextSessionId = new AtomicInteger();
+    private final AtomicLong finishedSessions = new AtomicLong();
+    private final AtomicLong rejectedSessions = new AtomicLong();
+    private volatile ServerSocket serverSocket;
+
+    GameServer(GameConfig config) {
+        this.services = new GameServices(config, config.serverClockThreads);
+        this.port = config.serverPort;
+        this.maxSessions = Math.max(1, config.serverMaxSessions);
+        this.slots = new Semaphore(maxSessions);
+        this.sessions = VirtualThreads.perTaskExecutor("pet-session");
+        this.readerThreads = VirtualThreads.factory("pet-session-input");
+    }
+
+    //Binds to localhost and accepts connections until close() is called
+    void serve() throws IOException {
+        serverSocket = new ServerSocket(port, 1024, InetAddress.getLoopbackAddress());
+        System.out.println("🌐 Pet server listening on localhost:" + serverSocket.getLocalPort() + " (max " + maxSessions
+                + " sessions, " + (VirtualThreads.available() ? "virtual" : "platform") + " threads)");
+        while (!serverSocket.isClosed()) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (SocketException e) {
+                break; //close() closed the socket
+            }
+            if (!slots.tryAcquire()) {
+                reject(socket);
+                continue;
+            }
+            int sessionId = nextSessionId.incrementAndGet();
+            activeSessions.incrementAndGet();
+            sessions.execute(() -> runSession(socket, sessionId));
+        }
+    }
+
+    private void runSession(Socket socket, int sessionId) {
+        ConsoleInput input = null;
+        long started = System.nanoTime();
+        try (socket) {
+            socket.setTcpNoDelay(true); //prompts are tiny - don't hold them back
+            PrintStream out = new PrintStream(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+            input = new ConsoleInput(socket.getInputStream(), readerThreads);
+            new GameEngine(services, input, out).start();
+            out.println("📶 Session latency: " + input.getLatency().report());
+        } catch (NoSuchElementException e) {
+            //the player hung up mid-game - their pet was already queued for saving every tick
+        } catch (IOException | RuntimeException e) {
+            System.err.println("❌ Error in session #" + sessionId + ": " + e.getMessage());
+        } finally {
+            if (input != null) latency.merge(input.getLatency());
+            activeSessions.decrementAndGet();
+            finishedSessions.incrementAndGet();
+            slots.release();
+            if (input != null) {
+                System.out.printf("🔌 Session #%d closed after %.1f s | %s%n", sessionId,
+                        (System.nanoTime() - started) / 1e9, input.getLatency().report());
+            }
+        }
+    }
+
+    private void reject(Socket socket) {
+        rejectedSessions.incrementAndGet();
+        try (socket) {
+            PrintStream out = new PrintStream(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+            out.println("❌ Server is full (" + maxSessions + " players), try again later");
+        } catch (IOException e) {
+            //the client is gone already
+        }
+    }
+
+    int getLocalPort() {
+        ServerSocket socket = serverSocket;
+        return socket == null ? -1 : socket.getLocalPort();
+    }
+
+    int getActiveSessions() { return activeSessions.get(); }
+    long getRejectedSessions() { return rejectedSessions.get(); }
+    LatencyStats getLatency() { return latency; }
+
+    String report() {
+        return String.format("🌐 Pet server: %d active | %d finished | %d rejected | %s",
+                activeSessions.get(), finishedSessions.get(), rejectedSessions.get(), latency.report());
+    }
+
+    //Stops accepting, ends running sessions (their input is interrupted) and closes the shared services
+    void close() {
+        try {
+            ServerSocket socket = serverSocket;
+            if (socket != null) socket.close();
+        } catch (IOException e) {
+            System.err.println("❌ Error closing server socket: " + e.getMessage());
+        }
+        sessions.shutdownNow();
+        try {
+            sessions.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        System.out.println(report());
+        services.close();
+    }
+}
+//✅ Single Responsibility - GameServer only manages connections, each session is an ordinary GameEngine
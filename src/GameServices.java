@@ -0,0 +1,56 @@
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//Everything game sessions share: one pet repository, one write-behind queue, one history compactor, the archiver,
+//the event log, the scheduler the game clocks tick on, and the set of pets somebody is playing right now.
+//The single-player game owns one of these; the server owns one for all of its sessions.
+class GameServices {
+    final GameConfig config;
+    final PetRepository repository;
+    final WriteBehindQueue persistence;
+    final HistoryCompactor historyCompactor;
+    final PetArchiver archiver;
+    final PetEventLog events;
+    final ScheduledExecutorService ticker;
+    private final Set<Integer> petsInPlay = ConcurrentHashMap.newKeySet();
+
+    GameServices(GameConfig config, int tickerThreads) {
+        this.config = config;
+        this.repository = PetRepository.open(config);
+        this.persistence = new WriteBehindQueue(repository, config);
+        this.historyCompactor = new HistoryCompactor(repository, config);
+        this.events = new PetEventLog(config);
+        this.archiver = new PetArchiver(this, config);
+
+        AtomicInteger counter = new AtomicInteger();
+        this.ticker = Executors.newScheduledThreadPool(Math.max(1, tickerThreads), runnable -> {
+            Thread thread = new Thread(runnable, "pet-game-clock-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    //A pet can only be played in one session at a time - two sessions ticking the same cached object would corrupt it
+    boolean claimPet(int petId) { return petsInPlay.add(petId); }
+
+    void releasePet(int petId) { petsInPlay.remove(petId); }
+
+    boolean isInPlay(int petId) { return petsInPlay.contains(petId); }
+
+    void close() {
+        ticker.shutdownNow();
+        historyCompactor.shutdown();
+        archiver.shutdown();
+        persistence.close();
+        events.close();
+        if (events.isEnabled()) System.out.println(events.report());
+        System.out.println(repository.getWriteStats().report());
+        repository.close();
+        System.out.println(repository.report());
+        if (archiver.getTotalArchived() > 0) System.out.println(archiver.report());
+        if (Metrics.ENABLED) System.out.print(Metrics.dump());
+    }
+}
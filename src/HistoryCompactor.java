@@ -0,0 +1,51 @@
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+//Background job that keeps game_history bounded: detail rows older than the retention window are rolled up into
+//per-pet, per-day totals (game_history_daily) in small transactions, so the game never waits long for the database.
+class HistoryCompactor {
+    private final PetRepository repository;
+    private final int retentionDays;
+    private final int chunkRows;
+    private final ScheduledExecutorService scheduler;
+    private volatile long totalCompacted;
+
+    public HistoryCompactor(PetRepository repository, GameConfig config) {
+        this.repository = repository;
+        this.retentionDays = config.historyRetentionDays;
+        this.chunkRows = Math.max(100, config.historyCompactChunkRows);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "pet-history-compactor");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        if (retentionDays > 0) { //0 or less keeps every row forever
+            long interval = Math.max(1, config.historyCompactIntervalMinutes);
+            scheduler.scheduleWithFixedDelay(this::compactNow, 1, interval, TimeUnit.MINUTES);
+        }
+    }
+
+    //Compacts chunk after chunk until no old rows are left
+    public int compactNow() {
+        int compacted = 0;
+        try {
+            int removed;
+            do {
+                removed = repository.compactHistory(retentionDays, chunkRows);
+                compacted += removed;
+            } while (removed > 0);
+        } catch (RuntimeException e) { //a scheduled task that throws is never run again
+            System.err.println("❌ Error compacting history: " + e.getMessage());
+        }
+        totalCompacted += compacted;
+        return compacted;
+    }
+
+    public long getTotalCompacted() { return totalCompacted; }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
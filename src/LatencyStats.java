@@ -0,0 +1,45 @@
+//Request latency summary: count, mean, max and percentiles from a log2 histogram of microseconds.
+//Fixed size, so a session can record every command for as long as it lives.
+class LatencyStats {
+    private final long[] buckets = new long[40]; //bucket i counts latencies below 2^i microseconds
+    private long count, totalNanos, maxNanos;
+
+    synchronized void record(long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+        int bucket = Math.min(buckets.length - 1, 64 - Long.numberOfLeadingZeros(micros));
+        buckets[bucket]++;
+        count++;
+        totalNanos += nanos;
+        maxNanos = Math.max(maxNanos, nanos);
+    }
+
+    synchronized void merge(LatencyStats other) {
+        synchronized (other) {
+            for (int i = 0; i < buckets.length; i++) buckets[i] += other.buckets[i];
+            count += other.count;
+            totalNanos += other.totalNanos;
+            maxNanos = Math.max(maxNanos, other.maxNanos);
+        }
+    }
+
+    synchronized long getCount() { return count; }
+    synchronized double getMeanMillis() { return count == 0 ? 0 : totalNanos / 1e6 / count; }
+    synchronized double getMaxMillis() { return maxNanos / 1e6; }
+
+    //Upper bound of the bucket holding the p-th percentile (p in 0..100)
+    synchronized double getPercentileMillis(double p) {
+        if (count == 0) return 0;
+        long rank = (long) Math.ceil(count * p / 100.0);
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= rank) return Math.min((1L << i) / 1000.0, getMaxMillis());
+        }
+        return getMaxMillis();
+    }
+
+    synchronized String report() {
+        return String.format("%d commands | avg %.2f ms | p50 ≤%.2f ms | p99 ≤%.2f ms | max %.2f ms",
+                count, getMeanMillis(), getPercentileMillis(50), getPercentileMillis(99), getMaxMillis());
+    }
+}
@@ -0,0 +1,37 @@
+//The cross-pet rankings. column is the maintained aggregate each one sorts by, so a board is an index walk, not a scan:
+//the pet_statistics counters for turns, feeds and plays, and pets.survival_seconds (last played - created) for survival.
+enum Leaderboard {
+    TURNS("🔄 Most turns played", "total_turns", "turns"),
+    FEEDS("🍖 Most feeds", "total_feeds", "feeds"),
+    PLAYS("🎾 Most plays", "total_plays", "plays"),
+    SURVIVAL("⏳ Longest survival", "survival_seconds", "s");
+
+    final String title;
+    final String column;
+    final String unit;
+
+    Leaderboard(String title, String column, String unit) {
+        this.title = title;
+        this.column = column;
+        this.unit = unit;
+    }
+}
+
+//One row of a leaderboard
+final class LeaderboardEntry {
+    final int petId;
+    final String name;
+    final String type;
+    final long value;
+
+    LeaderboardEntry(int petId, String name, String type, long value) {
+        this.petId = petId;
+        this.name = name;
+        this.type = type;
+        this.value = value;
+    }
+
+    String format(Leaderboard board) {
+        return String.format("%s (ID: %d, %s) - %d %s", name, petId, type, value, board.unit);
+    }
+}
@@ -1,8 +1,170 @@
 public class Main {
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--world")) {
+            runWorld(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--server")) {
+            runServer(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--client")) {
+            runClient(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--load")) {
+            runLoad(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--replay")) {
+            runReplay(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--create")) {
+            runCreate(args);
+            return;
+        }
+        if (args.length > 0 && (args[0].equals("--export") || args[0].equals("--import"))) {
+            runTransfer(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--archive")) {
+            runArchive();
+            return;
+        }
         GameEngine game = new GameEngine();
         game.start();
     }
+
+    //Many players in one JVM: java Main --server [port]
+    private static void runServer(String[] args) {
+        if (args.length > 1) System.setProperty("pet.server.port", args[1]);
+        GameServer server = new GameServer(new GameConfig());
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close, "pet-server-shutdown")); //Ctrl+C stops it cleanly
+        try {
+            server.serve();
+        } catch (java.io.IOException e) {
+            System.err.println("❌ Error starting server: " + e.getMessage());
+        }
+    }
+
+    //java Main --client [port]
+    private static void runClient(String[] args) {
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : new GameConfig().serverPort;
+        try {
+            GameClient.interactive(port);
+        } catch (java.io.IOException e) {
+            System.err.println("❌ Error connecting to server: " + e.getMessage());
+        }
+    }
+
+    //java Main --load [sessions] [actions] [port]
+    private static void runLoad(String[] args) {
+        int sessions = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int actions = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        int port = args.length > 3 ? Integer.parseInt(args[3]) : new GameConfig().serverPort;
+        try {
+            GameClient.load(sessions, actions, port);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    //A pet as it was, rebuilt from the event log: java Main --replay <petId> [turn | yyyy-MM-ddTHH:mm:ss (UTC)]
+    //Without a turn or time it shows the newest state the log knows.
+    private static void runReplay(String[] args) {
+        if (args.length < 2) {
+            System.err.println("❌ Usage: java Main --replay <petId> [turn | yyyy-MM-ddTHH:mm:ss]");
+            return;
+        }
+        try (PetEventLog events = new PetEventLog(new GameConfig(), true)) {
+            int petId = Integer.parseInt(args[1]);
+            IPet pet;
+            if (args.length < 3) {
+                pet = events.replayToTurn(petId, Long.MAX_VALUE);
+            } else if (args[2].contains("T")) {
+                long at = java.time.LocalDateTime.parse(args[2]).toInstant(java.time.ZoneOffset.UTC).toEpochMilli();
+                pet = events.replayToTime(petId, at);
+            } else {
+                pet = events.replayToTurn(petId, Long.parseLong(args[2]));
+            }
+            if (pet == null) {
+                System.out.println("(╥‸╥) The event log has nothing on pet " + petId + " that early");
+                return;
+            }
+            System.out.println("📼 Pet " + petId + " (" + events.currentTurn(petId) + " turns logged)");
+            pet.displayStatus();
+        } catch (RuntimeException e) {
+            System.err.println("❌ Error replaying: " + e.getMessage());
+        }
+    }
+
+    //java Main --export <dir> [csv|jsonl]  /  java Main --import <dir>   (uses -Dpet.storage / -Dpet.db.url like the game)
+    private static void runTransfer(String[] args) {
+        if (args.length < 2) {
+            System.err.println("❌ Usage: java Main --export <dir> [csv|jsonl] | --import <dir>");
+            return;
+        }
+        GameConfig config = new GameConfig();
+        try (PetRepository repository = PetRepository.open(config)) {
+            PetTransfer transfer = new PetTransfer(repository, config);
+            java.io.File directory = new java.io.File(args[1]);
+            if (args[0].equals("--export")) {
+                transfer.exportTo(directory, PetTransfer.Format.parse(args.length > 2 ? args[2] : "csv"));
+            } else {
+                transfer.importFrom(directory);
+            }
+        } catch (java.io.IOException e) {
+            System.err.println("❌ Error in " + args[0].substring(2) + ": " + e.getMessage());
+        }
+    }
+
+    //One archiver run now instead of waiting for the schedule: java Main --archive  (-Dpet.archive.* pick the pets)
+    private static void runArchive() {
+        GameServices services = new GameServices(new GameConfig(), 1);
+        try {
+            long started = System.nanoTime();
+            int archived = services.archiver.archiveNow();
+            System.out.printf("🗄️  Archived %d pets in %.1f s%n", archived, (System.nanoTime() - started) / 1e9);
+        } finally {
+            services.close();
+        }
+    }
+
+    //Seeds the pet storage: java Main --create [count] [cat|dragon|mixed]
+    private static void runCreate(String[] args) {
+        int count = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        String type = args.length > 2 ? args[2].toLowerCase() : "mixed";
+        GameConfig config = new GameConfig();
+        try (PetRepository repository = PetRepository.open(config)) {
+            new BulkPetCreator(repository, config).create(java.util.stream.IntStream.range(0, count)
+                    .mapToObj(i -> new PetBuilder().setName("Pet" + i)
+                            .setType(type.equals("mixed") ? (i % 2 == 0 ? "cat" : "dragon") : type)));
+        }
+    }
+
+    //Headless simulation: java Main --world [pets] [steps] [threads]
+    private static void runWorld(String[] args) {
+        int petCount = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        int steps = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        PetConsole.setEnabled(false); //thousands of pets talking at once would only measure System.out
+        PetWorld world = new PetWorld(threads);
+        for (int i = 0; i < petCount; i++) {
+            IPet pet = new PetBuilder().setName("Pet" + i).setType(i % 2 == 0 ? "cat" : "dragon").build();
+            if (i % 3 == 0) pet = new AmuletDecorator(pet);
+            world.add(pet);
+        }
+
+        for (int i = 0; i < steps; i++) {
+            world.step();
+            if ((i + 1) % 10 == 0 || i + 1 == steps) {
+                System.out.println(world.report());
+            }
+        }
+        world.shutdown();
+    }
 }
 //✅ Single Responsibility - Main only starts the application
-//✅ Dependency Inversion - Depends on GameEngin3 abstraction1
\ No newline at end of file
+//✅ Dependency Inversion - Depends on GameEngin3 abstraction
\ No newline at end of file
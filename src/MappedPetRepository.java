@@ -0,0 +1,636 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+//PetRepository without SQL: each pet is a fixed-width record in a memory-mapped file (pets.dat, record id-1 holds pet id),
+//updated in place, and history is appended to a second mapped file (history.dat). A write is a few stores into the
+//page cache - no parsing, no journal. The OS writes the pages back; close() forces them to disk, so a crash of this
+//process loses nothing but a crash of the machine can lose the last few seconds.
+//Ids are never reused, deleted pets keep their record (flagged) and their history rows.
+//Every method is synchronized: one lock is far cheaper than any of the SQL paths it replaces.
+class MappedPetRepository implements PetRepository {
+    private static final int PETS_MAGIC = 0x50455453;    //"PETS"
+    private static final int HISTORY_MAGIC = 0x48495354; //"HIST"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64; //magic, version, record size, then the record count at COUNT_OFFSET
+    private static final int COUNT_OFFSET = 16;
+
+    //pets.dat record layout
+    private static final int PET_RECORD = 96;
+    private static final int P_FLAGS = 0, P_STATE = 1, P_SPECIES = 2, P_NAME_LENGTH = 3, P_HEALTH = 4, P_MAX_HEALTH = 8,
+            P_ENERGY = 12, P_HUNGER = 16, P_HAPPINESS = 20, P_EQUIPMENT = 24, P_CREATED = 32, P_LAST_PLAYED = 40,
+            P_STATISTICS = 48, P_NAME = 64; //statistics: feeds, plays, sleeps, turns as 4 ints
+    private static final int NAME_BYTES = PET_RECORD - P_NAME; //longer names are cut, at a character boundary
+    private static final byte LIVE = 1, DELETED = 2;
+    private static final byte CAT = 0, DRAGON = 1;
+
+    //history.dat record layout
+    private static final int HISTORY_RECORD = 48;
+    private static final int H_PET = 0, H_HEALTH = 4, H_ENERGY = 8, H_HUNGER = 12, H_HAPPINESS = 16, H_TIME = 20,
+            H_ACTION_LENGTH = 28, H_ACTION = 29;
+    private static final int ACTION_BYTES = HISTORY_RECORD - H_ACTION;
+
+    //Same text as SQLite's CURRENT_TIMESTAMP, so PetSummary.lastPlayed means the same with either backend
+    private static final int EXPORT_CHUNK = 1024; //rows copied per lock hold during an export
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final MappedFile pets;
+    private final MappedFile history;
+    private int petCount;      //records in pets.dat, live or deleted = the highest id handed out
+    private long historyCount;
+    private final PetCache cache;
+    private final PetWriteStats writeStats = new PetWriteStats();
+
+    MappedPetRepository(GameConfig config) {
+        this.cache = new PetCache(config.cacheMaxPets);
+        File directory = new File(config.mappedDirectory);
+        try {
+            if (!directory.isDirectory() && !directory.mkdirs()) throw new IOException("cannot create " + directory);
+            this.pets = new MappedFile(new File(directory, "pets.dat"), HEADER_SIZE + 1024L * PET_RECORD);
+            this.history = new MappedFile(new File(directory, "history.dat"), HEADER_SIZE + 16384L * HISTORY_RECORD);
+            this.petCount = (int) pets.open(PETS_MAGIC, PET_RECORD);
+            this.historyCount = history.open(HISTORY_MAGIC, HISTORY_RECORD);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot open pet storage in " + directory + ": " + e.getMessage(), e);
+        }
+        System.out.println("✅ Mapped pet storage opened: " + petCount + " pets, " + historyCount + " history rows");
+    }
+
+    @Override
+    public synchronized int savePet(IPet pet) {
+        try {
+            int petId = store(pet);
+            pets.setCount(petCount);
+            cache.putPet(recordAt(petId));
+            PetConsole.out().println("💾 Pet saved with ID: " + petId);
+            return petId;
+        } catch (IOException e) {
+            System.err.println("❌ Error saving pet: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    //No transactions to batch here: the records are written one after the other and the count is published once
+    @Override
+    public synchronized int savePets(List<IPet> newPets) {
+        int stored = 0;
+        try {
+            for (IPet pet : newPets) {
+                store(pet);
+                stored++;
+            }
+        } catch (IOException e) {
+            System.err.println("❌ Error saving pets: " + e.getMessage());
+        }
+        pets.setCount(petCount); //the pets stored before a failure are kept
+        return stored;
+    }
+
+    //Writes the pet into the next record and gives it that id; the caller publishes the new count
+    private int store(IPet pet) throws IOException {
+        int petId = petCount + 1;
+        int at = petOffset(petId);
+        MappedByteBuffer buffer = pets.ensure(at + PET_RECORD);
+        long now = now();
+        byte[] name = fit(pet.getName(), NAME_BYTES);
+
+        buffer.put(at + P_STATE, (byte) pet.getState().getCode());
+        buffer.put(at + P_SPECIES, pet.getSpecies().contains("Dragon") ? DRAGON : CAT);
+        buffer.put(at + P_NAME_LENGTH, (byte) name.length);
+        buffer.putInt(at + P_HEALTH, pet.getHealth());
+        buffer.putInt(at + P_MAX_HEALTH, pet.getMaxHealth() - pet.getLoadout().maxHealthBonus); //base, like the SQL row
+        buffer.putInt(at + P_ENERGY, pet.getEnergy());
+        buffer.putInt(at + P_HUNGER, pet.getHunger());
+        buffer.putInt(at + P_HAPPINESS, pet.getHappiness());
+        buffer.putLong(at + P_EQUIPMENT, pet.getLoadout().bits);
+        buffer.putLong(at + P_CREATED, now);
+        buffer.putLong(at + P_LAST_PLAYED, now);
+        for (int i = 0; i < 4; i++) buffer.putInt(at + P_STATISTICS + 4 * i, 0);
+        buffer.put(at + P_NAME, name);
+        buffer.put(at + P_FLAGS, LIVE); //last, so a half-written record is never live
+
+        petCount = petId;
+        pet.setPetId(petId);
+        pet.clearDirtyFields(IPet.DIRTY_ALL);
+        return petId;
+    }
+
+    @Override
+    public synchronized void updatePet(IPet pet) {
+        int dirty = pet.getDirtyFields();
+        if (dirty == 0 || !isLive(pet.getPetId())) {
+            writeStats.recordSkipped();
+            return;
+        }
+        writePet(WriteBatch.PetSnapshot.of(pet, dirty));
+        pet.clearDirtyFields(dirty);
+    }
+
+    //Only the dirty fields are stored - the rest of the record stays as it is
+    private void writePet(WriteBatch.PetSnapshot pet) {
+        MappedByteBuffer buffer = pets.buffer;
+        int at = petOffset(pet.petId());
+        int dirty = pet.dirtyFields();
+        if ((dirty & IPet.DIRTY_HEALTH) != 0) buffer.putInt(at + P_HEALTH, pet.health());
+        if ((dirty & IPet.DIRTY_ENERGY) != 0) buffer.putInt(at + P_ENERGY, pet.energy());
+        if ((dirty & IPet.DIRTY_HUNGER) != 0) buffer.putInt(at + P_HUNGER, pet.hunger());
+        if ((dirty & IPet.DIRTY_HAPPINESS) != 0) buffer.putInt(at + P_HAPPINESS, pet.happiness());
+        if ((dirty & IPet.DIRTY_STATE) != 0) buffer.put(at + P_STATE, (byte) pet.stateCode());
+        if ((dirty & IPet.DIRTY_DECORATORS) != 0) buffer.putLong(at + P_EQUIPMENT, pet.loadout().bits);
+        long now = now();
+        buffer.putLong(at + P_LAST_PLAYED, now);
+        writeStats.recordWrite(dirty);
+        cache.petWritten(pet, formatTimestamp(now));
+    }
+
+    @Override
+    public synchronized void logAction(int petId, String action, IPet pet) {
+        try {
+            appendHistory(petId, action, pet.getHealth(), pet.getEnergy(), pet.getHunger(), pet.getHappiness(), now());
+        } catch (IOException e) {
+            System.err.println("❌ Error logging action: " + e.getMessage());
+        }
+    }
+
+    private void appendHistory(int petId, String action, int health, int energy, int hunger, int happiness, long time)
+            throws IOException {
+        long at = HEADER_SIZE + historyCount * HISTORY_RECORD;
+        MappedByteBuffer buffer = history.ensure(at + HISTORY_RECORD);
+        int row = (int) at;
+        byte[] text = fit(action, ACTION_BYTES);
+        buffer.putInt(row + H_PET, petId);
+        buffer.putInt(row + H_HEALTH, health);
+        buffer.putInt(row + H_ENERGY, energy);
+        buffer.putInt(row + H_HUNGER, hunger);
+        buffer.putInt(row + H_HAPPINESS, happiness);
+        buffer.putLong(row + H_TIME, time);
+        buffer.put(row + H_ACTION_LENGTH, (byte) text.length);
+        buffer.put(row + H_ACTION, text);
+        historyCount++;
+        history.setCount(historyCount); //after the row, so a reader of the file never sees a half-written one
+    }
+
+    @Override
+    public synchronized void updateStatistics(int petId, String action) {
+        int column = WriteBatch.statisticIndex(action);
+        if (column >= 0 && isLive(petId)) {
+            int at = petOffset(petId) + P_STATISTICS + 4 * column;
+            pets.buffer.putInt(at, pets.buffer.getInt(at) + 1);
+        }
+    }
+
+    @Override
+    public synchronized boolean writeBatch(WriteBatch batch) {
+        if (batch.isEmpty()) return true;
+        int appended = 0;
+        try {
+            long now = now();
+            for (WriteBatch.ActionSnapshot action : batch.actions) {
+                appendHistory(action.petId(), action.action(), action.health(), action.energy(), action.hunger(),
+                        action.happiness(), now);
+                appended++;
+            }
+        } catch (IOException e) {
+            System.err.println("❌ Error writing batch: " + e.getMessage());
+        }
+        for (var entry : batch.statisticDeltas.entrySet()) {
+            if (!isLive(entry.getKey())) continue;
+            int at = petOffset(entry.getKey()) + P_STATISTICS;
+            int[] delta = entry.getValue();
+            for (int i = 0; i < delta.length; i++) {
+                pets.buffer.putInt(at + 4 * i, pets.buffer.getInt(at + 4 * i) + delta[i]);
+            }
+        }
+        for (WriteBatch.PetSnapshot pet : batch.petUpdates.values()) {
+            if (!isLive(pet.petId())) continue;
+            writePet(pet);
+        }
+        if (appended == batch.actions.size()) return true;
+        //Statistics and pets went into the mapped file; what is left for the caller is the history the log didn't take
+        batch.actions.subList(0, appended).clear();
+        batch.statisticDeltas.clear();
+        return false;
+    }
+
+    @Override
+    public synchronized PetRecord loadPet(int petId) {
+        PetRecord cached = cache.getPet(petId);
+        if (cached != null) return cached;
+        if (!isLive(petId)) return null;
+
+        PetRecord record = recordAt(petId);
+        cache.putPet(record);
+        PetConsole.out().println("📂 Loaded pet: " + record.name());
+        return record;
+    }
+
+    private PetRecord recordAt(int petId) {
+        MappedByteBuffer buffer = pets.buffer;
+        int at = petOffset(petId);
+        return new PetRecord(petId, name(at), buffer.get(at + P_SPECIES) == DRAGON, buffer.getInt(at + P_HEALTH),
+                buffer.getInt(at + P_MAX_HEALTH), buffer.getInt(at + P_ENERGY), buffer.getInt(at + P_HUNGER),
+                buffer.getInt(at + P_HAPPINESS), buffer.get(at + P_STATE), buffer.getLong(at + P_EQUIPMENT),
+                formatTimestamp(buffer.getLong(at + P_LAST_PLAYED)));
+    }
+
+    @Override
+    public synchronized void deletePet(int petId) {
+        if (deletePets(List.of(petId)) > 0) PetConsole.out().println("🗑️  Pet deleted");
+    }
+
+    //Flags the records; their history rows stay in the append-only segment
+    @Override
+    public synchronized int deletePets(List<Integer> petIds) {
+        int deleted = 0;
+        for (int petId : petIds) {
+            if (!isLive(petId)) continue;
+            pets.buffer.put(petOffset(petId) + P_FLAGS, DELETED);
+            cache.invalidate(petId);
+            deleted++;
+        }
+        return deleted;
+    }
+
+    //There is no archive store next to the mapped files, so nothing is ever archived or reclaimed here
+    @Override
+    public List<Integer> archiveCandidates(int deadGraceHours, int inactiveDays, int limit) {
+        return new ArrayList<>();
+    }
+
+    @Override
+    public int archivePets(List<Integer> petIds) {
+        return 0;
+    }
+
+    @Override
+    public int reclaimSpace(int pages) {
+        return 0;
+    }
+
+    //There is no index on last_played here: every page sorts the live records. Fine for menus, not for millions of pets.
+    @Override
+    public synchronized List<PetSummary> listPets(PetSummary after, int limit) {
+        long afterTime = after == null ? Long.MAX_VALUE : parseTimestamp(after.lastPlayed);
+        int afterId = after == null ? Integer.MAX_VALUE : after.id;
+        List<long[]> rows = new ArrayList<>(); //{last played, id}
+        for (int id = 1; id <= petCount; id++) {
+            if (!isLive(id)) continue;
+            long lastPlayed = pets.buffer.getLong(petOffset(id) + P_LAST_PLAYED);
+            if (lastPlayed < afterTime || (lastPlayed == afterTime && id < afterId)) {
+                rows.add(new long[] {lastPlayed, id});
+            }
+        }
+        rows.sort((a, b) -> a[0] != b[0] ? Long.compare(b[0], a[0]) : Long.compare(b[1], a[1]));
+
+        List<PetSummary> page = new ArrayList<>();
+        for (int i = 0; i < rows.size() && i < limit; i++) {
+            int id = (int) rows.get(i)[1];
+            int at = petOffset(id);
+            String species = pets.buffer.get(at + P_SPECIES) == DRAGON ? Dragon.SPECIES : Cat.SPECIES;
+            page.add(new PetSummary(id, name(at), species + Loadout.of(pets.buffer.getLong(at + P_EQUIPMENT)).typeSuffix,
+                    pets.buffer.getInt(at + P_HEALTH), formatTimestamp(rows.get(i)[0])));
+        }
+        return page;
+    }
+
+    @Override
+    public List<String> getSavedPets() {
+        List<String> summaries = new ArrayList<>();
+        for (PetSummary summary : listPets(null, Integer.MAX_VALUE)) {
+            summaries.add(summary.toString());
+        }
+        return summaries;
+    }
+
+    @Override
+    public synchronized int countPets() {
+        int live = 0;
+        for (int id = 1; id <= petCount; id++) {
+            if (isLive(id)) live++;
+        }
+        return live;
+    }
+
+    @Override
+    public synchronized PetStatistics getStatistics(int petId) {
+        if (!isLive(petId)) return null;
+        int at = petOffset(petId) + P_STATISTICS;
+        return new PetStatistics(pets.buffer.getInt(at), pets.buffer.getInt(at + 4), pets.buffer.getInt(at + 8),
+                pets.buffer.getInt(at + 12));
+    }
+
+    //No indexes here either: one pass over the live records, keeping the best 'limit' in a small heap
+    @Override
+    public synchronized List<LeaderboardEntry> leaderboard(Leaderboard board, int limit) {
+        java.util.PriorityQueue<long[]> top = new java.util.PriorityQueue<>( //{value, id}, worst on top
+                (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+        for (int id = 1; id <= petCount && limit > 0; id++) {
+            if (!isLive(id)) continue;
+            top.add(new long[] {leaderboardValue(board, petOffset(id)), id});
+            if (top.size() > limit) top.poll();
+        }
+
+        List<LeaderboardEntry> entries = new ArrayList<>();
+        while (!top.isEmpty()) {
+            long[] row = top.poll();
+            int at = petOffset((int) row[1]);
+            String species = pets.buffer.get(at + P_SPECIES) == DRAGON ? Dragon.SPECIES : Cat.SPECIES;
+            entries.add(0, new LeaderboardEntry((int) row[1], name(at),
+                    species + Loadout.of(pets.buffer.getLong(at + P_EQUIPMENT)).typeSuffix, row[0]));
+        }
+        return entries;
+    }
+
+    private long leaderboardValue(Leaderboard board, int at) {
+        MappedByteBuffer buffer = pets.buffer;
+        return switch (board) {
+            case TURNS -> buffer.getInt(at + P_STATISTICS + 12);
+            case FEEDS -> buffer.getInt(at + P_STATISTICS);
+            case PLAYS -> buffer.getInt(at + P_STATISTICS + 4);
+            case SURVIVAL -> buffer.getLong(at + P_LAST_PLAYED) - buffer.getLong(at + P_CREATED);
+        };
+    }
+
+    @Override
+    public void displayStatistics(int petId) {
+        PetStatistics stats = getStatistics(petId);
+        if (stats != null) {
+            PetConsole.out().println("\n📊 Pet Statistics:");
+            PetConsole.out().println("   🍖 Total Feeds: " + stats.totalFeeds);
+            PetConsole.out().println("   🎾 Total Plays: " + stats.totalPlays);
+            PetConsole.out().println("   😴 Total Sleeps: " + stats.totalSleeps);
+            PetConsole.out().println("   🔄 Total Turns: " + stats.totalTurns);
+        }
+    }
+
+    //Walks the history segment backwards from the newest row - no per-pet index, so an old pet costs a long scan
+    @Override
+    public synchronized void displayRecentHistory(int petId, int limit) {
+        MappedByteBuffer buffer = history.buffer;
+        PetConsole.out().println("\n📜 Recent Activity:");
+        int shown = 0;
+        for (long i = historyCount - 1; i >= 0 && shown < limit; i--) {
+            int row = (int) (HEADER_SIZE + i * HISTORY_RECORD);
+            if (buffer.getInt(row + H_PET) != petId) continue;
+            byte[] action = new byte[buffer.get(row + H_ACTION_LENGTH)];
+            buffer.get(row + H_ACTION, action);
+            PetConsole.out().printf("   %s - %s (HP:%d E:%d H:%d Happiness:%d)%n",
+                    formatTimestamp(buffer.getLong(row + H_TIME)),
+                    new String(action, StandardCharsets.UTF_8),
+                    buffer.getInt(row + H_HEALTH),
+                    buffer.getInt(row + H_ENERGY),
+                    buffer.getInt(row + H_HUNGER),
+                    buffer.getInt(row + H_HAPPINESS));
+            shown++;
+        }
+    }
+
+    //The history segment is append-only, so there is nothing to roll up or delete
+    @Override
+    public int compactHistory(int retentionDays, int chunkRows) {
+        return 0;
+    }
+
+    @Override
+    public PetWriteStats getWriteStats() { return writeStats; }
+
+    @Override
+    public synchronized String report() {
+        return String.format("🗄️  Mapped storage: %d pets (%d KiB mapped) | %d history rows (%d KiB mapped)",
+                petCount, pets.buffer.capacity() / 1024, historyCount, history.buffer.capacity() / 1024);
+    }
+
+    //Rows are copied out EXPORT_CHUNK at a time under the lock and handed to the sink after it is released,
+    //so a long export never holds up the game for more than one chunk
+    @Override
+    public long exportPets(Consumer<PetTransfer.PetRow> sink) {
+        long rows = 0;
+        int next = 1;
+        List<PetTransfer.PetRow> chunk = new ArrayList<>(EXPORT_CHUNK);
+        while (true) {
+            chunk.clear();
+            next = petChunk(next, chunk);
+            if (chunk.isEmpty()) return rows;
+            chunk.forEach(sink);
+            rows += chunk.size();
+        }
+    }
+
+    //Live pets from id 'from' on, until the chunk is full. Returns the id to continue at.
+    private synchronized int petChunk(int from, List<PetTransfer.PetRow> chunk) {
+        MappedByteBuffer buffer = pets.buffer;
+        int id = from;
+        for (; id <= petCount && chunk.size() < EXPORT_CHUNK; id++) {
+            if (!isLive(id)) continue;
+            int at = petOffset(id);
+            Loadout loadout = Loadout.of(buffer.getLong(at + P_EQUIPMENT));
+            String species = buffer.get(at + P_SPECIES) == DRAGON ? Dragon.SPECIES : Cat.SPECIES;
+            int stats = at + P_STATISTICS;
+            chunk.add(new PetTransfer.PetRow(id, name(at), species + loadout.typeSuffix, buffer.getInt(at + P_HEALTH),
+                    buffer.getInt(at + P_MAX_HEALTH), buffer.getInt(at + P_ENERGY), buffer.getInt(at + P_HUNGER),
+                    buffer.getInt(at + P_HAPPINESS), IPetState.forCode(buffer.get(at + P_STATE)).getStateName(),
+                    loadout.names, loadout.bits, formatTimestamp(buffer.getLong(at + P_CREATED)),
+                    formatTimestamp(buffer.getLong(at + P_LAST_PLAYED)), buffer.getInt(stats),
+                    buffer.getInt(stats + 4), buffer.getInt(stats + 8), buffer.getInt(stats + 12)));
+        }
+        return id;
+    }
+
+    //history.dat rows have no id of their own: the export numbers them from 1 in file order
+    @Override
+    public long exportHistory(Consumer<PetTransfer.HistoryRow> sink) {
+        long next = 0;
+        List<PetTransfer.HistoryRow> chunk = new ArrayList<>(EXPORT_CHUNK);
+        while (true) {
+            chunk.clear();
+            next = historyChunk(next, chunk);
+            if (chunk.isEmpty()) return next;
+            chunk.forEach(sink);
+        }
+    }
+
+    private synchronized long historyChunk(long from, List<PetTransfer.HistoryRow> chunk) {
+        MappedByteBuffer buffer = history.buffer;
+        long i = from;
+        for (; i < historyCount && chunk.size() < EXPORT_CHUNK; i++) {
+            int row = (int) (HEADER_SIZE + i * HISTORY_RECORD);
+            byte[] action = new byte[buffer.get(row + H_ACTION_LENGTH)];
+            buffer.get(row + H_ACTION, action);
+            chunk.add(new PetTransfer.HistoryRow(i + 1, buffer.getInt(row + H_PET), new String(action, StandardCharsets.UTF_8),
+                    formatTimestamp(buffer.getLong(row + H_TIME)), buffer.getInt(row + H_HEALTH),
+                    buffer.getInt(row + H_ENERGY), buffer.getInt(row + H_HUNGER), buffer.getInt(row + H_HAPPINESS)));
+        }
+        return i;
+    }
+
+    //Writes each pet into the record of its id, growing the file past petCount if needed; the ids in between stay empty
+    @Override
+    public synchronized void importPets(List<PetTransfer.PetRow> rows) {
+        try {
+            for (PetTransfer.PetRow row : rows) {
+                if (row.id() < 1) continue;
+                int at = petOffset(row.id());
+                MappedByteBuffer buffer = pets.ensure(at + PET_RECORD);
+                byte[] name = fit(row.name(), NAME_BYTES);
+                long equipment = row.equipment() != 0 ? row.equipment() : Loadout.fromNames(row.decorators()).bits;
+
+                buffer.put(at + P_FLAGS, (byte) 0); //not live while half written
+                buffer.put(at + P_STATE, (byte) IPetState.forName(row.state()).getCode());
+                buffer.put(at + P_SPECIES, row.type().contains("Dragon") ? DRAGON : CAT);
+                buffer.put(at + P_NAME_LENGTH, (byte) name.length);
+                buffer.putInt(at + P_HEALTH, row.health());
+                buffer.putInt(at + P_MAX_HEALTH, row.maxHealth());
+                buffer.putInt(at + P_ENERGY, row.energy());
+                buffer.putInt(at + P_HUNGER, row.hunger());
+                buffer.putInt(at + P_HAPPINESS, row.happiness());
+                buffer.putLong(at + P_EQUIPMENT, equipment);
+                buffer.putLong(at + P_CREATED, timestampOrNow(row.createdAt()));
+                buffer.putLong(at + P_LAST_PLAYED, timestampOrNow(row.lastPlayed()));
+                buffer.putInt(at + P_STATISTICS, row.totalFeeds());
+                buffer.putInt(at + P_STATISTICS + 4, row.totalPlays());
+                buffer.putInt(at + P_STATISTICS + 8, row.totalSleeps());
+                buffer.putInt(at + P_STATISTICS + 12, row.totalTurns());
+                buffer.put(at + P_NAME, name);
+                buffer.put(at + P_FLAGS, LIVE);
+                petCount = Math.max(petCount, row.id());
+                cache.invalidate(row.id());
+            }
+            pets.setCount(petCount);
+        } catch (IOException e) {
+            System.err.println("❌ Error importing pets: " + e.getMessage());
+        }
+    }
+
+    //Appended in the order given; the ids of the rows are not kept (history.dat has none)
+    @Override
+    public synchronized void importHistory(List<PetTransfer.HistoryRow> rows) {
+        try {
+            for (PetTransfer.HistoryRow row : rows) {
+                appendHistory(row.petId(), row.action(), row.health(), row.energy(), row.hunger(), row.happiness(),
+                        timestampOrNow(row.timestamp()));
+            }
+        } catch (IOException e) {
+            System.err.println("❌ Error importing history: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            pets.close();
+            history.close();
+            System.out.println("🔒 Mapped pet storage closed");
+        } catch (IOException e) {
+            System.err.println("❌ Error closing mapped storage: " + e.getMessage());
+        }
+    }
+
+    private boolean isLive(int petId) {
+        return petId >= 1 && petId <= petCount && pets.buffer.get(petOffset(petId) + P_FLAGS) == LIVE;
+    }
+
+    private static int petOffset(int petId) {
+        return HEADER_SIZE + (petId - 1) * PET_RECORD;
+    }
+
+    private String name(int at) {
+        byte[] bytes = new byte[pets.buffer.get(at + P_NAME_LENGTH)];
+        pets.buffer.get(at + P_NAME, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    //UTF-8 bytes of text, cut to at most max bytes without splitting a character
+    private static byte[] fit(String text, int max) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= max) return bytes;
+        int end = max;
+        while (end > 0 && (bytes[end] & 0xC0) == 0x80) end--; //bytes[end] continues a character that starts earlier
+        return Arrays.copyOf(bytes, end);
+    }
+
+    private static long now() {
+        return System.currentTimeMillis() / 1000;
+    }
+
+    private static String formatTimestamp(long epochSeconds) {
+        return LocalDateTime.ofEpochSecond(epochSeconds, 0, ZoneOffset.UTC).format(TIMESTAMP_FORMAT);
+    }
+
+    private static long parseTimestamp(String text) {
+        return LocalDateTime.parse(text, TIMESTAMP_FORMAT).toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static long timestampOrNow(String text) {
+        if (text == null) return now();
+        try {
+            return parseTimestamp(text.length() > 19 ? text.substring(0, 19) : text); //drops SQLite's optional .SSS
+        } catch (DateTimeParseException e) {
+            System.err.println("❌ Invalid timestamp " + text + " - using now");
+            return now();
+        }
+    }
+
+    //One file mapped read-write from offset 0, with a small header. Mapping past the end grows the file, so the
+    //file is preallocated in doubling steps; the record count in the header says how much of it is used.
+    private static final class MappedFile {
+        private final File path;
+        private final RandomAccessFile file;
+        private final FileChannel channel;
+        MappedByteBuffer buffer;
+
+        MappedFile(File path, long initialSize) throws IOException {
+            this.path = path;
+            this.file = new RandomAccessFile(path, "rw");
+            this.channel = file.getChannel();
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(initialSize, channel.size()));
+        }
+
+        //Checks (or, for a new file, writes) the header and returns the record count
+        long open(int magic, int recordSize) throws IOException {
+            int found = buffer.getInt(0);
+            if (found == 0) {
+                buffer.putInt(0, magic);
+                buffer.putInt(4, VERSION);
+                buffer.putInt(8, recordSize);
+                buffer.putLong(COUNT_OFFSET, 0);
+                return 0;
+            }
+            if (found != magic || buffer.getInt(4) != VERSION || buffer.getInt(8) != recordSize) {
+                throw new IOException(path + " is not a version " + VERSION + " pet storage file");
+            }
+            return buffer.getLong(COUNT_OFFSET);
+        }
+
+        void setCount(long count) {
+            buffer.putLong(COUNT_OFFSET, count);
+        }
+
+        //A single mapping is limited to 2 GiB
+        MappedByteBuffer ensure(long size) throws IOException {
+            if (size > buffer.capacity()) {
+                if (size > Integer.MAX_VALUE) throw new IOException(path + " is full (2 GiB)");
+                long grown = Math.min(Integer.MAX_VALUE, Math.max(size, 2L * buffer.capacity()));
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, grown);
+            }
+            return buffer;
+        }
+
+        void close() throws IOException {
+            buffer.force();
+            channel.close();
+            file.close();
+        }
+    }
+}
+//✅ Liskov Substitution - the game runs the same on either PetRepository
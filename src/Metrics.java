@@ -0,0 +1,187 @@
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import javax.management.ObjectName;
+
+//Process-wide counters, gauges and latency timers, off unless started with -Dpet.metrics=true.
+//Instrumented code keeps its metrics in static final fields and calls them unconditionally: ENABLED is a constant,
+//so with metrics off the JIT drops the recording code and a timed call costs nothing but the branch.
+//With metrics on, the registry is visible over JMX as VirtualPet:type=Metrics and is printed every
+//pet.metrics.dumpSeconds (to pet.metrics.file when set, System.out otherwise).
+final class Metrics {
+    static final boolean ENABLED = GameConfig.booleanProperty("pet.metrics", false);
+
+    private static final Map<String, Object> REGISTRY = new ConcurrentHashMap<>(); //Counter, Timer or LongSupplier (gauge)
+    private static ScheduledExecutorService reporter;
+
+    private Metrics() {}
+
+    static {
+        if (ENABLED) publish();
+    }
+
+    static Counter counter(String name) {
+        return (Counter) REGISTRY.computeIfAbsent(name, key -> new Counter());
+    }
+
+    static Timer timer(String name) {
+        return (Timer) REGISTRY.computeIfAbsent(name, key -> new Timer());
+    }
+
+    //A value read when the metrics are dumped or queried, e.g. a queue length. The latest registration wins.
+    static void gauge(String name, LongSupplier value) {
+        if (ENABLED) REGISTRY.put(name, value);
+    }
+
+    //Start time for Timer.stop - 0 without reading the clock when metrics are off
+    static long start() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    //Every metric by name, in name order
+    static Map<String, Object> snapshot() {
+        return new TreeMap<>(REGISTRY);
+    }
+
+    //Counters and gauges as one value, timers as their summary line. Counters and timers that never fired are left out.
+    static String dump() {
+        StringBuilder text = new StringBuilder("📈 Metrics\n");
+        for (Map.Entry<String, Object> entry : snapshot().entrySet()) {
+            Object metric = entry.getValue();
+            String value;
+            if (metric instanceof Counter counter) {
+                if (counter.get() == 0) continue;
+                value = String.valueOf(counter.get());
+            } else if (metric instanceof Timer timer) {
+                if (timer.getCount() == 0) continue;
+                value = timer.summary();
+            } else {
+                value = String.valueOf(((LongSupplier) metric).getAsLong());
+            }
+            text.append(String.format("   %-32s %s%n", entry.getKey(), value));
+        }
+        return text.toString();
+    }
+
+    private static void publish() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsMBean(), new ObjectName(MetricsMBean.NAME));
+        } catch (Exception e) {
+            System.err.println("❌ Error registering metrics MBean: " + e.getMessage());
+        }
+
+        long dumpSeconds = GameConfig.longProperty("pet.metrics.dumpSeconds", 60); //0 = only over JMX
+        if (dumpSeconds <= 0) return;
+        PrintStream target = dumpTarget(GameConfig.stringProperty("pet.metrics.file", ""));
+        reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "pet-metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleAtFixedRate(() -> target.print(dump()), dumpSeconds, dumpSeconds, TimeUnit.SECONDS);
+    }
+
+    private static PrintStream dumpTarget(String file) {
+        if (file.isEmpty()) return System.out;
+        try {
+            return new PrintStream(new FileOutputStream(file, true), true, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            System.err.println("❌ Error opening metrics file " + file + ": " + e.getMessage() + " - using System.out");
+            return System.out;
+        }
+    }
+
+    //A monotonically increasing count. LongAdder, so threads counting the same event don't contend.
+    static final class Counter {
+        private final LongAdder value = new LongAdder();
+
+        void increment() {
+            if (ENABLED) value.increment();
+        }
+
+        void add(long amount) {
+            if (ENABLED) value.add(amount);
+        }
+
+        long get() { return value.sum(); }
+    }
+
+    //Latency histogram in the HdrHistogram layout: values below 16 ns get their own bucket, every power of two above
+    //that is split into 16 linear sub-buckets. So any recorded value is known to within 1/16 (6.25%), from
+    //nanoseconds up to 2^41 ns (36 minutes, longer values are clamped), in 608 lock-free counters.
+    static final class Timer {
+        private static final int SUB_BITS = 4;
+        private static final int SUB_BUCKETS = 1 << SUB_BITS;
+        private static final long MAX_VALUE = (1L << 41) - 1;
+        private static final int BUCKETS = index(MAX_VALUE) + 1;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        //Records the time since 'started' (from Metrics.start())
+        void stop(long started) {
+            if (ENABLED) record(System.nanoTime() - started);
+        }
+
+        void record(long nanos) {
+            if (!ENABLED) return;
+            long value = Math.max(0, Math.min(MAX_VALUE, nanos));
+            buckets.incrementAndGet(index(value));
+            count.increment();
+            totalNanos.add(value);
+            maxNanos.accumulateAndGet(value, Math::max);
+        }
+
+        private static int index(long value) {
+            if (value < SUB_BUCKETS) return (int) value;
+            int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+            int sub = (int) (value >>> shift) - SUB_BUCKETS; //the 4 bits after the leading one
+            return SUB_BUCKETS + shift * SUB_BUCKETS + sub;
+        }
+
+        //Highest value that lands in the bucket
+        private static long upperBound(int index) {
+            if (index < SUB_BUCKETS) return index;
+            int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+            int sub = (index - SUB_BUCKETS) % SUB_BUCKETS;
+            return ((long) (SUB_BUCKETS + sub + 1) << shift) - 1;
+        }
+
+        long getCount() { return count.sum(); }
+        double getMeanMicros() { long n = count.sum(); return n == 0 ? 0 : totalNanos.sum() / 1e3 / n; }
+        double getMaxMicros() { return maxNanos.get() / 1e3; }
+
+        //p in 0..100. Read while other threads record, so the buckets may be a few counts ahead of 'count'.
+        double getPercentileMicros(double p) {
+            long n = count.sum();
+            if (n == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(n * p / 100.0));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets.get(i);
+                if (seen >= rank) return Math.min(upperBound(i), maxNanos.get()) / 1e3;
+            }
+            return getMaxMicros();
+        }
+
+        String summary() {
+            return String.format("%d calls | avg %.1f µs | p50 %.1f µs | p99 %.1f µs | p99.9 %.1f µs | max %.1f µs",
+                    getCount(), getMeanMicros(), getPercentileMicros(50), getPercentileMicros(99),
+                    getPercentileMicros(99.9), getMaxMicros());
+        }
+    }
+}
@@ -0,0 +1,91 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanParameterInfo;
+import javax.management.ReflectionException;
+
+//The Metrics registry as one JMX bean (jconsole: VirtualPet > Metrics). Attributes are built from the registry on every
+//request, so metrics registered after startup show up too: counters and gauges as a Long, timers as
+//<name>.count / .meanMicros / .p50Micros / .p99Micros / .maxMicros. The dump operation returns the text report.
+class MetricsMBean implements DynamicMBean {
+    static final String NAME = "VirtualPet:type=Metrics";
+    private static final String[] TIMER_FIELDS = {"count", "meanMicros", "p50Micros", "p99Micros", "maxMicros"};
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        Map<String, Object> metrics = Metrics.snapshot();
+        Object metric = metrics.get(attribute);
+        if (metric instanceof Metrics.Counter counter) return counter.get();
+        if (metric instanceof LongSupplier gauge) return gauge.getAsLong();
+
+        int dot = attribute.lastIndexOf('.');
+        if (dot > 0 && metrics.get(attribute.substring(0, dot)) instanceof Metrics.Timer timer) {
+            switch (attribute.substring(dot + 1)) {
+                case "count": return timer.getCount();
+                case "meanMicros": return timer.getMeanMicros();
+                case "p50Micros": return timer.getPercentileMicros(50);
+                case "p99Micros": return timer.getPercentileMicros(99);
+                case "maxMicros": return timer.getMaxMicros();
+                default: break;
+            }
+        }
+        throw new AttributeNotFoundException(attribute);
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        AttributeList values = new AttributeList();
+        for (String name : attributes) {
+            try {
+                values.add(new Attribute(name, getAttribute(name)));
+            } catch (AttributeNotFoundException e) {
+                //JMX convention: unknown names are left out of the list
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException(attribute.getName() + " is read-only");
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList(); //every attribute is read-only
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+        if (actionName.equals("dump")) return Metrics.dump();
+        throw new ReflectionException(new NoSuchMethodException(actionName));
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        List<MBeanAttributeInfo> attributes = new ArrayList<>();
+        for (Map.Entry<String, Object> entry : Metrics.snapshot().entrySet()) {
+            String name = entry.getKey();
+            if (entry.getValue() instanceof Metrics.Timer) {
+                for (String field : TIMER_FIELDS) {
+                    String type = field.equals("count") ? Long.class.getName() : Double.class.getName();
+                    attributes.add(new MBeanAttributeInfo(name + "." + field, type, name + " " + field, true, false, false));
+                }
+            } else {
+                attributes.add(new MBeanAttributeInfo(name, Long.class.getName(), name, true, false, false));
+            }
+        }
+        MBeanOperationInfo dump = new MBeanOperationInfo("dump", "Every metric as text", new MBeanParameterInfo[0],
+                String.class.getName(), MBeanOperationInfo.INFO);
+        return new MBeanInfo(getClass().getName(), "Virtual pet engine and database metrics",
+                attributes.toArray(new MBeanAttributeInfo[0]), null, new MBeanOperationInfo[] {dump}, null);
+    }
+}
@@ -1,7 +1,19 @@
 abstract class Pet implements IPet {
-    protected String name,decorators = "";
+    private static final Metrics.Timer FEED_TIMER = Metrics.timer("pet.feed");
+    private static final Metrics.Timer PLAY_TIMER = Metrics.timer("pet.play");
+    private static final Metrics.Timer SLEEP_TIMER = Metrics.timer("pet.sleep");
+    private static final Metrics.Timer TICK_TIMER = Metrics.timer("pet.tick");
+    private static final Metrics.Counter[][] TRANSITIONS = transitionCounters(); //[from code][to code]
+
+    protected String name;
+    protected Loadout loadout = Loadout.EMPTY; //equipped items with their bonuses already summed
     protected int health,energy,hunger,happiness,maxHealth, petId=-1;
+    protected int sleepTurns; //turns spent in a state that counts them (a nap) - kept here so states can be shared by all pets
     protected IPetState currentState;
+    boolean replayed; //rebuilt by PetEventLog: its ticks and actions are a replay, not play, so they stay out of the metrics
+    protected int dirtyFields = DIRTY_ALL; //a new pet has never been written; setters only mark a field when its value really changes
+    private volatile int returnedFields; //markDirty from the persistence threads - kept apart so it never races the setters
+    private static final java.lang.invoke.VarHandle RETURNED_FIELDS = returnedFieldsHandle();
     //State Pattern - current behavior state.Polymorphism - holds any IPetState implementation
 
     protected Pet(String name, int health, int energy, int hunger, int happiness) {
@@ -11,7 +23,7 @@ abstract class Pet implements IPet {
         this.energy = energy;
         this.hunger = hunger;
         this.happiness = happiness;
-        this.currentState = new HappyState(); //Default state - all pets start happy .State Pattern initialization
+        this.currentState = IPetState.forCode(IPetState.HAPPY); //Default state - all pets start happy .State Pattern initialization
     }
 
     @Override
@@ -25,87 +37,175 @@ abstract class Pet implements IPet {
     @Override
     public int getHappiness() { return happiness; }
     @Override
-    public int getMaxHealth() { return maxHealth; }
+    public int getMaxHealth() { return maxHealth + loadout.maxHealthBonus; }
+    @Override
+    public String getType() { return getSpecies() + loadout.typeSuffix; }
     @Override
     public int getPetId() { return petId; }
     @Override
     public void setPetId(int id) { this.petId = id; }
     @Override
-    public String getDecorators() { return decorators; }
+    public String getDecorators() { return loadout.names; }
+    @Override
+    public void setDecorators(String decorators) { setLoadout(Loadout.fromNames(decorators)); }
+    @Override
+    public Loadout getLoadout() { return loadout; }
+
+    @Override
+    public void setLoadout(Loadout loadout) {
+        if (this.loadout.bits != loadout.bits) {
+            this.loadout = loadout;
+            dirtyFields |= DIRTY_DECORATORS;
+        }
+    }
+
     @Override
-    public void setDecorators(String decorators) {
-        this.decorators = decorators;
+    public boolean equip(EquipmentItem item) {
+        if (loadout.has(item)) return false;
+        setLoadout(loadout.with(item));
+        PetConsole.println(item.equipMessage);
+        return true;
     }
 
     @Override
     public void setHealth(int health) {
-        this.health = Math.max(0, Math.min(maxHealth, health)); //health stays in range [0, maxHealth]
+        int value = Math.max(0, Math.min(maxHealth + loadout.maxHealthBonus, health)); //health stays in range [0, max health incl. equipment]
+        if (value != this.health) {
+            this.health = value;
+            dirtyFields |= DIRTY_HEALTH;
+        }
     }
 
     @Override
     public void setEnergy(int energy) {
-        this.energy = Math.max(0, Math.min(100, energy));
+        int value = Math.max(0, Math.min(100, energy));
+        if (value != this.energy) {
+            this.energy = value;
+            dirtyFields |= DIRTY_ENERGY;
+        }
     }
 
     @Override
     public void setHunger(int hunger) {
-        this.hunger = Math.max(0, Math.min(100, hunger));
+        int value = Math.max(0, Math.min(100, hunger));
+        if (value != this.hunger) {
+            this.hunger = value;
+            dirtyFields |= DIRTY_HUNGER;
+        }
     }
 
     @Override
     public void setHappiness(int happiness) {
-        this.happiness = Math.max(0, Math.min(100, happiness));
+        int value = Math.max(0, Math.min(100, happiness));
+        if (value != this.happiness) {
+            this.happiness = value;
+            dirtyFields |= DIRTY_HAPPINESS;
+        }
     }
 
     @Override
     public IPetState getState() { return currentState; }
 
+    @Override
+    public int getSleepTurns() { return sleepTurns; }
+    @Override
+    public void setSleepTurns(int sleepTurns) { this.sleepTurns = sleepTurns; } //not persisted, so never dirty
+    @Override
+    public int getDirtyFields() { return dirtyFields | returnedFields; }
+    @Override
+    public void clearDirtyFields(int fields) {
+        dirtyFields &= ~fields;
+        if (returnedFields != 0) RETURNED_FIELDS.getAndBitwiseAnd(this, ~fields);
+    }
+    @Override
+    public void markDirty(int fields) { RETURNED_FIELDS.getAndBitwiseOr(this, fields); }
+
+    private static java.lang.invoke.VarHandle returnedFieldsHandle() {
+        try {
+            return java.lang.invoke.MethodHandles.lookup().findVarHandle(Pet.class, "returnedFields", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     @Override
     public void setState(IPetState state) {
-        if (this.currentState == null || !this.currentState.getClass().equals(state.getClass())) {
-            this.currentState = state;
-            System.out.println("🔄 " + name + " is now " + state.getStateName());
-        } else {
+        if (PetRules.of(this).countsTurns[state.getCode()]) {
+            sleepTurns = 0; //every setState(sleeping) starts a fresh nap
+        }
+        if (this.currentState != state) { //states are shared instances, so identity is enough
+            if (!replayed) TRANSITIONS[currentState.getCode()][state.getCode()].increment();
             this.currentState = state;
+            dirtyFields |= DIRTY_STATE;
+            PetConsole.println("🔄 ", name, " is now ", state.getStateName());
         }
     }
 
     @Override
-    public void feed() { currentState.handleFeed(this); }
+    public void feed() {
+        long started = Metrics.start();
+        currentState.handleFeed(this);
+        if (!replayed) FEED_TIMER.stop(started);
+    }
 
     @Override
-    public void play() { currentState.handlePlay(this); }
+    public void play() {
+        long started = Metrics.start();
+        currentState.handlePlay(this);
+        if (!replayed) PLAY_TIMER.stop(started);
+    }
 
     @Override
-    public void sleep() { currentState.handleSleep(this); }
+    public void sleep() {
+        long started = Metrics.start();
+        currentState.handleSleep(this);
+        if (!replayed) SLEEP_TIMER.stop(started);
+    }
 
     @Override
-    public void tick() { currentState.handleTick(this); }
+    public void tick() {
+        long started = Metrics.start();
+        currentState.handleTick(this);
+        //Per-tick equipment bonus, applied after the state has ticked (even for a dead pet, as the amulet always did)
+        if (loadout.happinessPerTick != 0) setHappiness(happiness + loadout.happinessPerTick);
+        if (!replayed) TICK_TIMER.stop(started);
+    }
 
     @Override
     public void displayStatus() {
-        System.out.println("\n" + "=".repeat(50));
-        System.out.println("🐾 " + getType() + " " + name);
-        System.out.println("❤️  Health: " + health + "/" + maxHealth);
-        System.out.println("⚡ Energy: " + energy + "/100");
-        System.out.println("🍖 Hunger: " + hunger + "/100");
-        System.out.println("😊 Happiness: " + happiness + "/100");
-        System.out.println("📊 State: " + currentState.getStateName());
-        System.out.println("=".repeat(50));
-    }
-
-    protected void updateState() {
-        if (health <= 0) {
-            setState(new DeadState());
-        } else if (energy <= 20) {
-            setState(new SleepingState());
-        } else if (hunger >= 80) {
-            setState(new HungryState());
-        } else if (happiness >= 70 && hunger < 50 && energy > 50) {
-            setState(new HappyState());
-        } else {
-            setState(new NormalState());
+        StringBuilder frame = new StringBuilder(512);
+        appendStatus(frame);
+        PetConsole.out().append(frame).flush(); //the session this pet is being played in, one write
+    }
+
+    @Override
+    public void appendStatus(StringBuilder frame) {
+        frame.append('\n').append(ConsoleRenderer.RULE).append('\n');
+        frame.append("🐾 ").append(getType()).append(' ').append(name).append('\n');
+        frame.append("❤️  Health: ").append(health).append('/').append(getMaxHealth()).append('\n');
+        frame.append("⚡ Energy: ").append(energy).append("/100\n");
+        frame.append("🍖 Hunger: ").append(hunger).append("/100\n");
+        frame.append("😊 Happiness: ").append(happiness).append("/100\n");
+        frame.append("📊 State: ").append(currentState.getStateName()).append('\n');
+        frame.append(ConsoleRenderer.RULE).append('\n');
+        loadout.appendBonuses(frame);
+    }
+
+    //state.happy->hungry and so on, one counter per pair of state codes, named like the states in the rules
+    private static Metrics.Counter[][] transitionCounters() {
+        int states = IPetState.DEAD + 1;
+        Metrics.Counter[][] counters = new Metrics.Counter[states][states];
+        for (int from = 0; from < states; from++) {
+            for (int to = 0; to < states; to++) {
+                counters[from][to] = Metrics.counter("state." + PetRules.stateKey(from) + "->" + PetRules.stateKey(to));
+            }
         }
+        return counters;
+    }
+
+    @Override
+    public void updateState() {
+        setState(IPetState.forCode(PetRules.of(this).classify(health, energy, hunger, happiness)));
     }
 }
 
@@ -0,0 +1,83 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+//Background job that keeps the hot tables small: pets dead for pet.archive.deadGraceHours, and pets nobody played for
+//pet.archive.inactiveDays, move with their statistics and history to the archive database, a chunk per transaction.
+//Afterwards the freed pages go back to the file system in steps of pet.archive.vacuumPages.
+class PetArchiver {
+    private final GameServices services;
+    private final int intervalMinutes;
+    private final int deadGraceHours;
+    private final int inactiveDays;
+    private final int chunkPets;
+    private final int vacuumPages;
+    private final ScheduledExecutorService scheduler;
+    private volatile long totalArchived;
+    private volatile long totalPagesReclaimed;
+
+    public PetArchiver(GameServices services, GameConfig config) {
+        this.services = services;
+        this.intervalMinutes = config.archiveIntervalMinutes;
+        this.deadGraceHours = config.archiveDeadGraceHours;
+        this.inactiveDays = config.archiveInactiveDays;
+        this.chunkPets = Math.max(1, config.archiveChunkPets);
+        this.vacuumPages = Math.max(1, config.archiveVacuumPages);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "pet-archiver");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        if (intervalMinutes > 0) { //0 or less never archives on its own
+            scheduler.scheduleWithFixedDelay(this::archiveNow, intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
+        }
+    }
+
+    //Archives chunk after chunk until no candidates are left, then reclaims the space. Returns how many pets moved.
+    public int archiveNow() {
+        int archived = 0;
+        try {
+            while (true) {
+                List<Integer> candidates = services.repository.archiveCandidates(deadGraceHours, inactiveDays, chunkPets);
+                if (candidates.isEmpty()) break;
+
+                //Pets somebody is playing stay; the rest are claimed so no session can load them halfway through the move
+                List<Integer> claimed = new ArrayList<>(candidates.size());
+                for (int petId : candidates) {
+                    if (services.claimPet(petId)) claimed.add(petId);
+                }
+                int moved = 0;
+                try {
+                    if (!claimed.isEmpty()) {
+                        services.persistence.flush(); //writes still queued for these pets belong in the archive too
+                        moved = services.repository.archivePets(claimed);
+                        if (moved > 0) claimed.forEach(services.persistence::forgetStatistics);
+                    }
+                } finally {
+                    claimed.forEach(services::releasePet);
+                }
+                archived += moved;
+                //A short chunk was the last one; nothing moved means the rest are in play (or the move failed) - try next run
+                if (moved == 0 || candidates.size() < chunkPets) break;
+            }
+            totalArchived += archived;
+            if (archived > 0) totalPagesReclaimed += services.repository.reclaimSpace(vacuumPages);
+        } catch (RuntimeException e) { //a scheduled task that throws is never run again
+            System.err.println("❌ Error archiving pets: " + e.getMessage());
+        }
+        return archived;
+    }
+
+    public long getTotalArchived() { return totalArchived; }
+
+    public String report() {
+        return "🗄️  Archiver: " + totalArchived + " pets archived, " + totalPagesReclaimed + " pages reclaimed";
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,122 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+//Bounded LRU cache of pets and their statistics, keyed by pet id, in front of DatabaseManager.
+//DatabaseManager keeps it correct: writes refresh the entries they touch once they are committed, deletes drop them.
+//Pets are cached as PetRecords of what was committed, never the objects being played with: a session's unsaved
+//changes can't leak into the next load, and two loads never share one pet.
+class PetCache {
+    private final int maxEntries;
+    private final LruMap<PetRecord> pets;
+    private final LruMap<PetStatistics> statistics;
+    private long petHits, petMisses, statHits, statMisses, evictions;
+    private long statisticsWrites; //bumped by every finished statistics write, see putStatisticsIfUnchanged
+    private long petWrites; //bumped by every committed pet update, see putPetIfUnchanged
+    private int statisticsWritesInFlight;
+
+    PetCache(int maxEntries) {
+        this.maxEntries = Math.max(0, maxEntries);
+        this.pets = new LruMap<>();
+        this.statistics = new LruMap<>();
+    }
+
+    boolean isEnabled() { return maxEntries > 0; }
+
+    synchronized PetRecord getPet(int petId) {
+        PetRecord pet = pets.get(petId);
+        if (pet == null) petMisses++; else petHits++;
+        return pet;
+    }
+
+    synchronized void putPet(PetRecord pet) {
+        if (isEnabled() && pet.petId() > 0) pets.put(pet.petId(), pet);
+    }
+
+    //Caches a row a reader fetched, unless a pet update was committed since 'writesSeen' (from petWrites()) -
+    //the row may be from before it
+    synchronized void putPetIfUnchanged(PetRecord pet, long writesSeen) {
+        if (petWrites == writesSeen) putPet(pet);
+    }
+
+    synchronized long petWrites() { return petWrites; }
+
+    //Called once an update of the pet is committed: the cached record, if any, takes the written columns
+    synchronized void petWritten(WriteBatch.PetSnapshot update, String lastPlayed) {
+        petWrites++;
+        PetRecord cached = pets.get(update.petId());
+        if (cached != null) pets.put(update.petId(), cached.with(update, lastPlayed));
+    }
+
+    synchronized PetStatistics getStatistics(int petId) {
+        PetStatistics stats = statistics.get(petId);
+        if (stats == null) statMisses++; else statHits++;
+        return stats;
+    }
+
+    synchronized void putStatistics(int petId, PetStatistics stats) {
+        if (isEnabled()) statistics.put(petId, stats);
+    }
+
+    //Caches a row a reader fetched, unless a statistics write ran at any point since 'writesSeen' (from statisticsWrites()).
+    //The reader can't tell whether its row already had that write's delta: caching it could lose the delta, or
+    //count it twice once addStatistics applies it to the cached row.
+    synchronized void putStatisticsIfUnchanged(int petId, PetStatistics stats, long writesSeen) {
+        if (statisticsWritesInFlight == 0 && statisticsWrites == writesSeen) putStatistics(petId, stats);
+    }
+
+    synchronized long statisticsWrites() { return statisticsWrites; }
+
+    //The writer brackets every statistics UPDATE, from before the SQL until after addStatistics, with these two
+    synchronized void statisticsWriteStarted() { statisticsWritesInFlight++; }
+
+    synchronized void statisticsWriteFinished() {
+        statisticsWritesInFlight--;
+        statisticsWrites++;
+    }
+
+    //Applies a counter change to the cached row, if there is one - the database got the same change
+    synchronized void addStatistics(int petId, int[] delta) {
+        PetStatistics stats = statistics.get(petId);
+        if (stats != null) statistics.put(petId, stats.plus(delta));
+    }
+
+    synchronized void invalidate(int petId) {
+        statisticsWrites++;
+        petWrites++;
+        pets.remove(petId);
+        statistics.remove(petId);
+    }
+
+    synchronized void clear() {
+        pets.clear();
+        statistics.clear();
+    }
+
+    synchronized long getPetHits() { return petHits; }
+    synchronized long getPetMisses() { return petMisses; }
+    synchronized long getStatHits() { return statHits; }
+    synchronized long getStatMisses() { return statMisses; }
+    synchronized long getEvictions() { return evictions; }
+
+    synchronized String report() {
+        return String.format("🗃️  Pet cache: %d/%d pets, %d stats | pets %d hits / %d misses | stats %d hits / %d misses | %d evictions",
+                pets.size(), maxEntries, statistics.size(), petHits, petMisses, statHits, statMisses, evictions);
+    }
+
+    //access-ordered LinkedHashMap: get() moves an entry to the back, the front is the least recently used
+    @SuppressWarnings("serial") //LinkedHashMap is Serializable, but the cache is never serialized
+    private class LruMap<V> extends LinkedHashMap<Integer, V> {
+        LruMap() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, V> eldest) {
+            if (size() > maxEntries) {
+                evictions++;
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+import java.io.PrintStream;
+
+//Single place where pets report what they are doing (state changes, action results, equipment).
+//The interactive game prints these; a headless world or a benchmark switches them off.
+//out() is the console of whoever is playing on this thread: System.out normally, the player's socket in server mode.
+final class PetConsole {
+    private static volatile boolean enabled = true;
+    private static final ThreadLocal<PrintStream> OUT = new ThreadLocal<>(); //not inherited - pooled clock threads bind per tick
+
+    private PetConsole() {}
+
+    static boolean isEnabled() { return enabled; }
+
+    static void setEnabled(boolean enabled) { PetConsole.enabled = enabled; }
+
+    static PrintStream out() {
+        PrintStream out = OUT.get();
+        return out != null ? out : System.out;
+    }
+
+    //Sends this thread's game output to 'out' (null = back to System.out) and returns what it was bound to before
+    static PrintStream bind(PrintStream out) {
+        PrintStream previous = OUT.get();
+        OUT.set(out);
+        return previous;
+    }
+
+    static void println(String message) {
+        if (enabled) {
+            out().println(message);
+        }
+    }
+
+    //prefix + name + suffix, concatenated only when someone is listening - keeps the action path allocation-free when muted
+    static void println(String prefix, String name, String suffix) {
+        if (enabled) {
+            out().println(prefix + name + suffix);
+        }
+    }
+
+    static void println(String prefix, String name, String middle, String suffix) {
+        if (enabled) {
+            out().println(prefix + name + middle + suffix);
+        }
+    }
+}
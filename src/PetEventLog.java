@@ -0,0 +1,424 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+//Append-only binary log of everything that changes a pet: ticks, actions, equipment and fast-forwards, plus a full
+//snapshot when a pet is created or loaded and every snapshotEvery events after that. Any earlier state of a pet can be
+//rebuilt by replaying its events from the nearest snapshot through the same IPetState rules the game uses.
+//Off unless -Dpet.events=true.
+//
+//Record: tag byte (event type), varint pet id, varint milliseconds since the previous record, then the payload.
+//A tick is 3-5 bytes instead of a game_history row. Snapshots also carry the absolute time, so a replay can start there.
+//Records are encoded into a direct buffer and written with one FileChannel.write when it fills up, every
+//flushMillis, on replay and on close.
+class PetEventLog implements AutoCloseable {
+    static final int SNAPSHOT = 0, TICK = 1, FEED = 2, PLAY = 3, SLEEP = 4, EQUIP = 5, FAST_FORWARD = 6;
+
+    private static final int MAGIC = 0x50455654; //"PEVT"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int MAX_NAME_CODE_POINTS = 64; //at most 256 UTF-8 bytes, so a snapshot always fits MAX_RECORD
+    private static final int MAX_RECORD = 400;
+    private static final PrintStream SILENT = new PrintStream(OutputStream.nullOutputStream());
+
+    private final boolean enabled;
+    private final Path path;
+    private final int snapshotEvery;
+    private FileChannel channel;
+    private final ByteBuffer pending = ByteBuffer.allocateDirect(64 * 1024);
+    private long written;          //bytes already in the file
+    private long lastTime;         //absolute time of the newest record, the base of the next delta
+    private long events, snapshots;
+    private final Map<Integer, Track> tracks = new HashMap<>();
+    private ScheduledExecutorService flusher;
+
+    //What the log knows about one pet: its turn count and where its snapshots are
+    private static final class Track {
+        long turn;
+        int sinceSnapshot;
+        final List<SnapshotRef> snapshots = new ArrayList<>();
+    }
+
+    private record SnapshotRef(long offset, long turn, long timeMillis) {}
+
+    PetEventLog(GameConfig config) {
+        this(config, false);
+    }
+
+    //readOnly: only for replays, e.g. java Main --replay while a game keeps writing the file
+    PetEventLog(GameConfig config, boolean readOnly) {
+        this.enabled = config.eventLog || readOnly;
+        this.path = Path.of(config.eventLogFile);
+        this.snapshotEvery = Math.max(1, config.eventSnapshotEvery);
+        if (!enabled) return;
+
+        try {
+            if (readOnly) {
+                channel = FileChannel.open(path, StandardOpenOption.READ);
+                written = index();
+                return;
+            }
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            if (channel.size() == 0) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).flip();
+                channel.write(header, 0);
+                written = HEADER_SIZE;
+            } else {
+                written = index();
+                channel.truncate(written); //drops a record cut short by a crash
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot open event log " + path + ": " + e.getMessage(), e);
+        }
+
+        long flushMillis = Math.max(10, config.eventFlushMillis);
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "pet-event-log");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+    }
+
+    boolean isEnabled() { return enabled; }
+
+    //Full state of the pet - call when it is created or loaded, so replays have a starting point
+    synchronized void snapshot(IPet pet) {
+        if (!enabled) return;
+        Track track = tracks.computeIfAbsent(pet.getPetId(), id -> new Track());
+        writeSnapshot(pet, track);
+    }
+
+    synchronized void tick(IPet pet) {
+        if (!enabled) return;
+        Track track = begin(pet, TICK);
+        track.turn++;
+        end(pet, track);
+    }
+
+    //FEED, PLAY or SLEEP
+    synchronized void action(IPet pet, int type) {
+        if (!enabled) return;
+        end(pet, begin(pet, type));
+    }
+
+    synchronized void equip(IPet pet, EquipmentItem item) {
+        if (!enabled) return;
+        Track track = begin(pet, EQUIP);
+        putVarLong(item.ordinal());
+        end(pet, track);
+    }
+
+    synchronized void fastForward(IPet pet, long ticks) {
+        if (!enabled || ticks <= 0) return;
+        Track track = begin(pet, FAST_FORWARD);
+        putVarLong(ticks);
+        track.turn += ticks;
+        end(pet, track);
+    }
+
+    //How many turns the log has seen the pet live through
+    synchronized long currentTurn(int petId) {
+        Track track = tracks.get(petId);
+        return track == null ? 0 : track.turn;
+    }
+
+    //The pet as it was right after its turn-th tick (and the actions before the next one), or null if the log
+    //has no snapshot that early
+    IPet replayToTurn(int petId, long turn) {
+        return replay(petId, turn, Long.MAX_VALUE);
+    }
+
+    //The pet as it was at epochMillis, or null if the log has no snapshot that early
+    IPet replayToTime(int petId, long epochMillis) {
+        return replay(petId, Long.MAX_VALUE, epochMillis);
+    }
+
+    private synchronized IPet replay(int petId, long targetTurn, long targetTime) {
+        if (!enabled) return null;
+        Track track = tracks.get(petId);
+        if (track == null) return null;
+        SnapshotRef start = null;
+        for (SnapshotRef ref : track.snapshots) {
+            if (ref.turn() <= targetTurn && ref.timeMillis() <= targetTime) start = ref;
+        }
+        if (start == null) return null;
+
+        flush();
+        PrintStream previous = PetConsole.bind(SILENT); //replayed actions must not talk to the player
+        try {
+            long length = Math.min(Integer.MAX_VALUE, written - start.offset());
+            Reader in = new Reader(channel.map(FileChannel.MapMode.READ_ONLY, start.offset(), length));
+            Record record = new Record();
+            in.next(record);
+            IPet pet = record.pet;
+            long turn = record.turn;
+            long time = record.time;
+
+            while (in.next(record)) {
+                time += record.delta;
+                if (time > targetTime) break;
+                if (record.petId != petId) continue;
+                switch (record.type) {
+                    case SNAPSHOT -> {
+                        if (record.turn > targetTurn) return pet;
+                        pet = record.pet; //the pet was loaded again, from what was saved
+                        turn = record.turn;
+                    }
+                    case TICK -> {
+                        if (turn == targetTurn) return pet;
+                        pet.tick();
+                        turn++;
+                    }
+                    case FAST_FORWARD -> {
+                        long ticks = Math.min(record.value, targetTurn - turn);
+                        FastForward.advance(pet, ticks);
+                        turn += ticks;
+                        if (ticks < record.value) return pet;
+                    }
+                    case FEED -> pet.feed();
+                    case PLAY -> pet.play();
+                    case SLEEP -> pet.sleep();
+                    case EQUIP -> pet.equip(EquipmentItem.values()[(int) record.value]);
+                    default -> { }
+                }
+            }
+            return pet;
+        } catch (IOException e) {
+            System.err.println("❌ Error replaying pet " + petId + ": " + e.getMessage());
+            return null;
+        } finally {
+            PetConsole.bind(previous);
+        }
+    }
+
+    synchronized void flush() {
+        if (!enabled || pending.position() == 0) return;
+        pending.flip();
+        try {
+            while (pending.hasRemaining()) {
+                written += channel.write(pending, written);
+            }
+        } catch (IOException e) {
+            System.err.println("❌ Error writing event log: " + e.getMessage());
+        }
+        pending.clear();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!enabled || !channel.isOpen()) return;
+        try {
+            if (flusher != null) { //null when read-only
+                flusher.shutdownNow();
+                flush();
+                channel.force(false);
+            }
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("❌ Error closing event log: " + e.getMessage());
+        }
+    }
+
+    synchronized String report() {
+        if (!enabled) return "📼 Event log: off";
+        long bytes = written + pending.position() - HEADER_SIZE;
+        return String.format("📼 Event log: %d events, %d snapshots, %d pets | %d KiB | %.1f bytes/event",
+                events, snapshots, tracks.size(), bytes / 1024, events == 0 ? 0.0 : (double) bytes / events);
+    }
+
+    //--- writing ---
+
+    private Track begin(IPet pet, int type) {
+        Track track = tracks.computeIfAbsent(pet.getPetId(), id -> new Track());
+        startRecord(type, pet.getPetId());
+        return track;
+    }
+
+    private void end(IPet pet, Track track) {
+        events++;
+        if (++track.sinceSnapshot >= snapshotEvery) writeSnapshot(pet, track);
+    }
+
+    private void startRecord(int type, int petId) {
+        if (pending.remaining() < MAX_RECORD) flush();
+        long now = System.currentTimeMillis();
+        long delta = Math.max(0, now - lastTime); //a clock stepping back counts as no time passing
+        lastTime += delta;
+        pending.put((byte) type);
+        putVarLong(petId);
+        putVarLong(delta);
+    }
+
+    private void writeSnapshot(IPet pet, Track track) {
+        long offset = written + pending.position();
+        startRecord(SNAPSHOT, pet.getPetId());
+        putVarLong(lastTime);
+        putVarLong(track.turn);
+        putVarInt(pet.getHealth());
+        putVarInt(pet.getMaxHealth() - pet.getLoadout().maxHealthBonus);
+        putVarInt(pet.getEnergy());
+        putVarInt(pet.getHunger());
+        putVarInt(pet.getHappiness());
+        pending.put((byte) pet.getState().getCode());
+        putVarInt(pet.getSleepTurns());
+        putVarLong(pet.getLoadout().bits);
+        pending.put((byte) (pet.getSpecies().contains("Dragon") ? 1 : 0));
+        String name = pet.getName();
+        byte[] nameBytes = name.codePoints().limit(MAX_NAME_CODE_POINTS)
+                .collect(StringBuilder::new, StringBuilder::appendCodePoint, StringBuilder::append)
+                .toString().getBytes(StandardCharsets.UTF_8);
+        putVarLong(nameBytes.length);
+        pending.put(nameBytes);
+
+        track.snapshots.add(new SnapshotRef(offset, track.turn, lastTime));
+        track.sinceSnapshot = 0;
+        snapshots++;
+    }
+
+    //LEB128: 7 bits per byte, high bit set on every byte but the last
+    private void putVarLong(long value) {
+        while ((value & ~0x7FL) != 0) {
+            pending.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        pending.put((byte) value);
+    }
+
+    //Zigzag first, so a small negative stat stays one byte
+    private void putVarInt(int value) {
+        putVarLong((value << 1) ^ (value >> 31));
+    }
+
+    //--- reading ---
+
+    //Scans the whole file once to rebuild the tracks. Returns where the last complete record ends.
+    private long index() throws IOException {
+        long size = channel.size();
+        if (size > Integer.MAX_VALUE) throw new IOException(path + " is larger than 2 GiB");
+        MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        if (size < HEADER_SIZE || map.getInt(0) != MAGIC || map.getInt(4) != VERSION) {
+            throw new IOException(path + " is not a version " + VERSION + " pet event log");
+        }
+        Reader in = new Reader(map.position(HEADER_SIZE));
+        Record record = new Record();
+        long end = HEADER_SIZE;
+        while (in.next(record)) {
+            lastTime += record.delta;
+            Track track = tracks.computeIfAbsent(record.petId, id -> new Track());
+            switch (record.type) {
+                case SNAPSHOT -> {
+                    lastTime = record.time;
+                    track.turn = record.turn;
+                    track.sinceSnapshot = 0;
+                    track.snapshots.add(new SnapshotRef(end, record.turn, record.time));
+                    snapshots++;
+                }
+                case TICK -> track.turn++;
+                case FAST_FORWARD -> track.turn += record.value;
+                default -> { }
+            }
+            if (record.type != SNAPSHOT) {
+                track.sinceSnapshot++;
+                events++;
+            }
+            end = in.position();
+        }
+        return end;
+    }
+
+    //One decoded record. pet is only built for snapshots.
+    private static final class Record {
+        int type, petId;
+        long delta, time, turn, value;
+        IPet pet;
+    }
+
+    private static final class Reader {
+        private final ByteBuffer buffer;
+
+        Reader(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        long position() { return buffer.position(); }
+
+        //Decodes the next record into 'record'. False at the end, or at a record cut short by a crash.
+        boolean next(Record record) {
+            int start = buffer.position();
+            try {
+                if (!buffer.hasRemaining()) return false;
+                record.type = buffer.get();
+                record.petId = (int) varLong();
+                record.delta = varLong();
+                switch (record.type) {
+                    case SNAPSHOT -> readSnapshot(record);
+                    case EQUIP, FAST_FORWARD -> record.value = varLong();
+                    case TICK, FEED, PLAY, SLEEP -> { }
+                    default -> throw new IllegalStateException("unknown event type " + record.type);
+                }
+                return true;
+            } catch (RuntimeException e) { //BufferUnderflowException or a bad type: the rest of the file is unusable
+                buffer.position(start);
+                return false;
+            }
+        }
+
+        private void readSnapshot(Record record) {
+            record.time = varLong();
+            record.turn = varLong();
+            int health = varInt(), maxHealth = varInt(), energy = varInt(), hunger = varInt(), happiness = varInt();
+            int state = buffer.get();
+            int sleepTurns = varInt();
+            long equipment = varLong();
+            boolean dragon = buffer.get() == 1;
+            byte[] name = new byte[(int) varLong()];
+            buffer.get(name);
+
+            PrintStream previous = PetConsole.bind(SILENT);
+            try {
+                String petName = new String(name, StandardCharsets.UTF_8);
+                Pet pet = dragon ? new Dragon(petName, health, energy, hunger, happiness)
+                        : new Cat(petName, health, energy, hunger, happiness);
+                pet.setPetId(record.petId);
+                pet.replayed = true;
+                pet.maxHealth = maxHealth;
+                pet.currentState = IPetState.forCode(state); //not setState: rebuilding is no state change to count or time
+                pet.setSleepTurns(sleepTurns);
+                pet.setLoadout(Loadout.of(equipment));
+                pet.clearDirtyFields(IPet.DIRTY_ALL);
+                record.pet = pet;
+            } finally {
+                PetConsole.bind(previous);
+            }
+        }
+
+        private long varLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = buffer.get();
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) return value;
+            }
+            throw new IllegalStateException("varint too long");
+        }
+
+        private int varInt() {
+            int zigzag = (int) varLong();
+            return (zigzag >>> 1) ^ -(zigzag & 1);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+//One pet as the storage has it committed - what PetCache keeps. Immutable, so a cached copy is never changed by the
+//game: every loadPet builds a fresh pet from it, and only a write that reached the storage updates it.
+//baseMaxHealth is without equipment, like the max_health column; lastPlayed is SQLite's CURRENT_TIMESTAMP text (UTC).
+record PetRecord(int petId, String name, boolean dragon, int health, int baseMaxHealth, int energy, int hunger,
+                 int happiness, int stateCode, long equipment, String lastPlayed) {
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    //The pet as it was just written in full, e.g. by savePet
+    static PetRecord of(IPet pet, String lastPlayed) {
+        return new PetRecord(pet.getPetId(), pet.getName(), pet.getSpecies().contains("Dragon"), pet.getHealth(),
+                pet.getMaxHealth() - pet.getLoadout().maxHealthBonus, pet.getEnergy(), pet.getHunger(), pet.getHappiness(),
+                pet.getState().getCode(), pet.getLoadout().bits, lastPlayed);
+    }
+
+    //This record after a committed update: only the update's dirty columns were written
+    PetRecord with(WriteBatch.PetSnapshot update, String lastPlayed) {
+        int dirty = update.dirtyFields();
+        return new PetRecord(petId, name, dragon,
+                (dirty & IPet.DIRTY_HEALTH) != 0 ? update.health() : health,
+                baseMaxHealth,
+                (dirty & IPet.DIRTY_ENERGY) != 0 ? update.energy() : energy,
+                (dirty & IPet.DIRTY_HUNGER) != 0 ? update.hunger() : hunger,
+                (dirty & IPet.DIRTY_HAPPINESS) != 0 ? update.happiness() : happiness,
+                (dirty & IPet.DIRTY_STATE) != 0 ? update.stateCode() : stateCode,
+                (dirty & IPet.DIRTY_DECORATORS) != 0 ? update.loadout().bits : equipment,
+                lastPlayed);
+    }
+
+    //A new pet object with these values and nothing dirty
+    Pet toPet() {
+        Pet pet = dragon ? new Dragon(name, health, energy, hunger, happiness) : new Cat(name, health, energy, hunger, happiness);
+        pet.setPetId(petId);
+        pet.maxHealth = baseMaxHealth;
+        pet.currentState = IPetState.forCode(stateCode); //not setState: loading is no state change to announce or count
+        pet.setLoadout(Loadout.of(equipment));
+        pet.clearDirtyFields(IPet.DIRTY_ALL);
+        return pet;
+    }
+
+    //The time a write made now, in the lastPlayed format
+    static String now() {
+        return LocalDateTime.now(ZoneOffset.UTC).format(TIMESTAMP_FORMAT);
+    }
+}
@@ -0,0 +1,93 @@
+import java.util.List;
+import java.util.function.Consumer;
+
+//Where pets, their history and their statistics are stored. The game only talks to this interface.
+//  sqlite - DatabaseManager: SQL, history roll-ups, safe to open from other tools (the default)
+//  mapped - MappedPetRepository: fixed-width records in memory-mapped files, for simulation throughput
+//Choose with -Dpet.storage=sqlite|mapped.
+interface PetRepository extends AutoCloseable {
+    static PetRepository open(GameConfig config) {
+        return switch (config.storage.toLowerCase()) {
+            case "mapped" -> new MappedPetRepository(config);
+            case "sqlite" -> new DatabaseManager(config);
+            default -> {
+                System.err.println("❌ Unknown pet.storage: " + config.storage + " (allowed: sqlite, mapped) - using sqlite");
+                yield new DatabaseManager(config);
+            }
+        };
+    }
+
+    //Stores a new pet, sets its id and returns it (-1 on failure)
+    int savePet(IPet pet);
+
+    //Stores many new pets at once and sets their ids. Returns how many were stored; the rest keep id -1.
+    int savePets(List<IPet> pets);
+
+    //Writes the pet's dirty fields - may return before they reach the storage
+    void updatePet(IPet pet);
+
+    void logAction(int petId, String action, IPet pet);
+
+    void updateStatistics(int petId, String action);
+
+    //Applies a WriteBehindQueue batch and returns once it is stored. Returns false if some of it could not be: the
+    //actions and statistic deltas still in the batch then were not written and can be queued again, and the fields
+    //of pet updates that were not written are dirty on their pets again.
+    boolean writeBatch(WriteBatch batch);
+
+    //The pet with this id as last committed, or null. toPet() on it builds a new pet to play with.
+    PetRecord loadPet(int petId);
+
+    void deletePet(int petId);
+
+    //Deletes the pets with everything stored about them, all or nothing. Returns how many pets there were.
+    int deletePets(List<Integer> petIds);
+
+    //Up to 'limit' pets to archive: dead for deadGraceHours or more, then (inactiveDays > 0) not played for that long
+    List<Integer> archiveCandidates(int deadGraceHours, int inactiveDays, int limit);
+
+    //Moves the pets, their statistics and their history to the archive store in one transaction. Returns how many moved.
+    int archivePets(List<Integer> petIds);
+
+    //Returns up to 'pages' free pages of the store to the file system; how many it returned
+    int reclaimSpace(int pages);
+
+    //One page of saved pets, most recently played first; 'after' is the last summary of the previous page or null
+    List<PetSummary> listPets(PetSummary after, int limit);
+
+    List<String> getSavedPets();
+
+    int countPets();
+
+    //null if the pet has no statistics
+    PetStatistics getStatistics(int petId);
+
+    void displayStatistics(int petId);
+
+    //The top 'limit' pets of the board, best first
+    List<LeaderboardEntry> leaderboard(Leaderboard board, int limit);
+
+    void displayRecentHistory(int petId, int limit);
+
+    //Rolls up or drops history older than retentionDays, at most chunkRows rows per call. Returns how many rows went.
+    int compactHistory(int retentionDays, int chunkRows);
+
+    //Hands every pet (with its statistics) to the sink in id order, one row at a time. Returns how many there were.
+    long exportPets(Consumer<PetTransfer.PetRow> sink);
+
+    //Same for the history rows, oldest first
+    long exportHistory(Consumer<PetTransfer.HistoryRow> sink);
+
+    //Stores the pets under their own ids in one transaction, replacing pets that already have one of them
+    void importPets(List<PetTransfer.PetRow> rows);
+
+    void importHistory(List<PetTransfer.HistoryRow> rows);
+
+    PetWriteStats getWriteStats();
+
+    //One line about the backend's own work, printed on shutdown
+    String report();
+
+    @Override
+    void close();
+}
@@ -0,0 +1,347 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Set;
+
+//The game's balance as data: one rule per (state, action) - the stat changes, the state that follows and what the
+//player is told - plus the thresholds that decide which state a pet's stats belong in.
+//DEFAULT_RULES below is the original game; -Dpet.rules.file=<file> replaces any of its lines (same syntax, UTF-8).
+//A line in the file can also start with a species - cat. or dragon. - and then replaces that line for that species
+//only, e.g. dragon.hungry.tick or dragon.classify.hungry.hunger. Each species gets its own compiled table; species
+//without lines of their own share one.
+//Each line is compiled once into an immutable Rule. PetState (any IPet), the PetStore tick kernel and FastForward
+//all run the same Rule objects, so there is a single copy of every number.
+//The rules decide how the states and species behave, not which ones exist: the five states are the IPetState codes
+//and the two species the Cat and Dragon classes, which the storage (state names, the mapped species byte) and the
+//screens know as well. A new state or species still means code; the names here are the ones the rest uses.
+//
+//  [<species>.]<state>.<action> = [<stat> <change>, ...] -> <next> [when turns >= <n>] [or energy >= <n>] [| <message>]
+//  species: cat, dragon
+//  state:   happy, normal, hungry, sleeping, dead      action: tick, feed, play, sleep
+//  stat:    energy, hunger, happiness (kept in 0..100), health (kept in 0..max health)
+//  next:    classify (the state the new stats belong in), stay, or a state
+//  when:    tick rules only. The rule counts the turns spent in its state (entering the state starts the count at 0)
+//           and only moves on to <next> once a condition holds; the message is then printed for the move.
+//  message: printed before the stats change; {name} is the pet's name
+final class PetRules {
+    static final int TICK = 0, FEED = 1, PLAY = 2, SLEEP = 3, ACTIONS = 4;
+    private static final int ENERGY = 0, HUNGER = 1, HAPPINESS = 2, HEALTH = 3, STATS = 4;
+    static final int CLASSIFY = -1, STAY = -2; //Rule.next values besides state codes
+    static final int NEVER = Integer.MAX_VALUE;
+    static final int CAT = 0, DRAGON = 1; //species codes, the same as MappedPetRepository stores
+
+    private static final String[] STATE_KEYS = {"happy", "normal", "hungry", "sleeping", "dead"}; //by IPetState code
+    private static final String[] ACTION_KEYS = {"tick", "feed", "play", "sleep"};
+    private static final String[] STAT_KEYS = {"energy", "hunger", "happiness", "health"};
+    private static final String[] SPECIES_KEYS = {"cat", "dragon"}; //by species code
+    private static final String[] CLASSIFY_KEYS = {"classify.dead.health", "classify.sleeping.energy", "classify.hungry.hunger",
+            "classify.happy.happiness", "classify.happy.hunger", "classify.happy.energy"};
+    private static final int STATES = STATE_KEYS.length;
+    private static final Set<String> KEYS = keys(); //every key a line may have, without the species
+
+    private static final String DEFAULT_RULES = """
+            happy.tick     = energy -5, hunger +8, happiness -2 -> classify
+            happy.feed     = hunger -30, happiness +10 -> classify | ✅ {name} enjoys the meal!
+            happy.play     = happiness +20, energy -15, hunger +10 -> classify | ✅ {name} plays joyfully!
+            happy.sleep    = sleeping | ✅ {name} takes a nap...
+
+            normal.tick    = energy -5, hunger +10, happiness -3 -> classify
+            normal.feed    = hunger -25, happiness +5 -> classify | ✅ {name} eats the food.
+            normal.play    = happiness +15, energy -20, hunger +10 -> classify | ✅ {name} plays a bit.
+            normal.sleep   = sleeping | ✅ {name} goes to sleep...
+
+            hungry.tick    = energy -8, hunger +12, happiness -10, health -5 -> classify
+            hungry.feed    = hunger -40, happiness +15 -> classify | ✅ {name} devours the food hungrily!
+            hungry.play    = stay | ❌ {name} is too hungry to play!
+            hungry.sleep   = stay | ❌ {name} can't sleep when hungry!
+
+            sleeping.tick  = energy +20, health +5 -> normal when turns >= 2 or energy >= 90 | ⏰ {name} wakes up refreshed!
+            sleeping.feed  = stay | ❌ {name} is sleeping! Wake them up first.
+            sleeping.play  = normal | 💤 {name} wakes up!
+            sleeping.sleep = stay | 💤 {name} is already sleeping...
+
+            dead.tick      = stay
+            dead.feed      = stay | 💀 {name} has passed away...
+            dead.play      = stay | 💀 {name} has passed away...
+            dead.sleep     = stay | 💀 {name} has passed away...
+
+            # IPetState.codeFor checks these in this order
+            classify.dead.health       = 0
+            classify.sleeping.energy   = 20
+            classify.hungry.hunger     = 80
+            classify.happy.happiness   = 70
+            classify.happy.hunger      = 50
+            classify.happy.energy      = 50
+            """;
+
+    //DEFAULT_RULES compiled
+    static final PetRules BUILT_IN = new PetRules(builtInTable());
+    //[species code] - the same object for every species without lines of its own
+    private static final PetRules[] SPECIES_RULES = load(GameConfig.stringProperty("pet.rules.file", ""));
+    //No species lines: every pet plays by one table, and callers can skip looking up the pet's species
+    static final boolean UNIFORM = allSame(SPECIES_RULES);
+
+    //[state code * ACTIONS + action]
+    final Rule[] rules = new Rule[STATES * ACTIONS];
+    //[state code] - the tick rules on their own
+    final Rule[] ticks = new Rule[STATES];
+    //[state code] - the tick rules once more, with just the numbers the PetStore kernel needs
+    final Tick[] kernelTicks = new Tick[STATES];
+    //[state code] - its tick rule counts the turns spent in it (a nap); entering the state starts the count at 0
+    final boolean[] countsTurns = new boolean[STATES];
+    //Dead at health <= deadHealth, sleeping at energy <= sleepyEnergy, hungry at hunger >= hungryHunger,
+    //happy at happiness >= happyHappiness with hunger < happyHunger and energy > happyEnergy, normal otherwise
+    final int deadHealth, sleepyEnergy, hungryHunger, happyHappiness, happyHunger, happyEnergy;
+
+    private PetRules(Properties table) {
+        for (int state = 0; state < STATES; state++) {
+            for (int action = 0; action < ACTIONS; action++) {
+                String key = STATE_KEYS[state] + "." + ACTION_KEYS[action];
+                String rule = table.getProperty(key);
+                if (rule == null) throw new IllegalArgumentException("no rule for " + key);
+                rules[state * ACTIONS + action] = new Rule(this, key, action, rule.trim());
+            }
+            Rule tick = ticks[state] = rules[state * ACTIONS + TICK];
+            kernelTicks[state] = new Tick(tick.energy, tick.hunger, tick.happiness, tick.health, tick.next,
+                    tick.guardTurns, tick.guardEnergy, tick.inert, tick.guarded);
+            countsTurns[state] = tick.guarded;
+        }
+        deadHealth = threshold(table, CLASSIFY_KEYS[0]);
+        sleepyEnergy = threshold(table, CLASSIFY_KEYS[1]);
+        hungryHunger = threshold(table, CLASSIFY_KEYS[2]);
+        happyHappiness = threshold(table, CLASSIFY_KEYS[3]);
+        happyHunger = threshold(table, CLASSIFY_KEYS[4]);
+        happyEnergy = threshold(table, CLASSIFY_KEYS[5]);
+    }
+
+    //The built-in rules with the file's lines on top, by species code; the built-in rules alone if the file can't be used
+    static PetRules[] load(String file) {
+        PetRules[] builtIn = new PetRules[SPECIES_KEYS.length];
+        Arrays.fill(builtIn, BUILT_IN);
+        if (file.isEmpty()) return builtIn;
+        try (Reader reader = Files.newBufferedReader(Path.of(file), StandardCharsets.UTF_8)) {
+            Properties table = builtInTable();
+            Properties lines = new Properties();
+            lines.load(reader);
+            Properties[] speciesLines = new Properties[SPECIES_KEYS.length];
+            for (String key : lines.stringPropertyNames()) {
+                int species = speciesOf(key);
+                String line = species < 0 ? key : key.substring(SPECIES_KEYS[species].length() + 1);
+                if (!KEYS.contains(line)) throw new IllegalArgumentException("unknown key " + key); //a typo would otherwise be silently ignored
+                if (species < 0) {
+                    table.setProperty(line, lines.getProperty(key));
+                } else {
+                    if (speciesLines[species] == null) speciesLines[species] = new Properties();
+                    speciesLines[species].setProperty(line, lines.getProperty(key));
+                }
+            }
+            PetRules shared = new PetRules(table);
+            PetRules[] bySpecies = new PetRules[SPECIES_KEYS.length];
+            for (int species = 0; species < bySpecies.length; species++) {
+                if (speciesLines[species] == null) {
+                    bySpecies[species] = shared;
+                } else { //the shared table with the species' own lines on top
+                    Properties own = new Properties();
+                    own.putAll(table);
+                    own.putAll(speciesLines[species]);
+                    bySpecies[species] = new PetRules(own);
+                }
+            }
+            return bySpecies;
+        } catch (IOException | IllegalArgumentException e) {
+            String problem = e instanceof java.nio.file.NoSuchFileException ? "no such file" : e.getMessage();
+            System.err.println("❌ Error in pet rules " + file + ": " + problem + " - using the built-in rules");
+            return builtIn;
+        }
+    }
+
+    private static Properties builtInTable() {
+        Properties table = new Properties();
+        try {
+            table.load(new StringReader(DEFAULT_RULES));
+        } catch (IOException e) {
+            throw new IllegalStateException(e); //a StringReader doesn't fail
+        }
+        return table;
+    }
+
+    //The species code a key starts with, or -1 for a line every species shares
+    private static int speciesOf(String key) {
+        for (int species = 0; species < SPECIES_KEYS.length; species++) {
+            if (key.startsWith(SPECIES_KEYS[species] + ".")) return species;
+        }
+        return -1;
+    }
+
+    private static Set<String> keys() {
+        Set<String> keys = new HashSet<>(Arrays.asList(CLASSIFY_KEYS));
+        for (String state : STATE_KEYS) {
+            for (String action : ACTION_KEYS) keys.add(state + "." + action);
+        }
+        return keys;
+    }
+
+    private static boolean allSame(PetRules[] bySpecies) {
+        for (PetRules rules : bySpecies) {
+            if (rules != bySpecies[0]) return false;
+        }
+        return true;
+    }
+
+    //The table a pet of this species plays by
+    static PetRules forSpecies(int species) { return SPECIES_RULES[species]; }
+
+    //The table this pet plays by - its species', or the only one there is
+    static PetRules of(IPet pet) {
+        return UNIFORM ? SPECIES_RULES[CAT] : SPECIES_RULES[speciesCode(pet.getSpecies())];
+    }
+
+    static int speciesCode(String species) {
+        return Dragon.SPECIES.equals(species) ? DRAGON : CAT;
+    }
+
+    Rule rule(int stateCode, int action) { return rules[stateCode * ACTIONS + action]; }
+
+    //A tick rule's numbers for the PetStore kernel. A record, because the JIT trusts a record's final fields: read
+    //from a static final instance they fold into constants, like numbers written into the code.
+    record Tick(int energy, int hunger, int happiness, int health, int next, int guardTurns, int guardEnergy,
+                boolean inert, boolean countsTurns) {
+    }
+
+    //One compiled line of the table. Everything a handler needs is a final field of its own rule, so running one is
+    //a handful of field reads - small enough for the JIT to inline into Pet.tick and the decorators.
+    static final class Rule {
+        final int energy, hunger, happiness, health; //the changes; 0 = the stat is left alone
+        final int next; //a state code, CLASSIFY or STAY
+        final int guardTurns, guardEnergy; //NEVER = no such condition
+        final boolean guarded; //has a 'when' guard - counts turns in its state
+        final boolean inert; //stay with no changes - nothing to do
+        final String messageBefore, messageAfter; //text before and after the name; null = no message
+        private final PetRules owner;
+
+        private Rule(PetRules owner, String key, int action, String text) {
+            this.owner = owner;
+            String before = null, after = null;
+            int bar = text.indexOf('|');
+            if (bar >= 0) {
+                String message = text.substring(bar + 1).trim();
+                int name = message.indexOf("{name}");
+                before = name < 0 ? message : message.substring(0, name);
+                after = name < 0 ? "" : message.substring(name + "{name}".length());
+                text = text.substring(0, bar).trim();
+            }
+            messageBefore = before;
+            messageAfter = after;
+
+            int[] changes = new int[STATS];
+            int arrow = text.indexOf("->");
+            if (arrow >= 0) {
+                for (String change : text.substring(0, arrow).split(",")) {
+                    if (change.isBlank()) continue;
+                    String[] parts = change.trim().split("\\s+");
+                    if (parts.length != 2) throw new IllegalArgumentException(key + ": expected '<stat> <change>', got '" + change.trim() + "'");
+                    changes[index(STAT_KEYS, parts[0], key)] = Integer.parseInt(parts[1].replace("+", ""));
+                }
+                text = text.substring(arrow + 2).trim();
+            }
+            energy = changes[ENERGY];
+            hunger = changes[HUNGER];
+            happiness = changes[HAPPINESS];
+            health = changes[HEALTH];
+
+            String[] words = text.split("\\s+");
+            next = switch (words[0]) {
+                case "classify" -> CLASSIFY;
+                case "stay" -> STAY;
+                default -> index(STATE_KEYS, words[0], key);
+            };
+            int turns = NEVER, energyAtLeast = NEVER;
+            for (int i = 1; i < words.length; i += 4) { //when|or <turns|energy> >= <n>
+                if (i + 3 >= words.length || !words[i].equals(i == 1 ? "when" : "or") || !words[i + 2].equals(">=")) {
+                    throw new IllegalArgumentException(key + ": expected 'when turns|energy >= <n> [or ...]' after " + words[0]);
+                }
+                int value = Integer.parseInt(words[i + 3]);
+                switch (words[i + 1]) {
+                    case "turns" -> turns = value;
+                    case "energy" -> energyAtLeast = value;
+                    default -> throw new IllegalArgumentException(key + ": a guard can test turns or energy, not " + words[i + 1]);
+                }
+            }
+            guardTurns = turns;
+            guardEnergy = energyAtLeast;
+            guarded = turns != NEVER || energyAtLeast != NEVER;
+            if (guarded && action != TICK) throw new IllegalArgumentException(key + ": only tick rules can have a 'when' guard");
+            inert = next == STAY && !guarded && energy == 0 && hunger == 0 && happiness == 0 && health == 0;
+        }
+
+        //Runs the rule through the pet's setters, so it works on a Pet, a decorator chain or a PetStore view
+        void apply(IPet pet) {
+            if (guarded) {
+                applyGuarded(pet);
+                return;
+            }
+            say(pet);
+            changeStats(pet);
+            if (next == CLASSIFY) pet.updateState();
+            else if (next != STAY) pet.setState(IPetState.forCode(next));
+        }
+
+        //Counts the turn, and only moves on (and speaks) once the guard holds
+        private void applyGuarded(IPet pet) {
+            pet.setSleepTurns(pet.getSleepTurns() + 1);
+            changeStats(pet);
+            if (pet.getSleepTurns() < guardTurns && pet.getEnergy() < guardEnergy) return;
+            say(pet);
+            if (next == CLASSIFY) pet.updateState();
+            else if (next != STAY) pet.setState(IPetState.forCode(next));
+        }
+
+        //A stat the rule doesn't change is left alone - its setter is never called
+        private void changeStats(IPet pet) {
+            if (energy != 0) pet.setEnergy(pet.getEnergy() + energy);
+            if (hunger != 0) pet.setHunger(pet.getHunger() + hunger);
+            if (happiness != 0) pet.setHappiness(pet.getHappiness() + happiness);
+            if (health != 0) pet.setHealth(pet.getHealth() + health);
+        }
+
+        void say(IPet pet) {
+            if (messageBefore != null) PetConsole.println(messageBefore, pet.getName(), messageAfter);
+        }
+
+        //The state after this rule for a pet whose stats are now these; the guard is the caller's business
+        int target(int health, int energy, int hunger, int happiness) {
+            return next == CLASSIFY ? owner.classify(health, energy, hunger, happiness) : next;
+        }
+    }
+
+    private static int index(String[] keys, String word, String rule) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i].equals(word)) return i;
+        }
+        throw new IllegalArgumentException(rule + ": unknown '" + word + "' (allowed: " + String.join(", ", keys) + ")");
+    }
+
+    private static int threshold(Properties table, String key) {
+        String value = table.getProperty(key);
+        if (value == null) throw new IllegalArgumentException("no value for " + key);
+        return Integer.parseInt(value.trim());
+    }
+
+    //Which state a pet with these stats belongs in
+    int classify(int health, int energy, int hunger, int happiness) {
+        if (health <= deadHealth) return IPetState.DEAD;
+        if (energy <= sleepyEnergy) return IPetState.SLEEPING;
+        if (hunger >= hungryHunger) return IPetState.HUNGRY;
+        if (happiness >= happyHappiness && hunger < happyHunger && energy > happyEnergy) return IPetState.HAPPY;
+        return IPetState.NORMAL;
+    }
+
+    static String stateKey(int code) { return STATE_KEYS[code]; }
+}
+//✅ Open/Closed - rebalancing the game, or changing what a state does, is a change to the table, not to a class
@@ -0,0 +1,19 @@
+//The pet_statistics row for one pet. Immutable, so a cached copy can be handed out without being changed behind the cache's back.
+final class PetStatistics {
+    final int totalFeeds;
+    final int totalPlays;
+    final int totalSleeps;
+    final int totalTurns;
+
+    PetStatistics(int totalFeeds, int totalPlays, int totalSleeps, int totalTurns) {
+        this.totalFeeds = totalFeeds;
+        this.totalPlays = totalPlays;
+        this.totalSleeps = totalSleeps;
+        this.totalTurns = totalTurns;
+    }
+
+    //delta is {feeds, plays, sleeps, turns}, the same layout WriteBatch uses
+    PetStatistics plus(int[] delta) {
+        return new PetStatistics(totalFeeds + delta[0], totalPlays + delta[1], totalSleeps + delta[2], totalTurns + delta[3]);
+    }
+}
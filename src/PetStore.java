@@ -0,0 +1,449 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+//Struct-of-arrays pet storage: every stat is its own primitive column and the state is a byte code (IPetState.getCode()).
+//tickRange() runs the PetRules tick rules over whole columns without touching a single pet object. view(row) gives an IPet over one row so the rest of the game can keep using pets as usual.
+//Two backings: HeapPetStore (int[]/byte[]) and DirectPetStore (one off-heap ByteBuffer).
+abstract class PetStore {
+    //Cold columns - only read by views, and species by the kernel when species have rules of their own
+    private String[] names;
+    private String[] species;
+    private Loadout[] loadouts;
+    private int[] petIds;
+    protected int size;
+    private boolean tableKernel; //see setTableKernel
+
+    protected PetStore(int capacity) {
+        names = new String[capacity];
+        species = new String[capacity];
+        loadouts = new Loadout[capacity];
+        petIds = new int[capacity];
+    }
+
+    static PetStore onHeap(int capacity) { return new HeapPetStore(Math.max(16, capacity)); }
+
+    static PetStore offHeap(int capacity) { return new DirectPetStore(Math.max(16, capacity)); }
+
+    //Hot columns, implemented by each backing
+    abstract int health(int row);
+    abstract int maxHealth(int row);
+    abstract int energy(int row);
+    abstract int hunger(int row);
+    abstract int happiness(int row);
+    abstract int stateCode(int row);
+    abstract int sleepTurns(int row);
+    abstract int tickBonus(int row); //happiness added every tick, pre-summed from the loadout
+    abstract void setHealthRaw(int row, int value);
+    abstract void setMaxHealthRaw(int row, int value);
+    abstract void setEnergyRaw(int row, int value);
+    abstract void setHungerRaw(int row, int value);
+    abstract void setHappinessRaw(int row, int value);
+    abstract void setStateCodeRaw(int row, int code);
+    abstract void setSleepTurnsRaw(int row, int turns);
+    abstract void setTickBonusRaw(int row, int bonus);
+    abstract int capacity();
+    protected abstract void growColumns(int newCapacity);
+
+    int size() { return size; }
+
+    //Copies a pet (decorated or not) into a new row and returns the row number
+    int add(IPet pet) {
+        if (size == capacity()) {
+            int newCapacity = capacity() * 2;
+            growColumns(newCapacity);
+            names = Arrays.copyOf(names, newCapacity);
+            species = Arrays.copyOf(species, newCapacity);
+            loadouts = Arrays.copyOf(loadouts, newCapacity);
+            petIds = Arrays.copyOf(petIds, newCapacity);
+        }
+        int row = size++;
+        Loadout loadout = pet.getLoadout();
+
+        names[row] = pet.getName();
+        species[row] = pet.getSpecies();
+        loadouts[row] = loadout;
+        petIds[row] = pet.getPetId();
+        setMaxHealthRaw(row, pet.getMaxHealth()); //already includes the equipment bonus
+        setHealthRaw(row, pet.getHealth());
+        setEnergyRaw(row, pet.getEnergy());
+        setHungerRaw(row, pet.getHunger());
+        setHappinessRaw(row, pet.getHappiness());
+        setStateCodeRaw(row, pet.getState().getCode());
+        setSleepTurnsRaw(row, pet.getSleepTurns());
+        setTickBonusRaw(row, loadout.happinessPerTick);
+        return row;
+    }
+
+    PetStoreView view(int row) {
+        if (row < 0 || row >= size) throw new IndexOutOfBoundsException(row);
+        return new PetStoreView(this, row);
+    }
+
+    String name(int row) { return names[row]; }
+    String species(int row) { return species[row]; }
+    String type(int row) { return species[row] + loadouts[row].typeSuffix; }
+    Loadout loadout(int row) { return loadouts[row]; }
+    int petId(int row) { return petIds[row]; }
+
+    //Swaps a row's loadout and moves its pre-summed bonuses along with it
+    void setLoadout(int row, Loadout loadout) {
+        Loadout old = loadouts[row];
+        loadouts[row] = loadout;
+        setMaxHealthRaw(row, maxHealth(row) - old.maxHealthBonus + loadout.maxHealthBonus);
+        setTickBonusRaw(row, loadout.happinessPerTick);
+    }
+
+    void setPetId(int row, int id) { petIds[row] = id; }
+
+    //Runs the table kernel even where tickBuiltIn would, so StoreKernelCheck can hold it against Pet under the
+    //built-in rules as well
+    void setTableKernel(boolean tableKernel) { this.tableKernel = tableKernel; }
+
+    void tickAll() { tickRange(0, size); }
+
+    //The rules every row plays by when species have no lines of their own
+    private static final PetRules SHARED = PetRules.forSpecies(PetRules.CAT);
+
+    //The tick kernel. Same rules, same order and same clamping as PetRules.Rule.apply through the Pet setters + Pet.tick
+    void tickRange(int from, int to) {
+        if (BUILT_IN_KERNEL && !tableKernel) {
+            tickBuiltIn(from, to);
+            return;
+        }
+        for (int row = from; row < to; row++) {
+            PetRules rules = PetRules.UNIFORM ? SHARED : PetRules.forSpecies(PetRules.speciesCode(species(row)));
+            tickRow(row, rules.kernelTicks[stateCode(row)], rules);
+            addBonus(row);
+        }
+    }
+
+    //The built-in rules' numbers as static finals: the JIT folds them into tickBuiltIn as constants, the way numbers
+    //written into the code would be. Read through a record, whose final fields the JIT trusts.
+    private static final PetRules.Tick HAPPY = PetRules.BUILT_IN.kernelTicks[IPetState.HAPPY],
+            NORMAL = PetRules.BUILT_IN.kernelTicks[IPetState.NORMAL], HUNGRY = PetRules.BUILT_IN.kernelTicks[IPetState.HUNGRY],
+            SLEEPING = PetRules.BUILT_IN.kernelTicks[IPetState.SLEEPING];
+    private static final int DEAD_HEALTH = PetRules.BUILT_IN.deadHealth, SLEEPY_ENERGY = PetRules.BUILT_IN.sleepyEnergy,
+            HUNGRY_HUNGER = PetRules.BUILT_IN.hungryHunger, HAPPY_HAPPINESS = PetRules.BUILT_IN.happyHappiness,
+            HAPPY_HUNGER = PetRules.BUILT_IN.happyHunger, HAPPY_ENERGY = PetRules.BUILT_IN.happyEnergy;
+    //tickBuiltIn also knows the built-in table's shape - which stats each tick rule changes and where it goes next - so
+    //it only runs while every pet plays by the built-in rules and they still have that shape. It is kept next to the
+    //table kernel because it is faster: JMH StoreBenchmark.tickAll, heap, 10000 pets, ops/s
+    //    built-in  mixed 12007  happy 17491
+    //    table     mixed  7308  happy 11930
+    private static final boolean BUILT_IN_KERNEL = PetRules.UNIFORM && SHARED == PetRules.BUILT_IN && builtInShape();
+
+    //Happy, normal and hungry change energy, hunger and happiness and re-classify, only hungry changes health,
+    //sleeping is a nap that moves on to a fixed state and dead does nothing
+    private static boolean builtInShape() {
+        for (PetRules.Tick tick : new PetRules.Tick[] {HAPPY, NORMAL, HUNGRY}) {
+            if (tick.energy() == 0 || tick.hunger() == 0 || tick.happiness() == 0 || tick.next() != PetRules.CLASSIFY
+                    || tick.countsTurns() || (tick.health() != 0) != (tick == HUNGRY)) return false;
+        }
+        PetRules.Rule dead = PetRules.BUILT_IN.ticks[IPetState.DEAD];
+        return SLEEPING.countsTurns() && SLEEPING.energy() != 0 && SLEEPING.health() != 0 && SLEEPING.hunger() == 0
+                && SLEEPING.happiness() == 0 && SLEEPING.next() >= 0 && !PetRules.BUILT_IN.countsTurns[SLEEPING.next()]
+                && dead.inert && !SLEEPING.inert();
+    }
+
+    //The tick kernel for the built-in rules, with every number a constant
+    private void tickBuiltIn(int from, int to) {
+        for (int row = from; row < to; row++) {
+            int code = stateCode(row);
+            if (code != IPetState.DEAD) {
+                int health = health(row), energy = energy(row), hunger = hunger(row), happiness = happiness(row);
+                int maxHealth = maxHealth(row);
+
+                if (code == IPetState.SLEEPING) {
+                    int turns = sleepTurns(row) + 1;
+                    energy = clamp100(energy + SLEEPING.energy());
+                    health = Math.max(0, Math.min(maxHealth, health + SLEEPING.health()));
+                    setSleepTurnsRaw(row, turns);
+                    if (turns >= SLEEPING.guardTurns() || energy >= SLEEPING.guardEnergy()) {
+                        code = SLEEPING.next(); //wakes up refreshed
+                    }
+                } else {
+                    if (code == IPetState.HAPPY) {
+                        energy += HAPPY.energy(); hunger += HAPPY.hunger(); happiness += HAPPY.happiness();
+                    } else if (code == IPetState.NORMAL) {
+                        energy += NORMAL.energy(); hunger += NORMAL.hunger(); happiness += NORMAL.happiness();
+                    } else { //HUNGRY
+                        energy += HUNGRY.energy(); hunger += HUNGRY.hunger(); happiness += HUNGRY.happiness();
+                        health = Math.max(0, Math.min(maxHealth, health + HUNGRY.health()));
+                    }
+                    energy = clamp100(energy); //the Pet setters clamp every write to 0..100, even a constructor value above 100
+                    hunger = clamp100(hunger);
+                    happiness = clamp100(happiness);
+
+                    int next = classifyBuiltIn(health, energy, hunger, happiness);
+                    if (next == IPetState.SLEEPING) setSleepTurnsRaw(row, 0);
+                    code = next;
+                }
+                setHealthRaw(row, health);
+                setEnergyRaw(row, energy);
+                setHungerRaw(row, hunger);
+                setStateCodeRaw(row, code);
+                setHappinessRaw(row, happiness);
+            }
+            addBonus(row);
+        }
+    }
+
+    //PetRules.classify with the built-in thresholds as constants
+    private static int classifyBuiltIn(int health, int energy, int hunger, int happiness) {
+        if (health <= DEAD_HEALTH) return IPetState.DEAD;
+        if (energy <= SLEEPY_ENERGY) return IPetState.SLEEPING;
+        if (hunger >= HUNGRY_HUNGER) return IPetState.HUNGRY;
+        if (happiness >= HAPPY_HAPPINESS && hunger < HAPPY_HUNGER && energy > HAPPY_ENERGY) return IPetState.HAPPY;
+        return IPetState.NORMAL;
+    }
+
+    //One row through its state's tick rule, read from the row's table - for rules other than the built-in ones
+    private void tickRow(int row, PetRules.Tick tick, PetRules rules) {
+        if (tick.inert()) return;
+        int maxHealth = maxHealth(row);
+        //Clamped like the Pet setters, except a stat the rule doesn't change - its setter would never have been called
+        int energy = energy(row), hunger = hunger(row), happiness = happiness(row), health = health(row);
+        if (tick.energy() != 0) energy = clamp100(energy + tick.energy());
+        if (tick.hunger() != 0) hunger = clamp100(hunger + tick.hunger());
+        if (tick.happiness() != 0) happiness = clamp100(happiness + tick.happiness());
+        if (tick.health() != 0) health = Math.max(0, Math.min(maxHealth, health + tick.health()));
+
+        boolean moves;
+        if (tick.countsTurns()) { //e.g. a nap: wakes up refreshed after enough turns or energy
+            int turns = sleepTurns(row) + 1;
+            setSleepTurnsRaw(row, turns);
+            moves = turns >= tick.guardTurns() || energy >= tick.guardEnergy();
+        } else {
+            moves = tick.next() != PetRules.STAY;
+        }
+        if (moves) move(row, tick.next(), rules, health, energy, hunger, happiness);
+        setHealthRaw(row, health);
+        setEnergyRaw(row, energy);
+        setHungerRaw(row, hunger);
+        setHappinessRaw(row, happiness);
+    }
+
+    //Puts the row into the state its rule moves it to
+    private void move(int row, int next, PetRules rules, int health, int energy, int hunger, int happiness) {
+        int code = next == PetRules.CLASSIFY ? rules.classify(health, energy, hunger, happiness) : next;
+        if (rules.countsTurns[code]) setSleepTurnsRaw(row, 0); //a fresh nap
+        setStateCodeRaw(row, code);
+    }
+
+    //Equipment adds its bonus after the state has ticked, even for a dead pet - same as Pet.tick
+    private void addBonus(int row) {
+        int bonus = tickBonus(row);
+        if (bonus != 0) setHappinessRaw(row, clamp100(happiness(row) + bonus));
+    }
+
+    private static int clamp100(int value) {
+        return Math.max(0, Math.min(100, value));
+    }
+}
+
+class HeapPetStore extends PetStore {
+    private int[] health, maxHealth;
+    private byte[] energy, hunger, happiness, state, sleepTurns, tickBonus; //all of these fit in 0..100
+
+    HeapPetStore(int capacity) {
+        super(capacity);
+        growColumns(capacity);
+    }
+
+    @Override
+    protected void growColumns(int newCapacity) {
+        health = health == null ? new int[newCapacity] : Arrays.copyOf(health, newCapacity);
+        maxHealth = maxHealth == null ? new int[newCapacity] : Arrays.copyOf(maxHealth, newCapacity);
+        energy = energy == null ? new byte[newCapacity] : Arrays.copyOf(energy, newCapacity);
+        hunger = hunger == null ? new byte[newCapacity] : Arrays.copyOf(hunger, newCapacity);
+        happiness = happiness == null ? new byte[newCapacity] : Arrays.copyOf(happiness, newCapacity);
+        state = state == null ? new byte[newCapacity] : Arrays.copyOf(state, newCapacity);
+        sleepTurns = sleepTurns == null ? new byte[newCapacity] : Arrays.copyOf(sleepTurns, newCapacity);
+        tickBonus = tickBonus == null ? new byte[newCapacity] : Arrays.copyOf(tickBonus, newCapacity);
+    }
+
+    @Override int capacity() { return health.length; }
+    @Override int health(int row) { return health[row]; }
+    @Override int maxHealth(int row) { return maxHealth[row]; }
+    @Override int energy(int row) { return energy[row]; }
+    @Override int hunger(int row) { return hunger[row]; }
+    @Override int happiness(int row) { return happiness[row]; }
+    @Override int stateCode(int row) { return state[row]; }
+    @Override int sleepTurns(int row) { return sleepTurns[row]; }
+    @Override int tickBonus(int row) { return tickBonus[row]; }
+    @Override void setHealthRaw(int row, int value) { health[row] = value; }
+    @Override void setMaxHealthRaw(int row, int value) { maxHealth[row] = value; }
+    @Override void setEnergyRaw(int row, int value) { energy[row] = (byte) value; }
+    @Override void setHungerRaw(int row, int value) { hunger[row] = (byte) value; }
+    @Override void setHappinessRaw(int row, int value) { happiness[row] = (byte) value; }
+    @Override void setStateCodeRaw(int row, int code) { state[row] = (byte) code; }
+    @Override void setSleepTurnsRaw(int row, int turns) { sleepTurns[row] = (byte) Math.min(turns, Byte.MAX_VALUE); }
+    @Override void setTickBonusRaw(int row, int bonus) { tickBonus[row] = (byte) Math.min(bonus, 100); }
+}
+
+//Off-heap backing: one direct buffer laid out column by column, so a million pets cost the GC nothing
+class DirectPetStore extends PetStore {
+    private ByteBuffer columns;
+    private int capacity;
+    private int maxHealthAt, energyAt, hungerAt, happinessAt, stateAt, sleepAt, tickBonusAt; //column start offsets
+
+    DirectPetStore(int capacity) {
+        super(capacity);
+        growColumns(capacity);
+    }
+
+    @Override
+    protected void growColumns(int newCapacity) {
+        ByteBuffer old = columns;
+        int oldCapacity = capacity;
+        int oldMaxHealthAt = maxHealthAt, oldEnergyAt = energyAt;
+
+        columns = ByteBuffer.allocateDirect(newCapacity * (4 + 4 + 6)).order(ByteOrder.nativeOrder());
+        capacity = newCapacity;
+        maxHealthAt = 4 * newCapacity;
+        energyAt = 8 * newCapacity;
+        hungerAt = energyAt + newCapacity;
+        happinessAt = hungerAt + newCapacity;
+        stateAt = happinessAt + newCapacity;
+        sleepAt = stateAt + newCapacity;
+        tickBonusAt = sleepAt + newCapacity;
+
+        if (old != null) {
+            for (int row = 0; row < oldCapacity; row++) {
+                columns.putInt(row * 4, old.getInt(row * 4));
+                columns.putInt(maxHealthAt + row * 4, old.getInt(oldMaxHealthAt + row * 4));
+            }
+            for (int column = 0; column < 6; column++) { //the six byte columns sit back to back
+                for (int row = 0; row < oldCapacity; row++) {
+                    columns.put(energyAt + column * newCapacity + row, old.get(oldEnergyAt + column * oldCapacity + row));
+                }
+            }
+        }
+    }
+
+    @Override int capacity() { return capacity; }
+    @Override int health(int row) { return columns.getInt(row << 2); }
+    @Override int maxHealth(int row) { return columns.getInt(maxHealthAt + (row << 2)); }
+    @Override int energy(int row) { return columns.get(energyAt + row); }
+    @Override int hunger(int row) { return columns.get(hungerAt + row); }
+    @Override int happiness(int row) { return columns.get(happinessAt + row); }
+    @Override int stateCode(int row) { return columns.get(stateAt + row); }
+    @Override int sleepTurns(int row) { return columns.get(sleepAt + row); }
+    @Override int tickBonus(int row) { return columns.get(tickBonusAt + row); }
+    @Override void setHealthRaw(int row, int value) { columns.putInt(row << 2, value); }
+    @Override void setMaxHealthRaw(int row, int value) { columns.putInt(maxHealthAt + (row << 2), value); }
+    @Override void setEnergyRaw(int row, int value) { columns.put(energyAt + row, (byte) value); }
+    @Override void setHungerRaw(int row, int value) { columns.put(hungerAt + row, (byte) value); }
+    @Override void setHappinessRaw(int row, int value) { columns.put(happinessAt + row, (byte) value); }
+    @Override void setStateCodeRaw(int row, int code) { columns.put(stateAt + row, (byte) code); }
+    @Override void setSleepTurnsRaw(int row, int turns) { columns.put(sleepAt + row, (byte) Math.min(turns, Byte.MAX_VALUE)); }
+    @Override void setTickBonusRaw(int row, int bonus) { columns.put(tickBonusAt + row, (byte) Math.min(bonus, 100)); }
+}
+
+//IPet over one PetStore row. feed/play/sleep go through the normal IPetState handlers, tick() goes through the kernel.
+class PetStoreView implements IPet {
+    private final PetStore store;
+    private final int row;
+
+    PetStoreView(PetStore store, int row) {
+        this.store = store;
+        this.row = row;
+    }
+
+    int getRow() { return row; }
+
+    @Override public String getName() { return store.name(row); }
+    @Override public int getHealth() { return store.health(row); }
+    @Override public int getEnergy() { return store.energy(row); }
+    @Override public int getHunger() { return store.hunger(row); }
+    @Override public int getHappiness() { return store.happiness(row); }
+    @Override public int getPetId() { return store.petId(row); }
+    @Override public void setPetId(int id) { store.setPetId(row, id); }
+    @Override public String getDecorators() { return store.loadout(row).names; }
+    @Override public void setDecorators(String decorators) { setLoadout(Loadout.fromNames(decorators)); }
+    @Override public Loadout getLoadout() { return store.loadout(row); }
+    @Override public void setLoadout(Loadout loadout) { store.setLoadout(row, loadout); }
+
+    @Override
+    public boolean equip(EquipmentItem item) {
+        Loadout loadout = store.loadout(row);
+        if (loadout.has(item)) return false;
+        store.setLoadout(row, loadout.with(item));
+        PetConsole.println(item.equipMessage);
+        return true;
+    }
+
+    @Override public int getMaxHealth() { return store.maxHealth(row); }
+    @Override public String getType() { return store.type(row); }
+    @Override public String getSpecies() { return store.species(row); }
+
+    //Same clamping as Pet - health is clamped to the max health including equipment
+    @Override public void setHealth(int health) { store.setHealthRaw(row, Math.max(0, Math.min(store.maxHealth(row), health))); }
+    @Override public void setEnergy(int energy) { store.setEnergyRaw(row, Math.max(0, Math.min(100, energy))); }
+    @Override public void setHunger(int hunger) { store.setHungerRaw(row, Math.max(0, Math.min(100, hunger))); }
+    @Override public void setHappiness(int happiness) { store.setHappinessRaw(row, Math.max(0, Math.min(100, happiness))); }
+
+    @Override
+    public IPetState getState() { return IPetState.forCode(store.stateCode(row)); }
+
+    @Override
+    public void setState(IPetState state) {
+        int code = state.getCode();
+        if (store.stateCode(row) != code) {
+            store.setStateCodeRaw(row, code);
+            PetConsole.println("🔄 ", getName(), " is now ", state.getStateName());
+        }
+        if (PetRules.of(this).countsTurns[code]) store.setSleepTurnsRaw(row, 0); //every setState(sleeping) starts a fresh nap, same as Pet
+    }
+
+    @Override public int getSleepTurns() { return store.sleepTurns(row); }
+    @Override public void setSleepTurns(int sleepTurns) { store.setSleepTurnsRaw(row, sleepTurns); }
+    //The store has no per-row change tracking, so a view always asks for a full write
+    @Override public int getDirtyFields() { return DIRTY_ALL; }
+    @Override public void clearDirtyFields(int fields) { }
+    @Override public void markDirty(int fields) { }
+
+    @Override
+    public void updateState() {
+        int code = PetRules.of(this).classify(getHealth(), getEnergy(), getHunger(), getHappiness());
+        setState(IPetState.forCode(code));
+    }
+
+    @Override public void feed() { getState().handleFeed(this); }
+    @Override public void play() { getState().handlePlay(this); }
+    @Override public void sleep() { getState().handleSleep(this); }
+
+    @Override
+    public void tick() {
+        int before = store.stateCode(row);
+        PetRules.Rule rule = PetRules.of(this).ticks[before];
+        if (!rule.guarded) rule.say(this);
+        store.tickRange(row, row + 1);
+        int after = store.stateCode(row);
+        if (rule.guarded && after != before) rule.say(this); //a guarded rule speaks when it moves on, e.g. "wakes up refreshed!"
+        if (before != after) {
+            PetConsole.println("🔄 ", getName(), " is now ", IPetState.forCode(after).getStateName());
+        }
+    }
+
+    @Override
+    public void displayStatus() {
+        StringBuilder frame = new StringBuilder(512);
+        appendStatus(frame);
+        PetConsole.out().append(frame).flush(); //the session this pet is being played in, one write
+    }
+
+    @Override
+    public void appendStatus(StringBuilder frame) {
+        frame.append('\n').append(ConsoleRenderer.RULE).append('\n');
+        frame.append("🐾 ").append(getType()).append(' ').append(getName()).append('\n');
+        frame.append("❤️  Health: ").append(getHealth()).append('/').append(getMaxHealth()).append('\n');
+        frame.append("⚡ Energy: ").append(getEnergy()).append("/100\n");
+        frame.append("🍖 Hunger: ").append(getHunger()).append("/100\n");
+        frame.append("😊 Happiness: ").append(getHappiness()).append("/100\n");
+        frame.append("📊 State: ").append(getState().getStateName()).append('\n');
+        frame.append(ConsoleRenderer.RULE).append('\n');
+        store.loadout(row).appendBonuses(frame);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,21 @@
+//One row of the saved-pets menu. Also serves as the keyset cursor for the next page: (lastPlayed, id) of the last row shown.
+final class PetSummary {
+    final int id;
+    final String name;
+    final String type;
+    final int health;
+    final String lastPlayed;
+
+    PetSummary(int id, String name, String type, int health, String lastPlayed) {
+        this.id = id;
+        this.name = name;
+        this.type = type;
+        this.health = health;
+        this.lastPlayed = lastPlayed;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ID: %d | %s | Type: %s | HP: %d | Last Played: %s", id, name, type, health, lastPlayed);
+    }
+}
@@ -0,0 +1,404 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+//Bulk export and import of pets (with their statistics) and game history, as CSV or JSON Lines:
+//  <dir>/pets.csv|jsonl     one row per pet, ids included
+//  <dir>/history.csv|jsonl  one row per game_history row
+//Both directions stream: the repository hands rows out one at a time from a forward-only cursor and takes them back
+//in chunks of pet.transfer.batchRows (one transaction each), so memory stays flat for any number of rows.
+//Rolled-up history (game_history_daily) is not part of the format.
+class PetTransfer {
+    enum Format {
+        CSV("csv"), JSONL("jsonl");
+
+        final String extension;
+
+        Format(String extension) { this.extension = extension; }
+
+        static Format parse(String text) {
+            for (Format format : values()) {
+                if (format.extension.equalsIgnoreCase(text)) return format;
+            }
+            System.err.println("❌ Unknown export format: " + text + " (allowed: csv, jsonl) - using csv");
+            return CSV;
+        }
+    }
+
+    static final String[] PET_COLUMNS = {"id", "name", "type", "health", "max_health", "energy", "hunger", "happiness",
+            "state", "decorators", "equipment", "created_at", "last_played",
+            "total_feeds", "total_plays", "total_sleeps", "total_turns"};
+    static final String[] HISTORY_COLUMNS = {"id", "pet_id", "action", "timestamp",
+            "health_after", "energy_after", "hunger_after", "happiness_after"};
+
+    //A pets row joined with its pet_statistics row. Timestamps use SQLite's "yyyy-MM-dd HH:mm:ss" (UTC); null = now.
+    record PetRow(int id, String name, String type, int health, int maxHealth, int energy, int hunger, int happiness,
+                  String state, String decorators, long equipment, String createdAt, String lastPlayed,
+                  int totalFeeds, int totalPlays, int totalSleeps, int totalTurns) {
+        Object[] values() {
+            return new Object[] {id, name, type, health, maxHealth, energy, hunger, happiness, state, decorators,
+                    equipment, createdAt, lastPlayed, totalFeeds, totalPlays, totalSleeps, totalTurns};
+        }
+
+        static PetRow of(Map<String, String> fields) {
+            return new PetRow(integer(fields, "id"), fields.get("name"), fields.get("type"), integer(fields, "health"),
+                    integer(fields, "max_health"), integer(fields, "energy"), integer(fields, "hunger"),
+                    integer(fields, "happiness"), fields.get("state"), fields.get("decorators"),
+                    Long.parseLong(fields.getOrDefault("equipment", "0")), fields.get("created_at"),
+                    fields.get("last_played"), integer(fields, "total_feeds"), integer(fields, "total_plays"),
+                    integer(fields, "total_sleeps"), integer(fields, "total_turns"));
+        }
+    }
+
+    record HistoryRow(long id, int petId, String action, String timestamp, int health, int energy, int hunger,
+                      int happiness) {
+        Object[] values() {
+            return new Object[] {id, petId, action, timestamp, health, energy, hunger, happiness};
+        }
+
+        static HistoryRow of(Map<String, String> fields) {
+            return new HistoryRow(Long.parseLong(fields.getOrDefault("id", "0")), integer(fields, "pet_id"),
+                    fields.get("action"), fields.get("timestamp"), integer(fields, "health_after"),
+                    integer(fields, "energy_after"), integer(fields, "hunger_after"), integer(fields, "happiness_after"));
+        }
+    }
+
+    private final PetRepository repository;
+    private final int batchRows;
+
+    PetTransfer(PetRepository repository, GameConfig config) {
+        this.repository = repository;
+        this.batchRows = Math.max(1, config.transferBatchRows);
+    }
+
+    void exportTo(File directory, Format format) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) throw new IOException("cannot create " + directory);
+
+        File petsFile = new File(directory, "pets." + format.extension);
+        long started = System.nanoTime();
+        long pets;
+        try (RowWriter out = new RowWriter(petsFile, format, PET_COLUMNS)) {
+            pets = repository.exportPets(row -> out.write(row.values()));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        report("📤 Exported", pets, "pets", petsFile, started);
+
+        File historyFile = new File(directory, "history." + format.extension);
+        started = System.nanoTime();
+        long history;
+        try (RowWriter out = new RowWriter(historyFile, format, HISTORY_COLUMNS)) {
+            history = repository.exportHistory(row -> out.write(row.values()));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        report("📤 Exported", history, "history rows", historyFile, started);
+    }
+
+    //Pets first, so history rows find their pet. Pets keep their ids; one that already exists is replaced.
+    void importFrom(File directory) throws IOException {
+        File petsFile = find(directory, "pets");
+        if (petsFile != null) {
+            long started = System.nanoTime();
+            long pets = importRows(petsFile, PetRow::of, repository::importPets);
+            report("📥 Imported", pets, "pets", petsFile, started);
+        }
+        File historyFile = find(directory, "history");
+        if (historyFile != null) {
+            long started = System.nanoTime();
+            long history = importRows(historyFile, HistoryRow::of, repository::importHistory);
+            report("📥 Imported", history, "history rows", historyFile, started);
+        }
+        if (petsFile == null && historyFile == null) {
+            System.err.println("❌ No pets or history file (.csv or .jsonl) in " + directory);
+        }
+    }
+
+    private <T> long importRows(File file, Function<Map<String, String>, T> parse, Consumer<List<T>> store)
+            throws IOException {
+        Format format = file.getName().endsWith(".jsonl") ? Format.JSONL : Format.CSV;
+        long count = 0;
+        try (RowReader in = new RowReader(file, format)) {
+            List<T> chunk = new ArrayList<>(batchRows);
+            while (true) {
+                T row;
+                try {
+                    Map<String, String> fields = in.next();
+                    if (fields == null) break;
+                    row = parse.apply(fields);
+                } catch (RuntimeException e) { //a malformed record is skipped, the rest still imports
+                    System.err.println("❌ Error in " + file.getName() + " record " + in.record() + ": " + e.getMessage());
+                    continue;
+                }
+                chunk.add(row);
+                if (chunk.size() == batchRows) {
+                    store.accept(chunk);
+                    count += chunk.size();
+                    chunk = new ArrayList<>(batchRows); //the repository may still hold on to the last one
+                }
+            }
+            if (!chunk.isEmpty()) {
+                store.accept(chunk);
+                count += chunk.size();
+            }
+        }
+        return count;
+    }
+
+    private static File find(File directory, String name) {
+        for (Format format : Format.values()) {
+            File file = new File(directory, name + "." + format.extension);
+            if (file.isFile()) return file;
+        }
+        return null;
+    }
+
+    private static void report(String verb, long rows, String what, File file, long startedNanos) {
+        double seconds = Math.max(1e-9, (System.nanoTime() - startedNanos) / 1e9);
+        System.out.printf("%s %,d %s %s %s in %.2f s (%,.0f rows/s)%n", verb, rows, what,
+                verb.contains("Export") ? "to" : "from", file, seconds, rows / seconds);
+    }
+
+    private static int integer(Map<String, String> fields, String column) {
+        String value = fields.get(column);
+        return value == null || value.isEmpty() ? 0 : Integer.parseInt(value);
+    }
+
+    //--- formats ---
+
+    //CSV (RFC 4180: header line, fields quoted when they contain a comma, quote or line break) or one JSON object per line.
+    //Runs inside the repository's cursor loop, so IOExceptions travel as UncheckedIOException.
+    private static final class RowWriter implements AutoCloseable {
+        private final Writer out;
+        private final Format format;
+        private final String[] columns;
+
+        RowWriter(File file, Format format, String[] columns) throws IOException {
+            this.out = new BufferedWriter(Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8), 1 << 16);
+            this.format = format;
+            this.columns = columns;
+            if (format == Format.CSV) {
+                out.write(String.join(",", columns));
+                out.write('\n');
+            }
+        }
+
+        void write(Object[] values) {
+            try {
+                if (format == Format.CSV) {
+                    for (int i = 0; i < values.length; i++) {
+                        if (i > 0) out.write(',');
+                        if (values[i] != null) out.write(csv(values[i].toString()));
+                    }
+                } else {
+                    out.write('{');
+                    for (int i = 0; i < values.length; i++) {
+                        if (i > 0) out.write(',');
+                        out.write('"');
+                        out.write(columns[i]);
+                        out.write("\":");
+                        Object value = values[i];
+                        if (value == null) out.write("null");
+                        else if (value instanceof Number) out.write(value.toString());
+                        else json(value.toString());
+                    }
+                    out.write('}');
+                }
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private static String csv(String value) {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+
+        private void json(String value) throws IOException {
+            out.write('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '"' -> out.write("\\\"");
+                    case '\\' -> out.write("\\\\");
+                    case '\n' -> out.write("\\n");
+                    case '\r' -> out.write("\\r");
+                    case '\t' -> out.write("\\t");
+                    default -> {
+                        if (c < 0x20) out.write(String.format("\\u%04x", (int) c));
+                        else out.write(c);
+                    }
+                }
+            }
+            out.write('"');
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    //Reads what RowWriter wrote, one record at a time, as column name -> text (null for an empty CSV field or JSON null)
+    private static final class RowReader implements AutoCloseable {
+        private final BufferedReader in;
+        private final Format format;
+        private final String[] header;
+        private long record;
+
+        RowReader(File file, Format format) throws IOException {
+            this.in = new BufferedReader(Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8), 1 << 16);
+            this.format = format;
+            List<String> columns = format == Format.CSV ? csvRecord(in) : null;
+            this.header = columns == null ? null : columns.toArray(new String[0]);
+        }
+
+        long record() { return record; }
+
+        Map<String, String> next() throws IOException {
+            if (format == Format.CSV) {
+                List<String> values = csvRecord(in);
+                if (values == null) return null;
+                record++;
+                Map<String, String> fields = new HashMap<>();
+                for (int i = 0; i < header.length && i < values.size(); i++) {
+                    String value = values.get(i);
+                    fields.put(header[i], value.isEmpty() ? null : value);
+                }
+                return fields;
+            }
+            String line;
+            do {
+                line = in.readLine();
+                if (line == null) return null;
+                record++;
+            } while (line.isBlank());
+            return jsonObject(line);
+        }
+
+        //One CSV record, which may span lines inside quotes. null at the end of the file.
+        private static List<String> csvRecord(Reader in) throws IOException {
+            int c = in.read();
+            if (c == -1) return null;
+            List<String> values = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            while (c != -1) {
+                if (quoted) {
+                    if (c == '"') {
+                        in.mark(1);
+                        int next = in.read();
+                        if (next == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            if (next != -1) in.reset();
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    values.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n') {
+                    break;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+                c = in.read();
+            }
+            values.add(field.toString());
+            return values;
+        }
+
+        //A flat JSON object of strings, numbers and nulls - the only shape RowWriter produces
+        private static Map<String, String> jsonObject(String line) {
+            Map<String, String> fields = new HashMap<>();
+            int[] at = {skipSpace(line, 0)};
+            expect(line, at, '{');
+            if (line.charAt(skipSpace(line, at[0])) == '}') return fields;
+            while (true) {
+                at[0] = skipSpace(line, at[0]);
+                String key = jsonString(line, at);
+                at[0] = skipSpace(line, at[0]);
+                expect(line, at, ':');
+                at[0] = skipSpace(line, at[0]);
+                String value;
+                if (line.charAt(at[0]) == '"') {
+                    value = jsonString(line, at);
+                } else {
+                    int end = at[0];
+                    while (end < line.length() && ",} \t".indexOf(line.charAt(end)) < 0) end++;
+                    value = line.substring(at[0], end);
+                    at[0] = end;
+                    if (value.equals("null")) value = null;
+                }
+                fields.put(key, value);
+                at[0] = skipSpace(line, at[0]);
+                char c = line.charAt(at[0]++);
+                if (c == '}') return fields;
+                if (c != ',') throw new IllegalArgumentException("expected , or } at " + (at[0] - 1));
+            }
+        }
+
+        private static String jsonString(String line, int[] at) {
+            expect(line, at, '"');
+            StringBuilder text = new StringBuilder();
+            while (true) {
+                char c = line.charAt(at[0]++);
+                if (c == '"') return text.toString();
+                if (c != '\\') {
+                    text.append(c);
+                    continue;
+                }
+                char escaped = line.charAt(at[0]++);
+                switch (escaped) {
+                    case 'n' -> text.append('\n');
+                    case 'r' -> text.append('\r');
+                    case 't' -> text.append('\t');
+                    case 'b' -> text.append('\b');
+                    case 'f' -> text.append('\f');
+                    case 'u' -> {
+                        text.append((char) Integer.parseInt(line.substring(at[0], at[0] + 4), 16));
+                        at[0] += 4;
+                    }
+                    default -> text.append(escaped); //  \" \\ \/
+                }
+            }
+        }
+
+        private static void expect(String line, int[] at, char c) {
+            if (at[0] >= line.length() || line.charAt(at[0]) != c) {
+                throw new IllegalArgumentException("expected " + c + " at " + at[0]);
+            }
+            at[0]++;
+        }
+
+        private static int skipSpace(String line, int at) {
+            while (at < line.length() && Character.isWhitespace(line.charAt(at))) at++;
+            return at;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+//Headless engine that advances a large population of pets by one tick() per world step.
+//A step is split into index ranges that run on a ForkJoinPool. Every pet is ticked by exactly one worker,
+//so Pet.updateState and equipment effects run the same way they do in the single-player loop.
+//A pet (or a decorator chain around it) must only be added once.
+class PetWorld {
+    private final ForkJoinPool pool;
+    private final int minChunk;
+    private IPet[] pets = new IPet[1024];
+    private int size;
+
+    private long steps;
+    private long stepNanos;
+    private long lastStepNanos;
+
+    public PetWorld() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public PetWorld(int parallelism) {
+        this(parallelism, 512);
+    }
+
+    public PetWorld(int parallelism, int minChunk) {
+        this.pool = new ForkJoinPool(Math.max(1, parallelism));
+        this.minChunk = Math.max(1, minChunk);
+    }
+
+    public synchronized void add(IPet pet) {
+        if (size == pets.length) {
+            pets = Arrays.copyOf(pets, size * 2);
+        }
+        pets[size++] = pet;
+    }
+
+    //The readers take the lock that add and step hold, so another thread never sees a stale size or an unfilled slot
+    public synchronized int size() { return size; }
+
+    public synchronized IPet get(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException(index);
+        return pets[index];
+    }
+
+    //Advances every pet by one tick and returns once all of them are done
+    public synchronized void step() {
+        long start = System.nanoTime();
+        if (size > 0) {
+            //Enough chunks per worker that a slow range doesn't leave the others idle, but not so many that splitting costs more than ticking
+            int chunk = Math.max(minChunk, size / (pool.getParallelism() * 8));
+            pool.invoke(new TickRange(pets, 0, size, chunk));
+        }
+        lastStepNanos = System.nanoTime() - start;
+        stepNanos += lastStepNanos;
+        steps++;
+    }
+
+    public void run(int stepCount) {
+        for (int i = 0; i < stepCount; i++) {
+            step();
+        }
+    }
+
+    public synchronized int countAlive() {
+        int alive = 0;
+        for (int i = 0; i < size; i++) {
+            if (pets[i].getState().getCode() != IPetState.DEAD) alive++;
+        }
+        return alive;
+    }
+
+    public synchronized long getStepCount() { return steps; }
+
+    public int getParallelism() { return pool.getParallelism(); }
+
+    public synchronized double getStepsPerSecond() {
+        return stepNanos == 0 ? 0 : steps * 1_000_000_000.0 / stepNanos;
+    }
+
+    public synchronized double getPetTicksPerSecond() {
+        return getStepsPerSecond() * size;
+    }
+
+    public synchronized double getLastStepMillis() { return lastStepNanos / 1_000_000.0; }
+
+    public synchronized String report() {
+        return String.format("🌍 %d pets | %d steps | %.1f steps/s | %.0f pet ticks/s | %d workers | %d alive",
+                size, steps, getStepsPerSecond(), getPetTicksPerSecond(), getParallelism(), countAlive());
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    @SuppressWarnings("serial") //ForkJoinTask is Serializable, but a tick task is never serialized
+    private static final class TickRange extends RecursiveAction {
+        private final IPet[] pets;
+        private final int from, to, chunk;
+
+        TickRange(IPet[] pets, int from, int to, int chunk) {
+            this.pets = pets;
+            this.from = from;
+            this.to = to;
+            this.chunk = chunk;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunk) {
+                for (int i = from; i < to; i++) {
+                    pets[i].tick();
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new TickRange(pets, from, mid, chunk), new TickRange(pets, mid, to, chunk));
+        }
+    }
+}
+//✅ Single Responsibility - PetWorld only schedules ticks, the rules stay in the pets and their states
\ No newline at end of file
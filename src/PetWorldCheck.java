@@ -0,0 +1,61 @@
+import java.util.Random;
+
+//Checks that a parallel PetWorld step gives every pet exactly the tick it would get in the single-player loop:
+//steps one population of random cats and dragons (some in armor or amulet decorators) on a PetWorld with several
+//workers and small chunks, ticks an identical population one pet at a time, and compares them after every step.
+//Usage: java PetWorldCheck [pets] [steps] [workers]
+//Exits with status 1 if any pet ends up different.
+class PetWorldCheck {
+    public static void main(String[] args) {
+        int pets = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int steps = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        int workers = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        PetConsole.setEnabled(false); //equip messages and state changes would print per pet
+
+        PetWorld world = new PetWorld(workers, 64); //small chunks, so every step is split many times
+        IPet[] single = new IPet[pets];
+        Random parallelSeeds = new Random(42), singleSeeds = new Random(42);
+        for (int i = 0; i < pets; i++) {
+            world.add(randomPet(parallelSeeds, i));
+            single[i] = randomPet(singleSeeds, i);
+        }
+
+        int mismatches = 0, shown = 0;
+        for (int step = 1; step <= steps; step++) {
+            world.step();
+            for (IPet pet : single) pet.tick();
+            for (int i = 0; i < pets; i++) {
+                IPet stepped = world.get(i), ticked = single[i];
+                if (describe(stepped).equals(describe(ticked))) continue;
+                mismatches++;
+                if (shown++ < 10) {
+                    System.out.printf("❌ pet %d after step %d: world %s, one by one %s%n", i, step, describe(stepped), describe(ticked));
+                }
+            }
+        }
+        world.shutdown();
+        System.out.println(mismatches == 0
+                ? "✅ " + workers + " workers stepped " + pets + " pets " + steps + " times exactly like ticking them one by one"
+                : "❌ The parallel steps differed " + mismatches + " times");
+        if (mismatches != 0) System.exit(1);
+    }
+
+    private static IPet randomPet(Random random, int i) {
+        IPet pet = new PetBuilder().setType(random.nextBoolean() ? "cat" : "dragon").setName("Check" + i).build();
+        pet.setHealth(20 + random.nextInt(81));
+        pet.setEnergy(random.nextInt(101));
+        pet.setHunger(random.nextInt(101));
+        pet.setHappiness(random.nextInt(101));
+        pet.updateState();
+        int equipment = random.nextInt(4);
+        if ((equipment & 1) != 0) pet = new ArmorDecorator(pet);
+        if ((equipment & 2) != 0) pet = new AmuletDecorator(pet);
+        return pet;
+    }
+
+    private static String describe(IPet pet) {
+        return pet.getType() + " h=" + pet.getHealth() + "/" + pet.getMaxHealth() + " e=" + pet.getEnergy()
+                + " hu=" + pet.getHunger() + " ha=" + pet.getHappiness() + " " + pet.getState().getStateName()
+                + " nap=" + pet.getSleepTurns();
+    }
+}
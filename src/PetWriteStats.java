@@ -0,0 +1,34 @@
+import java.util.concurrent.atomic.AtomicLong;
+
+//Counts how the pets table was written: skipped (nothing changed), partial (only the changed columns) or full.
+//Atomic so the game thread and the write-behind thread can both count without taking the database lock.
+class PetWriteStats {
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong partial = new AtomicLong();
+    private final AtomicLong full = new AtomicLong();
+    private final AtomicLong columnsSkipped = new AtomicLong();
+
+    void recordSkipped() {
+        skipped.incrementAndGet();
+        columnsSkipped.addAndGet(Integer.bitCount(IPet.DIRTY_ALL));
+    }
+
+    void recordWrite(int dirtyFields) {
+        if (dirtyFields == IPet.DIRTY_ALL) {
+            full.incrementAndGet();
+        } else {
+            partial.incrementAndGet();
+            columnsSkipped.addAndGet(Integer.bitCount(IPet.DIRTY_ALL & ~dirtyFields));
+        }
+    }
+
+    long getSkipped() { return skipped.get(); }
+    long getPartial() { return partial.get(); }
+    long getFull() { return full.get(); }
+    long getColumnsSkipped() { return columnsSkipped.get(); }
+
+    String report() {
+        return String.format("✍️  Pet writes: %d skipped | %d partial | %d full | %d columns not rewritten",
+                skipped.get(), partial.get(), full.get(), columnsSkipped.get());
+    }
+}
@@ -0,0 +1,71 @@
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+//Read-only connections for the queries, so loading pets, listing saves and showing statistics run in parallel with
+//each other and with the writer. In WAL mode a reader sees the last commit without waiting for the writer.
+//A PreparedStatement belongs to one connection, so every reader has its own StatementCache.
+class ReaderPool {
+    interface Query<T> {
+        T run(StatementCache statements) throws SQLException;
+    }
+
+    private record Reader(Connection connection, StatementCache statements) {}
+
+    private final BlockingQueue<Reader> idle;
+    private final List<Reader> all = new ArrayList<>();
+
+    ReaderPool(String url, SqlitePragmaProfile pragmaProfile, int size) throws SQLException {
+        this.idle = new ArrayBlockingQueue<>(size);
+        try {
+            for (int i = 0; i < size; i++) {
+                Connection connection = DriverManager.getConnection(url);
+                all.add(new Reader(connection, new StatementCache(connection))); //added first, so close() still finds it
+                pragmaProfile.apply(connection);
+                try (Statement stmt = connection.createStatement()) {
+                    stmt.execute("PRAGMA busy_timeout = 5000"); //only matters outside WAL, where a commit briefly locks readers out
+                    stmt.execute("PRAGMA query_only = ON"); //a write through a reader is a bug - fail it instead of racing the writer
+                }
+            }
+        } catch (SQLException e) {
+            close();
+            throw e;
+        }
+        idle.addAll(all);
+    }
+
+    //Runs the query on an idle connection, waiting for one if every reader is busy
+    <T> T query(Query<T> query) throws SQLException {
+        Reader reader;
+        try {
+            reader = idle.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a reader connection");
+        }
+        try {
+            return query.run(reader.statements());
+        } finally {
+            idle.add(reader);
+        }
+    }
+
+    int size() { return all.size(); }
+
+    void close() {
+        for (Reader reader : all) {
+            reader.statements().close();
+            try {
+                reader.connection().close();
+            } catch (SQLException e) {
+                System.err.println("❌ Error closing reader connection: " + e.getMessage());
+            }
+        }
+        all.clear();
+    }
+}
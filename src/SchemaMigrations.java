@@ -0,0 +1,163 @@
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+//The database schema as a numbered list of changes. schema_version has one row per change applied to the file, so
+//opening an up-to-date database costs two lookups and no DDL at all; only the changes above its version run, each in
+//its own transaction together with its schema_version row. New schema changes go at the end of MIGRATIONS.
+//Files from before schema_version start at 0: every change checks for itself, so re-applying one is harmless.
+final class SchemaMigrations {
+    interface Change {
+        void apply(Statement stmt) throws SQLException;
+    }
+
+    record Migration(int version, String description, Change change) {}
+
+    //Kept up to date by every pet update; a dead pet is never updated again, so its value stops at its lifetime
+    static final String SURVIVAL_SECONDS =
+            "survival_seconds = CAST(strftime('%s', CURRENT_TIMESTAMP) AS INTEGER) - CAST(strftime('%s', created_at) AS INTEGER)";
+
+    static final List<Migration> MIGRATIONS = List.of(
+            new Migration(1, "pets, game_history and pet_statistics", stmt -> {
+                stmt.execute("""
+                    CREATE TABLE IF NOT EXISTS pets (
+                        id INTEGER PRIMARY KEY AUTOINCREMENT,
+                        name TEXT NOT NULL,
+                        type TEXT NOT NULL,
+                        health INTEGER NOT NULL,
+                        max_health INTEGER NOT NULL,
+                        energy INTEGER NOT NULL,
+                        hunger INTEGER NOT NULL,
+                        happiness INTEGER NOT NULL,
+                        state TEXT NOT NULL,
+                        decorators TEXT,
+                        created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                        last_played TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+                    )
+                """);
+                stmt.execute("""
+                    CREATE TABLE IF NOT EXISTS game_history (
+                        id INTEGER PRIMARY KEY AUTOINCREMENT,
+                        pet_id INTEGER NOT NULL,
+                        action TEXT NOT NULL,
+                        timestamp TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                        health_after INTEGER,
+                        energy_after INTEGER,
+                        hunger_after INTEGER,
+                        happiness_after INTEGER,
+                        FOREIGN KEY (pet_id) REFERENCES pets(id)
+                    )
+                """);
+                stmt.execute("""
+                    CREATE TABLE IF NOT EXISTS pet_statistics (
+                        pet_id INTEGER PRIMARY KEY,
+                        total_feeds INTEGER DEFAULT 0,
+                        total_plays INTEGER DEFAULT 0,
+                        total_sleeps INTEGER DEFAULT 0,
+                        total_turns INTEGER DEFAULT 0,
+                        FOREIGN KEY (pet_id) REFERENCES pets(id)
+                    )
+                """);
+            }),
+            new Migration(2, "saved-pet listing index", stmt ->
+                    stmt.execute("CREATE INDEX IF NOT EXISTS idx_pets_last_played ON pets(last_played DESC, id DESC)")),
+            //History older than the retention window is rolled up into one row per pet, day and action
+            new Migration(3, "history index and daily history roll-up", stmt -> {
+                stmt.execute("CREATE INDEX IF NOT EXISTS idx_history_pet_time ON game_history(pet_id, timestamp)");
+                stmt.execute("""
+                    CREATE TABLE IF NOT EXISTS game_history_daily (
+                        pet_id INTEGER NOT NULL,
+                        day TEXT NOT NULL,
+                        action TEXT NOT NULL,
+                        action_count INTEGER NOT NULL,
+                        last_history_id INTEGER,
+                        health_after INTEGER,
+                        energy_after INTEGER,
+                        hunger_after INTEGER,
+                        happiness_after INTEGER,
+                        PRIMARY KEY (pet_id, day, action),
+                        FOREIGN KEY (pet_id) REFERENCES pets(id)
+                    )
+                """);
+            }),
+            new Migration(4, "equipment bitset", stmt -> addColumnIfMissing(stmt, "pets", "equipment", "INTEGER DEFAULT 0")),
+            new Migration(5, "survival time and leaderboard indexes", stmt -> {
+                if (addColumnIfMissing(stmt, "pets", "survival_seconds", "INTEGER DEFAULT 0")) {
+                    stmt.execute("UPDATE pets SET " + SURVIVAL_SECONDS.replace("CURRENT_TIMESTAMP", "last_played"));
+                }
+                for (Leaderboard board : Leaderboard.values()) {
+                    String table = board == Leaderboard.SURVIVAL ? "pets" : "pet_statistics";
+                    String id = board == Leaderboard.SURVIVAL ? "id" : "pet_id";
+                    stmt.execute("CREATE INDEX IF NOT EXISTS idx_" + board.column + "_leaderboard ON " + table
+                            + "(" + board.column + " DESC, " + id + " DESC)");
+                }
+            }),
+            //The state literal is part of the index, so the archiver's dead-pet query has to spell it the same way
+            new Migration(6, "dead-pet index for the archiver", stmt ->
+                    stmt.execute("CREATE INDEX IF NOT EXISTS idx_pets_dead ON pets(last_played) WHERE state = '"
+                            + IPetState.forCode(IPetState.DEAD).getStateName() + "'")));
+
+    static final int LATEST = MIGRATIONS.get(MIGRATIONS.size() - 1).version();
+
+    private SchemaMigrations() {}
+
+    //Brings the database up to LATEST and returns how many migrations ran. Leaves the connection in auto-commit mode.
+    static int migrate(Connection connection) throws SQLException {
+        int version;
+        try (Statement stmt = connection.createStatement()) {
+            version = currentVersion(stmt);
+        }
+        if (version == LATEST) return 0;
+        if (version > LATEST) {
+            System.err.println("❌ Database schema version " + version + " is newer than this game's (" + LATEST + ") - continuing anyway");
+            return 0;
+        }
+
+        int applied = 0;
+        for (Migration migration : MIGRATIONS) {
+            if (migration.version() <= version) continue;
+            connection.setAutoCommit(false);
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("CREATE TABLE IF NOT EXISTS schema_version (version INTEGER PRIMARY KEY, "
+                        + "description TEXT NOT NULL, applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+                migration.change().apply(stmt);
+                stmt.execute("INSERT INTO schema_version (version, description) VALUES ("
+                        + migration.version() + ", '" + migration.description().replace("'", "''") + "')");
+                connection.commit();
+                applied++;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw new SQLException("schema migration " + migration.version() + " (" + migration.description() + ") failed: "
+                        + e.getMessage(), e);
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+        System.out.println("🛠️  Database schema migrated from version " + version + " to " + LATEST);
+        return applied;
+    }
+
+    //0 for a new file, or one from before schema_version
+    static int currentVersion(Statement stmt) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = 'schema_version'")) {
+            if (!rs.next()) return 0;
+        }
+        try (ResultSet rs = stmt.executeQuery("SELECT MAX(version) FROM schema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    //Returns true if the column had to be added
+    private static boolean addColumnIfMissing(Statement stmt, String table, String column, String definition) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (rs.next()) {
+                if (rs.getString("name").equalsIgnoreCase(column)) return false;
+            }
+        }
+        stmt.execute("ALTER TABLE " + table + " ADD COLUMN " + column + " " + definition);
+        return true;
+    }
+}
+//✅ Open/Closed - a schema change is a new entry at the end of MIGRATIONS; the ones already shipped never change
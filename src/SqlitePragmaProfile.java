@@ -0,0 +1,70 @@
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+
+//Connection settings applied right after the SQLite connection is opened.
+//Defaults favour the per-turn write path: WAL + synchronous=NORMAL only fsyncs at checkpoints instead of on every commit.
+class SqlitePragmaProfile {
+    private static final Set<String> JOURNAL_MODES = Set.of("DELETE", "TRUNCATE", "PERSIST", "MEMORY", "WAL", "OFF");
+    private static final Set<String> SYNCHRONOUS_LEVELS = Set.of("OFF", "NORMAL", "FULL", "EXTRA");
+    private static final Set<String> TEMP_STORES = Set.of("DEFAULT", "FILE", "MEMORY");
+
+    final String journalMode;
+    final String synchronous;
+    final long cacheSize; //negative = KiB, positive = pages (SQLite convention)
+    final long mmapSize;
+    final String tempStore;
+
+    SqlitePragmaProfile(String journalMode, String synchronous, long cacheSize, long mmapSize, String tempStore) {
+        this.journalMode = checked("journal_mode", journalMode, JOURNAL_MODES);
+        this.synchronous = checked("synchronous", synchronous, SYNCHRONOUS_LEVELS);
+        this.cacheSize = cacheSize;
+        this.mmapSize = Math.max(0, mmapSize);
+        this.tempStore = checked("temp_store", tempStore, TEMP_STORES);
+    }
+
+    static SqlitePragmaProfile defaults() {
+        return new SqlitePragmaProfile("WAL", "NORMAL", -8192, 64L << 20, "MEMORY"); //8 MiB page cache, 64 MiB memory-mapped reads
+    }
+
+    static SqlitePragmaProfile fromConfig() {
+        SqlitePragmaProfile defaults = defaults();
+        try {
+            return new SqlitePragmaProfile(
+                    GameConfig.stringProperty("pet.db.journalMode", defaults.journalMode),
+                    GameConfig.stringProperty("pet.db.synchronous", defaults.synchronous),
+                    GameConfig.longProperty("pet.db.cacheSize", defaults.cacheSize),
+                    GameConfig.longProperty("pet.db.mmapSize", defaults.mmapSize),
+                    GameConfig.stringProperty("pet.db.tempStore", defaults.tempStore));
+        } catch (IllegalArgumentException e) {
+            System.err.println("❌ " + e.getMessage() + " - using default SQLite settings");
+            return defaults;
+        }
+    }
+
+    //The values are validated above, so building the PRAGMA text here is safe
+    void apply(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("PRAGMA journal_mode = " + journalMode);
+            stmt.execute("PRAGMA synchronous = " + synchronous);
+            stmt.execute("PRAGMA cache_size = " + cacheSize);
+            stmt.execute("PRAGMA mmap_size = " + mmapSize);
+            stmt.execute("PRAGMA temp_store = " + tempStore);
+        }
+    }
+
+    private static String checked(String pragma, String value, Set<String> allowed) {
+        String upper = value.toUpperCase();
+        if (!allowed.contains(upper)) {
+            throw new IllegalArgumentException("Unsupported " + pragma + ": " + value + " (allowed: " + allowed + ")");
+        }
+        return upper;
+    }
+
+    @Override
+    public String toString() {
+        return "journal_mode=" + journalMode + ", synchronous=" + synchronous + ", cache_size=" + cacheSize
+                + ", mmap_size=" + mmapSize + ", temp_store=" + tempStore;
+    }
+}
\ No newline at end of file
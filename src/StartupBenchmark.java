@@ -0,0 +1,120 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+//Time from launching the JVM to the game's first menu, measured from outside: every run starts a fresh
+//  java -cp <this classpath> Main
+//against a throw-away database, waits for the MAIN MENU line, answers "6" (Exit) and waits for the process to end.
+//  java -cp .:sqlite-jdbc.jar StartupBenchmark [--runs n] [--cds] [--jsa file] [-Dpet.x=y ...]
+//--cds first records a dynamic class-data-sharing archive (-XX:ArchiveClassesAtExit) from one run, then measures
+//again with -XX:SharedArchiveFile, so the classes the menu needs are mapped in instead of loaded and verified.
+//The archive only matches the JDK and classpath it was recorded with; for day-to-day use start the game with
+//  java -XX:SharedArchiveFile=pet-startup.jsa -cp .:sqlite-jdbc.jar Main
+//Other -D arguments are passed on to the game, e.g. -Dpet.storage=mapped.
+class StartupBenchmark {
+    private static final String MENU_LINE = "MAIN MENU";
+
+    private final String java = ProcessHandle.current().info().command().orElse("java");
+    private final String classpath = System.getProperty("java.class.path");
+    private final List<String> gameProperties = new ArrayList<>();
+    private final File database;
+
+    StartupBenchmark(File database) {
+        this.database = database;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int runs = 10;
+        boolean cds = false;
+        File jsa = new File("pet-startup.jsa");
+        File database = File.createTempFile("pet-startup", ".db");
+        database.deleteOnExit();
+        StartupBenchmark benchmark = new StartupBenchmark(database);
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--runs" -> runs = Integer.parseInt(args[++i]);
+                case "--cds" -> cds = true;
+                case "--jsa" -> jsa = new File(args[++i]);
+                default -> {
+                    if (args[i].startsWith("-D")) benchmark.gameProperties.add(args[i]);
+                    else System.err.println("❌ Unknown option: " + args[i]);
+                }
+            }
+        }
+
+        try {
+            System.out.printf("⏱️  First run on a new database: %.0f ms (creates the schema)%n", benchmark.launch(List.of()) / 1e6);
+            benchmark.report("default", benchmark.measure(runs, List.of()));
+            if (cds && benchmark.classpathHasDirectories()) {
+                System.err.println("❌ Class-data sharing only archives classes from JAR files - package the game first "
+                        + "(jar cf pet.jar -C <classes dir> .) and put pet.jar on the classpath instead of the directory");
+            } else if (cds) {
+                benchmark.launch(List.of("-XX:ArchiveClassesAtExit=" + jsa.getPath()));
+                if (!jsa.isFile()) {
+                    System.err.println("❌ No class-data-sharing archive was written to " + jsa + " - skipping the CDS runs");
+                    return;
+                }
+                System.out.println("📦 Class-data-sharing archive: " + jsa + " (" + jsa.length() / 1024 + " KiB)");
+                benchmark.report("CDS", benchmark.measure(runs, List.of("-XX:SharedArchiveFile=" + jsa.getPath())));
+            }
+        } finally {
+            for (String suffix : new String[] {"-wal", "-shm"}) {
+                new File(database.getPath() + suffix).delete();
+            }
+        }
+    }
+
+    private boolean classpathHasDirectories() {
+        return Arrays.stream(classpath.split(File.pathSeparator)).anyMatch(entry -> new File(entry).isDirectory());
+    }
+
+    private long[] measure(int runs, List<String> jvmOptions) throws IOException, InterruptedException {
+        long[] nanos = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            nanos[i] = launch(jvmOptions);
+        }
+        return nanos;
+    }
+
+    //One game launch; returns the nanoseconds until its menu appeared
+    private long launch(List<String> jvmOptions) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(java);
+        command.addAll(jvmOptions);
+        command.add("-Dpet.db.url=jdbc:sqlite:" + database.getPath());
+        command.addAll(gameProperties);
+        command.addAll(List.of("-cp", classpath, "Main"));
+
+        long started = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        long menuAfter = -1;
+        try (BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+             OutputStream input = process.getOutputStream()) {
+            String line;
+            while ((line = output.readLine()) != null) {
+                if (menuAfter < 0 && line.contains(MENU_LINE)) {
+                    menuAfter = System.nanoTime() - started;
+                    input.write("6\n".getBytes(StandardCharsets.UTF_8));
+                    input.flush();
+                }
+            }
+        }
+        int exitCode = process.waitFor();
+        if (menuAfter < 0) throw new IOException("the game exited (code " + exitCode + ") without showing its menu");
+        return menuAfter;
+    }
+
+    private void report(String label, long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        double mean = Arrays.stream(sorted).average().orElse(0);
+        System.out.printf("🚀 %-8s %d runs | avg %.0f ms | p50 %.0f ms | min %.0f ms | max %.0f ms%n", label, sorted.length,
+                mean / 1e6, sorted[sorted.length / 2] / 1e6, sorted[0] / 1e6, sorted[sorted.length - 1] / 1e6);
+    }
+}
@@ -1,131 +1,68 @@
 interface IPetState {
+    //Compact codes for storing a state in a byte (PetStore columns)
+    int HAPPY = 0, NORMAL = 1, HUNGRY = 2, SLEEPING = 3, DEAD = 4;
+
     void handleFeed(IPet pet);
     void handlePlay(IPet pet);
     void handleSleep(IPet pet);
     void handleTick(IPet pet);
     String getStateName();
-}
-class HappyState implements IPetState {
-    public String getStateName() { return "◝(ᵔᗜᵔ)◜Happy"; }
+    int getCode();
 
-    public void handleFeed(IPet pet) {
-        System.out.println("✅ " + pet.getName() + " enjoys the meal!");
-        pet.setHunger(Math.max(0, pet.getHunger() - 30));
-        pet.setHappiness(Math.min(100, pet.getHappiness() + 10));
-        ((Pet)pet).updateState();
-    }
-    public void handlePlay(IPet pet) {
-        System.out.println("✅ " + pet.getName() + " plays joyfully!");
-        pet.setHappiness(Math.min(100, pet.getHappiness() + 20));
-        pet.setEnergy(Math.max(0, pet.getEnergy() - 15));
-        pet.setHunger(Math.min(100, pet.getHunger() + 10));
-        ((Pet)pet).updateState();
-    }
-    public void handleSleep(IPet pet) {
-        System.out.println("✅ " + pet.getName() + " takes a nap...");
-        pet.setState(new SleepingState());
+    //States hold no per-pet data, so every pet shares the same instance of each one. Unknown codes count as Normal.
+    static IPetState forCode(int code) {
+        return PetState.of(code);
     }
-    public void handleTick(IPet pet) {
-        pet.setEnergy(Math.max(0, pet.getEnergy() - 5));
-        pet.setHunger(Math.min(100, pet.getHunger() + 8));
-        pet.setHappiness(Math.max(0, pet.getHappiness() - 2));
-        ((Pet)pet).updateState();
-    }
-}
-
-class NormalState implements IPetState {
-    public String getStateName() { return "(ㆆ_ㆆ)Normal"; }
 
-    public void handleFeed(IPet pet) {
-        System.out.println("✅ " + pet.getName() + " eats the food.");
-        pet.setHunger(Math.max(0, pet.getHunger() - 25));
-        pet.setHappiness(Math.min(100, pet.getHappiness() + 5));
-        ((Pet)pet).updateState();
-    }
-    public void handlePlay(IPet pet) {
-        System.out.println("✅ " + pet.getName() + " plays a bit.");
-        pet.setHappiness(Math.min(100, pet.getHappiness() + 15));
-        pet.setEnergy(Math.max(0, pet.getEnergy() - 20));
-        pet.setHunger(Math.min(100, pet.getHunger() + 10));
-        ((Pet)pet).updateState();
-    }
-    public void handleSleep(IPet pet) {
-        System.out.println("✅ " + pet.getName() + " goes to sleep...");
-        pet.setState(new SleepingState());
-    }
-    public void handleTick(IPet pet) {
-        pet.setEnergy(Math.max(0, pet.getEnergy() - 5));
-        pet.setHunger(Math.min(100, pet.getHunger() + 10));
-        pet.setHappiness(Math.max(0, pet.getHappiness() - 3));
-        ((Pet)pet).updateState();
+    //The state stored as its getStateName() text, e.g. in the pets table. Unknown names count as Normal.
+    static IPetState forName(String stateName) {
+        for (int code = HAPPY; code <= DEAD; code++) {
+            if (forCode(code).getStateName().equals(stateName)) return forCode(code);
+        }
+        return forCode(NORMAL);
     }
 }
 
-class HungryState implements IPetState {
-    public String getStateName() { return "( •̀ ᴖ •́ )Hungry"; }
+//The five states differ only in their code and their name: what each one does on a tick, feed, play or sleep is a
+//row of PetRules - the pet's species' row when the rules file has lines for that species.
+//The handlers only talk to the IPet interface, so a decorated pet or a PetStore row works the same.
+//The names are stored in the pets table, so they must not change.
+final class PetState implements IPetState {
+    private static final PetState[] STATES = {
+            new PetState(HAPPY, "◝(ᵔᗜᵔ)◜Happy"),
+            new PetState(NORMAL, "(ㆆ_ㆆ)Normal"),
+            new PetState(HUNGRY, "( •̀ ᴖ •́ )Hungry"),
+            new PetState(SLEEPING, "(ᴗ_ ᴗ。)Sleeping"),
+            new PetState(DEAD, "💀 Dead")};
 
-    public void handleFeed(IPet pet) {
-        System.out.println("✅ " + pet.getName() + " devours the food hungrily!");
-        pet.setHunger(Math.max(0, pet.getHunger() - 40));
-        pet.setHappiness(Math.min(100, pet.getHappiness() + 15));
-        ((Pet)pet).updateState();
-    }
-    public void handlePlay(IPet pet) {
-        System.out.println("❌ " + pet.getName() + " is too hungry to play!");
-    }
-    public void handleSleep(IPet pet) {
-        System.out.println("❌ " + pet.getName() + " can't sleep when hungry!");
-    }
-    public void handleTick(IPet pet) {
-        pet.setEnergy(Math.max(0, pet.getEnergy() - 8));
-        pet.setHunger(Math.min(100, pet.getHunger() + 12));
-        pet.setHappiness(Math.max(0, pet.getHappiness() - 10));
-        pet.setHealth(Math.max(0, pet.getHealth() - 5));
-        ((Pet)pet).updateState();
-    }
-}
+    private final int code;
+    private final String name;
+    private final PetRules.Rule tick, feed, play, sleep; //the rules every species shares when PetRules.UNIFORM
 
-class SleepingState implements IPetState {
-    private int sleepTurns = 0;
-    public String getStateName() { return "(ᴗ_ ᴗ。)Sleeping"; }
-
-    public void handleFeed(IPet pet) {
-        System.out.println("❌ " + pet.getName() + " is sleeping! Wake them up first.");
+    private PetState(int code, String name) {
+        this.code = code;
+        this.name = name;
+        PetRules rules = PetRules.forSpecies(PetRules.CAT);
+        tick = rules.rule(code, PetRules.TICK);
+        feed = rules.rule(code, PetRules.FEED);
+        play = rules.rule(code, PetRules.PLAY);
+        sleep = rules.rule(code, PetRules.SLEEP);
     }
 
-    public void handlePlay(IPet pet) {
-        System.out.println("💤 " + pet.getName() + " wakes up!");
-        pet.setState(new NormalState());
+    static PetState of(int code) {
+        return code >= 0 && code < STATES.length ? STATES[code] : STATES[NORMAL];
     }
 
-    public void handleSleep(IPet pet) {
-        System.out.println("💤 " + pet.getName() + " is already sleeping...");
-    }
+    public String getStateName() { return name; }
+    public int getCode() { return code; }
 
-    public void handleTick(IPet pet) {
-        sleepTurns++;
-        pet.setEnergy(Math.min(100, pet.getEnergy() + 20));
-        pet.setHealth(Math.min(pet.getMaxHealth(), pet.getHealth() + 5));
+    public void handleFeed(IPet pet) { rule(feed, pet, PetRules.FEED).apply(pet); }
+    public void handlePlay(IPet pet) { rule(play, pet, PetRules.PLAY).apply(pet); }
+    public void handleSleep(IPet pet) { rule(sleep, pet, PetRules.SLEEP).apply(pet); }
+    public void handleTick(IPet pet) { rule(tick, pet, PetRules.TICK).apply(pet); }
 
-        if (sleepTurns >= 2 || pet.getEnergy() >= 90) {
-            System.out.println("⏰ " + pet.getName() + " wakes up refreshed!");
-            pet.setState(new NormalState());
-        }
+    //The shared rule, or the one of the pet's species if species have rules of their own
+    private PetRules.Rule rule(PetRules.Rule shared, IPet pet, int action) {
+        return PetRules.UNIFORM ? shared : PetRules.of(pet).rule(code, action);
     }
 }
-class DeadState implements IPetState {
-    public String getStateName() { return "💀 Dead"; }
-
-    public void handleFeed(IPet pet) {
-        System.out.println("💀 " + pet.getName() + " has passed away...");
-    }
-    public void handlePlay(IPet pet) {
-        System.out.println("💀 " + pet.getName() + " has passed away...");
-    }
-    public void handleSleep(IPet pet) {
-        System.out.println("💀 " + pet.getName() + " has passed away...");
-    }
-    public void handleTick(IPet pet) {
-
-    }
-}
\ No newline at end of file
@@ -0,0 +1,74 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+
+//Prepares each SQL string once per connection and hands back the same PreparedStatement on every later call.
+//Callers must NOT close the statements they get from here (only their ResultSets) - close() does that for all of them.
+class StatementCache implements AutoCloseable {
+    private final Connection connection;
+    private final Map<String, PreparedStatement> statements = new HashMap<>();
+    private final Map<String, PreparedStatement> keyStatements = new HashMap<>(); //prepared with RETURN_GENERATED_KEYS
+
+    StatementCache(Connection connection) {
+        this.connection = connection;
+    }
+
+    PreparedStatement get(String sql) throws SQLException {
+        PreparedStatement pstmt = statements.get(sql);
+        if (pstmt == null) {
+            pstmt = connection.prepareStatement(sql);
+            statements.put(sql, pstmt);
+        }
+        return pstmt;
+    }
+
+    PreparedStatement getReturningKeys(String sql) throws SQLException {
+        PreparedStatement pstmt = keyStatements.get(sql);
+        if (pstmt == null) {
+            pstmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+            keyStatements.put(sql, pstmt);
+        }
+        return pstmt;
+    }
+
+    //Drops rows added with addBatch() that were never executed - after a rollback they must not go out with the next
+    //batch. Cheap for statements without pending rows.
+    void clearBatches() {
+        clearAll(statements);
+        clearAll(keyStatements);
+    }
+
+    int size() {
+        return statements.size() + keyStatements.size();
+    }
+
+    @Override
+    public void close() {
+        closeAll(statements);
+        closeAll(keyStatements);
+    }
+
+    private static void clearAll(Map<String, PreparedStatement> cached) {
+        for (PreparedStatement pstmt : cached.values()) {
+            try {
+                pstmt.clearBatch();
+            } catch (SQLException e) {
+                System.err.println("❌ Error clearing statement batch: " + e.getMessage());
+            }
+        }
+    }
+
+    private static void closeAll(Map<String, PreparedStatement> cached) {
+        for (PreparedStatement pstmt : cached.values()) {
+            try {
+                pstmt.close();
+            } catch (SQLException e) {
+                System.err.println("❌ Error closing statement: " + e.getMessage());
+            }
+        }
+        cached.clear();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,54 @@
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+//Per-pet action counters kept in memory between flushes: one LongAdder per pet and statistics column, so every
+//session and clock thread counts without taking a lock. WriteBehindQueue drains them into each batch, which turns
+//hundreds of "+1" updates into one ADD_STATISTICS row per pet.
+class StatisticsCounters {
+    private final Map<Integer, LongAdder[]> counters = new ConcurrentHashMap<>();
+
+    void record(int petId, String action) {
+        int column = WriteBatch.statisticIndex(action);
+        if (column < 0) return;
+        LongAdder[] pet = counters.get(petId);
+        if (pet == null) pet = counters.computeIfAbsent(petId, id -> newCounters()); //the locking call only on a pet's first count
+        pet[column].increment();
+    }
+
+    //Moves every count so far into the batch. sumThenReset swaps each cell to 0 atomically, so a count racing the
+    //drain is either in this batch or left for the next one - never lost or written twice. The counts leave before
+    //the batch is written: if it fails, restore() has to put them back.
+    void drainInto(WriteBatch batch) {
+        for (Map.Entry<Integer, LongAdder[]> entry : counters.entrySet()) {
+            LongAdder[] pet = entry.getValue();
+            int[] delta = null;
+            for (int i = 0; i < pet.length; i++) {
+                long count = pet[i].sumThenReset();
+                if (count == 0) continue;
+                if (delta == null) delta = new int[pet.length];
+                delta[i] = (int) count;
+            }
+            if (delta != null) batch.addStatistics(entry.getKey(), delta);
+        }
+    }
+
+    //Adds a drained delta back, e.g. from a batch the repository could not store, so the next drain writes it again
+    void restore(int petId, int[] delta) {
+        LongAdder[] pet = counters.computeIfAbsent(petId, id -> newCounters());
+        for (int i = 0; i < pet.length; i++) {
+            if (delta[i] != 0) pet[i].add(delta[i]);
+        }
+    }
+
+    //Counts nobody will flush any more, e.g. of a deleted pet
+    void forget(int petId) {
+        counters.remove(petId);
+    }
+
+    private static LongAdder[] newCounters() {
+        LongAdder[] pet = new LongAdder[4]; //feeds, plays, sleeps, turns - WriteBatch.statisticIndex
+        for (int i = 0; i < pet.length; i++) pet[i] = new LongAdder();
+        return pet;
+    }
+}
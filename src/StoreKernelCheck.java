@@ -0,0 +1,86 @@
+import java.util.Random;
+
+//Differential check of the PetStore tick kernel: ticks random pets as Pet objects (Pet.tick through the state handlers)
+//and as rows of a heap and an off-heap PetStore, and compares every stat, the state and the nap counter after each tick.
+//Between ticks some pets are fed, played with or put to sleep, the rows through their PetStoreView.
+//Covers both species, every state, every loadout and stats outside 0..100. A third store always runs the table
+//kernel, which the other two only use when the built-in rules were changed. Run it once more with -Dpet.rules.file
+//to check the kernels for rules other than the built-in ones.
+//Usage: java StoreKernelCheck [pets] [ticks] [seed]
+//Exits with status 1 if any row ends up different from its pet.
+class StoreKernelCheck {
+    public static void main(String[] args) {
+        int pets = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int ticks = args.length > 1 ? Integer.parseInt(args[1]) : 60;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42L;
+        PetConsole.setEnabled(false); //state changes would print one line per tick
+        long loadouts = 1L << EquipmentItem.values().length;
+
+        Random random = new Random(seed);
+        Pet[] objects = new Pet[pets];
+        PetStore heap = PetStore.onHeap(pets), direct = PetStore.offHeap(pets), table = PetStore.onHeap(pets);
+        table.setTableKernel(true);
+        PetStore[] stores = {heap, direct, table};
+        for (int i = 0; i < pets; i++) {
+            boolean dragon = random.nextBoolean();
+            Pet pet = dragon ? new Dragon("Check" + i, stat(random), stat(random), stat(random), stat(random))
+                    : new Cat("Check" + i, stat(random), stat(random), stat(random), stat(random));
+            pet.maxHealth = 50 + random.nextInt(101);
+            pet.currentState = IPetState.forCode(random.nextInt(IPetState.DEAD + 1)); //set like a load, without a message
+            pet.sleepTurns = random.nextInt(3);
+            pet.setLoadout(Loadout.of(random.nextLong() & (loadouts - 1)));
+            objects[i] = pet;
+            for (PetStore store : stores) store.add(pet);
+        }
+
+        int mismatches = 0, shown = 0;
+        for (int tick = 1; tick <= ticks; tick++) {
+            for (int row = 0; row < pets; row++) {
+                if (random.nextInt(4) != 0) continue;
+                int action = random.nextInt(3);
+                act(objects[row], action);
+                for (PetStore store : stores) act(store.view(row), action);
+            }
+            for (Pet pet : objects) pet.tick();
+            for (PetStore store : stores) store.tickAll();
+            for (int row = 0; row < pets; row++) {
+                for (PetStore store : stores) {
+                    if (same(objects[row], store, row)) continue;
+                    mismatches++;
+                    if (shown++ < 10) {
+                        System.out.printf("❌ %s row %d after tick %d: pet %s, row %s%n", store == heap ? "heap" : store == direct ? "direct" : "table",
+                                row, tick, describe(objects[row]), describe(store.view(row)));
+                    }
+                }
+            }
+        }
+        System.out.println(mismatches == 0
+                ? "✅ The PetStore kernel and views matched Pet for " + pets + " pets over " + ticks + " ticks"
+                : "❌ The PetStore kernel differed from Pet.tick " + mismatches + " times");
+        if (mismatches != 0) System.exit(1);
+    }
+
+    private static void act(IPet pet, int action) {
+        switch (action) {
+            case 0 -> pet.feed();
+            case 1 -> pet.play();
+            default -> pet.sleep();
+        }
+    }
+
+    //Mostly in range, sometimes out of it
+    private static int stat(Random random) {
+        return random.nextInt(8) == 0 ? -20 + random.nextInt(141) : random.nextInt(101);
+    }
+
+    private static boolean same(IPet pet, PetStore store, int row) {
+        return pet.getHealth() == store.health(row) && pet.getEnergy() == store.energy(row)
+                && pet.getHunger() == store.hunger(row) && pet.getHappiness() == store.happiness(row)
+                && pet.getState().getCode() == store.stateCode(row) && pet.getSleepTurns() == store.sleepTurns(row);
+    }
+
+    private static String describe(IPet pet) {
+        return "h=" + pet.getHealth() + " e=" + pet.getEnergy() + " hu=" + pet.getHunger() + " ha=" + pet.getHappiness()
+                + " " + pet.getState().getStateName() + " nap=" + pet.getSleepTurns();
+    }
+}
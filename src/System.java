@@ -1,43 +1,91 @@
 import java.util.List;
 
 class GameEngine {
+    private static final Metrics.Timer LOOP_TIMER = Metrics.timer("engine.loop"); //a whole iteration, the player's think time included
+    private static final Metrics.Timer TURN_TIMER = Metrics.timer("engine.turn"); //handling one line of input
+    private static final Metrics.Timer TICK_TIMER = Metrics.timer("engine.tick"); //one clock tick, persistence included
     private IPet currentPet;
-    private java.util.Scanner scanner;
-    private boolean running;
-    private DatabaseManager dbManager;
+    private ConsoleInput input;
+    private final java.io.PrintStream out; //the player's console - System.out, or a socket in server mode
+    private final ConsoleRenderer screen; //draws the status panel and actions menu on out, one write per turn
+    private final GameServices services;
+    private final boolean ownsServices; //the single-player game closes its services when it ends, a server session doesn't
+    private volatile boolean running;
+    private final GameClock clock;
+    private final long tickMillis;
+    private final boolean fastForwardOnLoad;
+    private final long fastForwardMaxTicks;
+    private final Object petLock = new Object(); //the clock thread and the player's actions take turns on currentPet
+    private PetRepository repository;
+    private WriteBehindQueue persistence; //per-turn writes go through here and reach the database in batches
+    private final PetEventLog events;
+    private final int pageSize;
+    private static final PetSummary FIRST_PAGE = new PetSummary(-1, "", "", 0, ""); //marks "no cursor" on the page stack
 
     public GameEngine() {
-        this.scanner = new java.util.Scanner(System.in);
+        this(new GameConfig());
+    }
+
+    public GameEngine(GameConfig config) {
+        this(new GameServices(config, 1), new ConsoleInput(System.in), System.out, true);
+    }
+
+    //One player's session on services shared with other sessions (see GameServer)
+    public GameEngine(GameServices services, ConsoleInput input, java.io.PrintStream out) {
+        this(services, input, out, false);
+    }
+
+    private GameEngine(GameServices services, ConsoleInput input, java.io.PrintStream out, boolean ownsServices) {
+        GameConfig config = services.config;
+        this.services = services;
+        this.ownsServices = ownsServices;
+        this.input = input;
+        this.out = out;
+        this.screen = ConsoleRenderer.create(config.console, out);
+        this.clock = new GameClock(config.tickMillis, this::tickPet, services.ticker);
+        this.tickMillis = Math.max(1, config.tickMillis);
+        this.fastForwardOnLoad = config.fastForwardOnLoad;
+        this.fastForwardMaxTicks = Math.max(0, config.fastForwardMaxTicks);
         this.running = true;
-        this.dbManager = new DatabaseManager();
+        this.repository = services.repository;
+        this.persistence = services.persistence;
+        this.events = services.events;
+        this.pageSize = Math.max(1, config.menuPageSize);
     }
 
     public void start() {
-        System.out.println("\n" + "=".repeat(60));
-        System.out.println("₍^. .^₎⟆ WELCOME TO VIRTUAL PET SIMULATOR!!!");
-        System.out.println("=".repeat(60));
+        java.io.PrintStream previous = PetConsole.bind(out); //pet messages from this thread go to this player
+        try {
+            out.println("\n" + "=".repeat(60));
+            out.println("₍^. .^₎⟆ WELCOME TO VIRTUAL PET SIMULATOR!!!");
+            out.println("=".repeat(60));
 
-        mainMenu();
+            mainMenu();
 
-        if (currentPet != null && running) {
-            gameLoop();
+            if (currentPet != null && running) {
+                gameLoop();
+            }
+        } finally {
+            if (currentPet != null) services.releasePet(currentPet.getPetId());
+            PetConsole.bind(previous);
+            if (ownsServices) services.close();
         }
-
-        dbManager.close();
-        scanner.close();
     }
 
+    GameClock getClock() { return clock; }
+
     public void mainMenu() {
         while (true) {
-            System.out.println("\n🏠 MAIN MENU:");
-            System.out.println("1. 🆕 Create New Pet");
-            System.out.println("2. 📂 Load Saved Pet");
-            System.out.println("3. 📋 View All Saved Pets");
-            System.out.println("4. 🗑️  Delete Pet");
-            System.out.println("5. 🚪 Exit");
-            System.out.print("Choice: ");
+            out.println("\n🏠 MAIN MENU:");
+            out.println("1. 🆕 Create New Pet");
+            out.println("2. 📂 Load Saved Pet");
+            out.println("3. 📋 View All Saved Pets");
+            out.println("4. 🗑️  Delete Pet");
+            out.println("5. 🏆 Leaderboards");
+            out.println("6. 🚪 Exit");
+            out.print("Choice: ");
 
-            String choice = scanner.nextLine();
+            String choice = input.nextLine();
 
             switch (choice) {
                 case "1":
@@ -54,10 +102,13 @@ class GameEngine {
                     deletePet();
                     break;
                 case "5":
+                    showLeaderboards();
+                    break;
+                case "6":
                     running = false;
                     return;
                 default:
-                    System.out.println("Invalid choice!!!");
+                    out.println("Invalid choice!!!");
             }
         }
     }
@@ -65,194 +116,298 @@ class GameEngine {
     private void createPet() {
         PetBuilder builder = new PetBuilder();
 
-        System.out.println("\n🐾 Choose your pet:");
-        System.out.println("1. 🐱 Cat (Higher energy, agile)");
-        System.out.println("2. 🐉 Dragon (Higher health, powerful)");
-        System.out.print("Choice: ");
+        out.println("\n🐾 Choose your pet:");
+        out.println("1. 🐱 Cat (Higher energy, agile)");
+        out.println("2. 🐉 Dragon (Higher health, powerful)");
+        out.print("Choice: ");
 
-        String choice = scanner.nextLine();
+        String choice = input.nextLine();
         if (choice.equals("2")) {
             builder.setType("dragon");
         } else {
             builder.setType("cat");
         }
 
-        System.out.print("\nEnter pet name: ");
-        String name = scanner.nextLine();
+        out.print("\nEnter pet name: ");
+        String name = input.nextLine();
         builder.setName(name.isEmpty() ? "Buddy" : name);
 
 
         currentPet=builder.build();
-        System.out.println("\n✅ " + currentPet.getType() + " " + currentPet.getName() + " has been created!");
+        out.println("\n✅ " + currentPet.getType() + " " + currentPet.getName() + " has been created!");
 
-        dbManager.savePet(currentPet);
+        repository.savePet(currentPet);
+        services.claimPet(currentPet.getPetId());
+        events.snapshot(currentPet);
     }
 
     private void loadPet() {
-        List<String> pets = dbManager.getSavedPets();
-
-        if (pets.isEmpty()) {
-            System.out.println(" (╥‸╥) No saved pets found!");
+        PetSummary chosen = choosePet("📂 SAVED PETS:", " (╥‸╥) No saved pets found!", "load");
+        if (chosen == null) return;
+        if (!services.claimPet(chosen.id)) {
+            out.println("❌ " + chosen.name + " is already being played in another session!");
             return;
         }
 
-        System.out.println("\n📂 SAVED PETS:");
-        for (int i = 0; i < pets.size(); i++) {
-            System.out.println((i + 1) + ". " + pets.get(i));
+        PetRecord saved = repository.loadPet(chosen.id);
+        if (saved == null) {
+            services.releasePet(chosen.id);
+        } else {
+            currentPet = saved.toPet();
+            out.println("✅ Pet loaded successfully!");
+            events.snapshot(currentPet); //the saved state, so replays don't depend on the turns of a session that was never saved
+            if (fastForwardOnLoad) catchUp(saved.lastPlayed()); //the row just loaded - the menu's copy may be older
         }
+    }
 
-        System.out.print("\nEnter pet number to load (0 to cancel): ");
+    //Time kept passing while the pet was saved: apply one tick per tickMillis since it was last played,
+    //at most fastForwardMaxTicks of them
+    private void catchUp(String lastPlayed) {
+        long awayMillis;
         try {
-            int choice = Integer.parseInt(scanner.nextLine());
-            if (choice > 0 && choice <= pets.size()) {
-                String petInfo = pets.get(choice - 1);
-                int petId = Integer.parseInt(petInfo.split("ID: ")[1].split(" \\|")[0]);
-                currentPet = dbManager.loadPet(petId);
-
-                if (currentPet != null) {
-                    System.out.println("✅ Pet loaded successfully!");
-                }
-            }
-        } catch (NumberFormatException e) {
-            System.out.println("(╥‸╥) Invalid input!");
+            //SQLite's CURRENT_TIMESTAMP is UTC, formatted "yyyy-MM-dd HH:mm:ss"
+            java.time.Instant since = java.time.LocalDateTime.parse(lastPlayed.replace(' ', 'T')).toInstant(java.time.ZoneOffset.UTC);
+            awayMillis = java.time.Duration.between(since, java.time.Instant.now()).toMillis();
+        } catch (RuntimeException e) {
+            System.err.println("❌ Error reading last played time: " + e.getMessage());
+            return;
         }
+        long missedTicks = Math.min(awayMillis / tickMillis, fastForwardMaxTicks);
+        if (missedTicks <= 0) return;
+
+        FastForward.advance(currentPet, missedTicks);
+        events.fastForward(currentPet, missedTicks);
+        persistence.updatePet(currentPet);
+        out.println("⏩ " + currentPet.getName() + " lived through " + missedTicks + " turns while you were away ("
+                + java.time.Duration.ofMillis(awayMillis).toMinutes() + " min)");
     }
 
     private void viewSavedPets() {
-        List<String> pets = dbManager.getSavedPets();
+        choosePet("📂 ALL SAVED PETS:", "\n (╥‸╥) No saved pets found!", null);
+    }
 
-        if (pets.isEmpty()) {
-            System.out.println("\n (╥‸╥) No saved pets found!");
-        } else {
-            System.out.println("\n📂 ALL SAVED PETS:");
-            for (int i = 0; i < pets.size(); i++) {
-                System.out.println((i + 1) + ". " + pets.get(i));
+    private void deletePet() {
+        PetSummary chosen = choosePet("🗑️  DELETE PET:", "❌ No saved pets found!", "delete");
+        if (chosen == null) return;
+
+        out.print("Are you sure? (yes/no): ");
+        String confirm = input.nextLine();
+        if (confirm.equalsIgnoreCase("yes")) {
+            if (!services.claimPet(chosen.id)) { //claimed for the delete, so nobody can load it meanwhile
+                out.println("❌ " + chosen.name + " is being played in another session!");
+                return;
+            }
+            try {
+                persistence.forgetStatistics(chosen.id);
+                repository.deletePet(chosen.id);
+            } finally {
+                services.releasePet(chosen.id);
             }
         }
     }
 
-    private void deletePet() {
-        List<String> pets = dbManager.getSavedPets();
-
-        if (pets.isEmpty()) {
-            System.out.println("❌ No saved pets found!");
-            return;
+    private void showLeaderboards() {
+        persistence.flush(); //counts still in memory belong on the boards
+        for (Leaderboard board : Leaderboard.values()) {
+            List<LeaderboardEntry> top = repository.leaderboard(board, 5);
+            out.println("\n" + board.title + ":");
+            if (top.isEmpty()) out.println("   (no pets yet)");
+            for (int i = 0; i < top.size(); i++) {
+                out.println("   " + (i + 1) + ". " + top.get(i).format(board));
+            }
         }
+    }
 
-        System.out.println("\n🗑️  DELETE PET:");
-        for (int i = 0; i < pets.size(); i++) {
-            System.out.println((i + 1) + ". " + pets.get(i));
+    //Shows saved pets one page at a time (n = next, p = previous). Returns the chosen pet, or null when cancelled.
+    //With verb == null the list is only browsed.
+    private PetSummary choosePet(String title, String emptyMessage, String verb) {
+        int total = repository.countPets();
+        if (total == 0) {
+            out.println(emptyMessage);
+            return null;
         }
 
-        System.out.print("\nEnter pet number to delete (0 to cancel): ");
-        try {
-            int choice = Integer.parseInt(scanner.nextLine());
-            if (choice > 0 && choice <= pets.size()) {
-                String petInfo = pets.get(choice - 1);
-                int petId = Integer.parseInt(petInfo.split("ID: ")[1].split(" \\|")[0]);
-
-                System.out.print("Are you sure? (yes/no): ");
-                String confirm = scanner.nextLine();
-                if (confirm.equalsIgnoreCase("yes")) {
-                    dbManager.deletePet(petId);
+        java.util.Deque<PetSummary> previousCursors = new java.util.ArrayDeque<>(); //cursor that led to each earlier page
+        PetSummary cursor = null;
+        int firstIndex = 0;
+        while (true) {
+            List<PetSummary> page = repository.listPets(cursor, pageSize);
+            boolean hasNext = firstIndex + page.size() < total;
+
+            out.println("\n" + title + " (" + (firstIndex + 1) + "-" + (firstIndex + page.size()) + " of " + total + ")");
+            for (int i = 0; i < page.size(); i++) {
+                out.println((i + 1) + ". " + page.get(i));
+            }
+
+            String navigation = (hasNext ? "n = next page, " : "") + (previousCursors.isEmpty() ? "" : "p = previous page, ");
+            if (verb == null) {
+                out.print("\n" + navigation + "0 = back: ");
+            } else {
+                out.print("\nEnter pet number to " + verb + " (" + navigation + "0 to cancel): ");
+            }
+
+            String input = this.input.nextLine().trim();
+            if (input.equalsIgnoreCase("n") && hasNext && !page.isEmpty()) {
+                previousCursors.push(cursor == null ? FIRST_PAGE : cursor);
+                cursor = page.get(page.size() - 1);
+                firstIndex += page.size();
+            } else if (input.equalsIgnoreCase("p") && !previousCursors.isEmpty()) {
+                PetSummary back = previousCursors.pop();
+                cursor = back == FIRST_PAGE ? null : back;
+                firstIndex = Math.max(0, firstIndex - pageSize);
+            } else {
+                try {
+                    int choice = Integer.parseInt(input);
+                    if (verb != null && choice > 0 && choice <= page.size()) {
+                        return page.get(choice - 1);
+                    }
+                    if (choice == 0 || verb == null) return null;
+                    out.println("❌ Invalid choice!");
+                } catch (NumberFormatException e) {
+                    out.println("(╥‸╥) Invalid input!");
                 }
             }
-        } catch (NumberFormatException e) {
-            System.out.println("❌ Invalid input!");
         }
     }
 
+    //Time passes on the GameClock thread; this loop only waits for the player and applies their actions
     private void gameLoop() {
-        while (running && !(currentPet.getState() instanceof DeadState)) {
-            currentPet.displayStatus();
-            displayMenu();
-            handleInput();
-            currentPet.tick();
-
-
-            dbManager.updatePet(currentPet);
-            dbManager.updateStatistics(currentPet.getPetId(), "TICK");
-
-            try {
-                Thread.sleep(500);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
+        clock.start();
+        try {
+            while (running && !isDead()) {
+                long iterationStarted = Metrics.start();
+                StringBuilder frame = screen.begin();
+                synchronized (petLock) {
+                    currentPet.appendStatus(frame);
+                }
+                frame.append(ACTIONS_MENU);
+                screen.draw("Choice: ");
+                String line = awaitInput();
+                if (line == null) break; //the pet died while the player was thinking
+                long turnStarted = Metrics.start();
+                synchronized (petLock) {
+                    handleInput(line);
+                }
+                TURN_TIMER.stop(turnStarted);
+                LOOP_TIMER.stop(iterationStarted);
             }
+        } finally {
+            clock.stop(); //also when the player disconnects - a session's clock must not outlive it
+            screen.finish();
         }
+        out.println(clock.report());
 
-        if (currentPet.getState() instanceof DeadState) {
-            System.out.println("\n💀 Game Over! " + currentPet.getName() + " has died.");
-            dbManager.updatePet(currentPet);
+        if (isDead()) {
+            out.println("\n💀 Game Over! " + currentPet.getName() + " has died.");
+            persistence.updatePet(currentPet);
+            persistence.flush();
         }
 
-        System.out.println("\n👋 Thanks for playing!");
+        out.println("\n👋 Thanks for playing!");
+    }
+
+    //One game turn, run by the clock at a fixed rate
+    private void tickPet() {
+        java.io.PrintStream previous = PetConsole.bind(out); //clock threads are shared, so bind for every tick
+        try {
+            synchronized (petLock) {
+                if (!running || isDead()) return;
+                long started = Metrics.start();
+                currentPet.tick();
+                events.tick(currentPet);
+
+                persistence.updatePet(currentPet);
+                persistence.updateStatistics(currentPet.getPetId(), "TICK");
+                persistence.endTurn();
+                TICK_TIMER.stop(started);
+            }
+        } finally {
+            PetConsole.bind(previous);
+        }
     }
 
-    private void displayMenu() {
-        System.out.println("\n📋 Actions:");
-        System.out.println("1. 🍖 Feed");
-        System.out.println("2. 🎾 Play");
-        System.out.println("3. 😴 Sleep");
-        System.out.println("4. 🛡️  Equip Armor (+30 HP)");
-        System.out.println("5. ✨ Equip Amulet (+15 Happiness/turn)");
-        System.out.println("6. 📊 View Statistics");
-        System.out.println("7. 📜 View History");
-        System.out.println("8. 💾 Save & Exit");
-        System.out.println("9. 🚪 Exit Without Saving");
-        System.out.print("Choice: ");
+    private boolean isDead() {
+        return currentPet.getState().getCode() == IPetState.DEAD;
     }
 
-    private void handleInput() {
-        String input = scanner.nextLine();
+    //Waits for the player's next line, checking regularly whether the game ended in the meantime. Returns null if it did.
+    private String awaitInput() {
+        while (running && !isDead()) {
+            String line = input.poll(200);
+            if (line != null) return line;
+        }
+        return null;
+    }
 
+    private static final String ACTIONS_MENU = """
+
+            📋 Actions:
+            1. 🍖 Feed
+            2. 🎾 Play
+            3. 😴 Sleep
+            4. 🛡️  Equip Armor (+30 HP)
+            5. ✨ Equip Amulet (+15 Happiness/turn)
+            6. 📊 View Statistics
+            7. 📜 View History
+            8. 💾 Save & Exit
+            9. 🚪 Exit Without Saving
+            """;
+
+    private void handleInput(String input) {
         switch (input) {
             case "1":
                 currentPet.feed();
-                dbManager.logAction(currentPet.getPetId(), "FEED", currentPet);
-                dbManager.updateStatistics(currentPet.getPetId(), "FEED");
+                events.action(currentPet, PetEventLog.FEED);
+                persistence.logAction(currentPet.getPetId(), "FEED", currentPet);
+                persistence.updateStatistics(currentPet.getPetId(), "FEED");
                 break;
             case "2":
                 currentPet.play();
-                dbManager.logAction(currentPet.getPetId(), "PLAY", currentPet);
-                dbManager.updateStatistics(currentPet.getPetId(), "PLAY");
+                events.action(currentPet, PetEventLog.PLAY);
+                persistence.logAction(currentPet.getPetId(), "PLAY", currentPet);
+                persistence.updateStatistics(currentPet.getPetId(), "PLAY");
                 break;
             case "3":
                 currentPet.sleep();
-                dbManager.logAction(currentPet.getPetId(), "SLEEP", currentPet);
-                dbManager.updateStatistics(currentPet.getPetId(), "SLEEP");
+                events.action(currentPet, PetEventLog.SLEEP);
+                persistence.logAction(currentPet.getPetId(), "SLEEP", currentPet);
+                persistence.updateStatistics(currentPet.getPetId(), "SLEEP");
                 break;
             case "4":
-                if (!currentPet.getDecorators().contains("Armor")) {
-                    currentPet = new ArmorDecorator(currentPet);
-                    dbManager.logAction(currentPet.getPetId(), "EQUIPPED_ARMOR", currentPet);
+                if (currentPet.equip(EquipmentItem.ARMOR)) {
+                    events.equip(currentPet, EquipmentItem.ARMOR);
+                    persistence.logAction(currentPet.getPetId(), "EQUIPPED_ARMOR", currentPet);
                 } else {
-                    System.out.println("❌ Armor already equipped!");
+                    out.println("❌ Armor already equipped!");
                 }
                 break;
             case "5":
-                if (!currentPet.getDecorators().contains("Amulet")) {
-                    currentPet = new AmuletDecorator(currentPet);
-                    dbManager.logAction(currentPet.getPetId(), "EQUIPPED_AMULET", currentPet);
+                if (currentPet.equip(EquipmentItem.AMULET)) {
+                    events.equip(currentPet, EquipmentItem.AMULET);
+                    persistence.logAction(currentPet.getPetId(), "EQUIPPED_AMULET", currentPet);
                 } else {
-                    System.out.println("❌ Amulet already equipped!");
+                    out.println("❌ Amulet already equipped!");
                 }
                 break;
             case "6":
-                dbManager.displayStatistics(currentPet.getPetId());
+                persistence.flush(); //the stats view has to include the queued turns
+                repository.displayStatistics(currentPet.getPetId());
                 break;
             case "7":
-                dbManager.displayRecentHistory(currentPet.getPetId(), 10);
+                persistence.flush();
+                repository.displayRecentHistory(currentPet.getPetId(), 10);
                 break;
             case "8":
-                dbManager.updatePet(currentPet);
-                System.out.println("💾 Game saved!");
+                persistence.updatePet(currentPet);
+                persistence.flush();
+                out.println("💾 Game saved!");
                 running = false;
                 break;
             case "9":
                 running = false;
                 break;
             default:
-                System.out.println("❌ Invalid choice!");
+                out.println("❌ Invalid choice!");
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,140 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+//Checks that --export and --import lose nothing: seeds a fresh store of every backend with random pets (names with
+//commas, quotes, line breaks, backslashes and emoji, some equipped) plus statistics and history, exports it as CSV
+//and as JSON Lines, imports each export into a fresh store of every backend, exports that again and compares the
+//two exports byte for byte. Imports run in small chunks, so the chunking is part of what is checked.
+//Usage: java TransferCheck [pets] [historyRows] [seed]
+//Exits with status 1 if any export differs.
+class TransferCheck {
+    private static final String[] BACKENDS = {"sqlite", "mapped"};
+    private static final String[] NAMES = {"Tom", "Mr, Whiskers", "\"Smokey\"", "Line\nBreak", "Back\\slash", "Tab\there",
+            "Пушок", "🐉 Ember", "Comma, \"and\" quote"};
+    private static final PrintStream MUTED = new PrintStream(OutputStream.nullOutputStream(), false, StandardCharsets.UTF_8);
+
+    public static void main(String[] args) throws IOException {
+        int pets = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int history = args.length > 1 ? Integer.parseInt(args[1]) : 5_000;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+        PetConsole.setEnabled(false);
+        System.setProperty("pet.transfer.batchRows", "97"); //many chunks, the last one short
+
+        File work = Files.createTempDirectory("pet-transfer-check").toFile();
+        PrintStream out = System.out;
+        int differences = 0, roundTrips = 0;
+        try {
+            for (String source : BACKENDS) {
+                for (PetTransfer.Format format : PetTransfer.Format.values()) {
+                    File exported = new File(work, source + "-" + format.extension);
+                    System.setOut(MUTED); //the repositories and PetTransfer report every step
+                    try (PetRepository repository = open(source, new File(work, source + "-seeded"))) {
+                        //Seeded on the first format; the second one reopens the same store
+                        if (format == PetTransfer.Format.CSV) seed(repository, pets, history, new Random(seed));
+                        new PetTransfer(repository, new GameConfig()).exportTo(exported, format);
+                    } finally {
+                        System.setOut(out);
+                    }
+
+                    for (String target : BACKENDS) {
+                        File store = new File(work, source + "-" + format.extension + "-to-" + target);
+                        File reexported = new File(store.getPath() + "-export");
+                        System.setOut(MUTED);
+                        try (PetRepository repository = open(target, store)) {
+                            PetTransfer transfer = new PetTransfer(repository, new GameConfig());
+                            transfer.importFrom(exported);
+                            transfer.exportTo(reexported, format);
+                        } finally {
+                            System.setOut(out);
+                        }
+                        roundTrips++;
+                        for (String name : new String[] {"pets", "history"}) {
+                            String file = name + "." + format.extension;
+                            String difference = compare(new File(exported, file), new File(reexported, file));
+                            if (difference == null) continue;
+                            differences++;
+                            System.out.printf("❌ %s %s imported into %s: %s%n", source, file, target, difference);
+                        }
+                    }
+                }
+            }
+        } finally {
+            delete(work);
+        }
+        System.out.println(differences == 0
+                ? "✅ " + roundTrips + " export/import round trips (" + String.join(", ", BACKENDS) + "; csv, jsonl) gave back the same " + pets + " pets and " + history + " history rows"
+                : "❌ " + differences + " exports differed after a round trip");
+        if (differences != 0) System.exit(1);
+    }
+
+    //A fresh, empty store of the backend at path (a database file for sqlite, a directory for mapped)
+    private static PetRepository open(String backend, File path) {
+        System.setProperty("pet.storage", backend);
+        System.setProperty("pet.db.url", "jdbc:sqlite:" + path.getAbsolutePath() + ".db");
+        System.setProperty("pet.mapped.dir", path.getAbsolutePath());
+        return PetRepository.open(new GameConfig());
+    }
+
+    private static void seed(PetRepository repository, int pets, int history, Random random) {
+        List<IPet> seeds = new ArrayList<>();
+        for (int i = 0; i < pets; i++) {
+            IPet pet = new PetBuilder().setType(random.nextBoolean() ? "cat" : "dragon")
+                    .setName(NAMES[random.nextInt(NAMES.length)] + " " + i).build();
+            pet.setHealth(random.nextInt(101));
+            pet.setEnergy(random.nextInt(101));
+            pet.setHunger(random.nextInt(101));
+            pet.setHappiness(random.nextInt(101));
+            pet.updateState();
+            int equipment = random.nextInt(4);
+            if ((equipment & 1) != 0) pet = new ArmorDecorator(pet);
+            if ((equipment & 2) != 0) pet = new AmuletDecorator(pet);
+            seeds.add(pet);
+        }
+        repository.savePets(seeds);
+
+        String[] actions = {"FEED", "PLAY", "SLEEP", "TICK"};
+        WriteBatch batch = new WriteBatch();
+        for (int i = 0; i < history; i++) {
+            IPet pet = seeds.get(random.nextInt(pets));
+            String action = actions[random.nextInt(actions.length)];
+            pet.tick();
+            batch.addAction(pet.getPetId(), action, pet);
+            int[] delta = new int[4];
+            delta[WriteBatch.statisticIndex(action)] = 1;
+            batch.addStatistics(pet.getPetId(), delta);
+            batch.addPetUpdate(pet);
+            if (batch.size() >= 1_000) {
+                repository.writeBatch(batch);
+                batch = new WriteBatch();
+            }
+        }
+        repository.writeBatch(batch);
+    }
+
+    //null if both files have the same bytes, else where they part
+    private static String compare(File expected, File actual) throws IOException {
+        if (!actual.isFile()) return "no " + actual.getName() + " in the second export";
+        byte[] a = Files.readAllBytes(expected.toPath()), b = Files.readAllBytes(actual.toPath());
+        int at = Arrays.mismatch(a, b);
+        if (at < 0) return null;
+        int line = 1;
+        for (int i = 0; i < at; i++) if (a[i] == '\n') line++;
+        return "first difference at byte " + at + " (line " + line + ") of " + a.length + " vs " + b.length + " bytes";
+    }
+
+    private static void delete(File root) throws IOException {
+        try (Stream<java.nio.file.Path> paths = Files.walk(root.toPath())) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
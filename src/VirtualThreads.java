@@ -0,0 +1,50 @@
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//Virtual threads when the JVM has them (Java 21+), daemon platform threads otherwise.
+//Looked up by reflection so the code still compiles and runs on Java 17.
+final class VirtualThreads {
+    private VirtualThreads() {}
+
+    static boolean available() {
+        return virtualFactory("probe") != null;
+    }
+
+    //Threads named prefix-1, prefix-2, ...
+    static ThreadFactory factory(String prefix) {
+        ThreadFactory virtual = virtualFactory(prefix);
+        if (virtual != null) return virtual;
+
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    //A new thread for every task - cheap with virtual threads, a cached pool of platform threads otherwise
+    static ExecutorService perTaskExecutor(String prefix) {
+        ThreadFactory factory = factory(prefix);
+        try {
+            Method perTask = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) perTask.invoke(null, factory);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(factory);
+        }
+    }
+
+    private static ThreadFactory virtualFactory(String prefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, prefix + "-", 1L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null; //Java 17-20, or virtual threads still behind --enable-preview
+        }
+    }
+}
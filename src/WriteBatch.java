@@ -0,0 +1,72 @@
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+//A group of pending writes that DatabaseManager applies in a single transaction.
+//Values are copied when they are queued, so later changes to the pet don't leak into an older batch.
+class WriteBatch {
+    final List<ActionSnapshot> actions = new ArrayList<>();
+    final Map<Integer, PetSnapshot> petUpdates = new LinkedHashMap<>(); //only the latest row per pet is worth writing
+    final Map<Integer, int[]> statisticDeltas = new LinkedHashMap<>(); //pet id -> {feeds, plays, sleeps, turns}
+
+    void addAction(int petId, String action, IPet pet) {
+        actions.add(new ActionSnapshot(petId, action, pet.getHealth(), pet.getEnergy(), pet.getHunger(), pet.getHappiness()));
+    }
+
+    //Queues the pet's changed columns and clears its dirty bits. Returns false if nothing changed, so nothing was queued.
+    //A newer update for the same pet replaces the older one but keeps its bits - the older changes still have to reach the row.
+    //The snapshot holds the bits until the batch commits; if it doesn't, returnDirtyFields gives them back to the pets.
+    boolean addPetUpdate(IPet pet) {
+        int dirty = pet.getDirtyFields();
+        if (dirty == 0) return false;
+        PetSnapshot older = petUpdates.get(pet.getPetId());
+        if (older != null) dirty |= older.dirtyFields();
+        petUpdates.put(pet.getPetId(), PetSnapshot.of(pet, dirty));
+        pet.clearDirtyFields(dirty);
+        return true;
+    }
+
+    //After a batch that was not written: the pets' columns are dirty again, so their next update retries them
+    void returnDirtyFields() {
+        for (PetSnapshot update : petUpdates.values()) {
+            update.pet().markDirty(update.dirtyFields());
+        }
+    }
+
+    //Adds a {feeds, plays, sleeps, turns} delta, e.g. from StatisticsCounters
+    void addStatistics(int petId, int[] delta) {
+        int[] total = statisticDeltas.computeIfAbsent(petId, id -> new int[4]);
+        for (int i = 0; i < total.length; i++) total[i] += delta[i];
+    }
+
+    int size() {
+        return actions.size() + petUpdates.size() + statisticDeltas.size();
+    }
+
+    boolean isEmpty() {
+        return size() == 0;
+    }
+
+    static int statisticIndex(String action) {
+        return switch (action) {
+            case "FEED" -> 0;
+            case "PLAY" -> 1;
+            case "SLEEP" -> 2;
+            case "TICK" -> 3;
+            default -> -1;
+        };
+    }
+
+    record ActionSnapshot(int petId, String action, int health, int energy, int hunger, int happiness) {}
+
+    //pet is the live object the values were copied from, so the cache can be refreshed once the batch is written
+    record PetSnapshot(int petId, int health, int energy, int hunger, int happiness, String state, int stateCode,
+                       Loadout loadout, int dirtyFields, IPet pet) {
+        static PetSnapshot of(IPet pet, int dirtyFields) {
+            return new PetSnapshot(pet.getPetId(), pet.getHealth(), pet.getEnergy(), pet.getHunger(),
+                    pet.getHappiness(), pet.getState().getStateName(), pet.getState().getCode(), pet.getLoadout(),
+                    dirtyFields, pet);
+        }
+    }
+}
\ No newline at end of file
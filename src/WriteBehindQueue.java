@@ -0,0 +1,159 @@
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+//Collects the per-turn writes in memory and hands them to the PetRepository as one batch.
+//Statistics are counted in StatisticsCounters instead and drained into each batch.
+//A flush happens every N turns, every M milliseconds, when the queue is full, or when the game asks for it (save/exit/death).
+//A batch the repository could not store is queued again in front of the newer writes and retried by the next flush;
+//after flushRetries failures in a row it is dropped, so a row the database will never take can't block the rest.
+class WriteBehindQueue {
+    private static final Metrics.Counter FAILED_BATCHES = Metrics.counter("writeBehind.failedBatches");
+
+    private final PetRepository repository;
+    private final boolean writeBehind;
+    private final int flushEveryTurns;
+    private final long flushIntervalMillis;
+    private final int maxPendingWrites;
+    private final int flushRetries;
+    private final Object flushLock = new Object(); //keeps batches in order when the timer and the game flush at the same time
+    private final ScheduledExecutorService flusher;
+    private final Thread shutdownHook;
+
+    private final StatisticsCounters statistics = new StatisticsCounters();
+    private WriteBatch pending = new WriteBatch();
+    private int turnsSinceFlush;
+    private int failedFlushes; //in a row - flushLock
+    private boolean closed;
+
+    public WriteBehindQueue(PetRepository repository, GameConfig config) {
+        this.repository = repository;
+        this.writeBehind = config.writeBehind;
+        this.flushEveryTurns = Math.max(1, config.flushEveryTurns);
+        this.flushIntervalMillis = Math.max(1, config.flushIntervalMillis);
+        this.maxPendingWrites = Math.max(1, config.maxPendingWrites);
+        this.flushRetries = Math.max(0, config.flushRetries);
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "pet-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (writeBehind) {
+            //Time bound: nothing stays in memory for longer than flushIntervalMillis
+            flusher.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+
+        this.shutdownHook = new Thread(this::flush, "pet-write-behind-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook); //Ctrl+C or System.exit still writes what is queued
+    }
+
+    public void logAction(int petId, String action, IPet pet) {
+        boolean full;
+        synchronized (this) {
+            pending.addAction(petId, action, pet);
+            full = pending.size() >= maxPendingWrites;
+        }
+        if (full) flush();
+    }
+
+    //Lock-free: only counts in memory, the next flush writes the sums
+    public void updateStatistics(int petId, String action) {
+        statistics.record(petId, action);
+    }
+
+    //Drops the pet's unflushed counts - its statistics row is gone
+    public void forgetStatistics(int petId) {
+        statistics.forget(petId);
+    }
+
+    public void updatePet(IPet pet) {
+        boolean full;
+        synchronized (this) {
+            if (!pending.addPetUpdate(pet)) {
+                repository.getWriteStats().recordSkipped(); //nothing changed since the last write - a dead pet, for example
+                return;
+            }
+            full = pending.size() >= maxPendingWrites;
+        }
+        if (full) flush();
+    }
+
+    //Called once at the end of every game turn
+    public void endTurn() {
+        boolean due;
+        synchronized (this) {
+            turnsSinceFlush++;
+            due = !writeBehind || turnsSinceFlush >= flushEveryTurns;
+        }
+        if (!due) return;
+
+        if (writeBehind) {
+            flusher.execute(this::flush); //turn bound reached - write in the background so the turn doesn't wait for the disk
+        } else {
+            flush();
+        }
+    }
+
+    //Writes everything queued so far and returns once it is on disk - or, if the repository couldn't store it, once
+    //it is queued again for the next flush
+    public void flush() {
+        synchronized (flushLock) {
+            WriteBatch batch;
+            synchronized (this) {
+                statistics.drainInto(pending);
+                if (pending.isEmpty()) return;
+                batch = pending;
+                pending = new WriteBatch();
+                turnsSinceFlush = 0;
+            }
+            if (repository.writeBatch(batch)) {
+                failedFlushes = 0;
+                return;
+            }
+            FAILED_BATCHES.increment();
+            if (++failedFlushes <= flushRetries) {
+                requeue(batch);
+            } else {
+                failedFlushes = 0;
+                System.err.println("❌ Batch still failing after " + flushRetries + " retries - dropped " + batch.actions.size()
+                        + " history rows and the statistics of " + batch.statisticDeltas.size() + " pets");
+            }
+        }
+    }
+
+    //What the failed batch didn't store goes in front of what was queued while it was being written, so history keeps
+    //its order, and its statistic deltas go back into the counters they were drained from - forgetStatistics on a pet
+    //deleted in the meantime still drops them. Its pet updates were handed back to the pets as dirty fields; queuing
+    //the pets again picks them up.
+    private synchronized void requeue(WriteBatch failed) {
+        pending.actions.addAll(0, failed.actions);
+        for (var entry : failed.statisticDeltas.entrySet()) statistics.restore(entry.getKey(), entry.getValue());
+        for (WriteBatch.PetSnapshot update : failed.petUpdates.values()) pending.addPetUpdate(update.pet());
+    }
+
+    public void close() {
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+        }
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        synchronized (this) {
+            if (!pending.isEmpty()) { //the last flush failed and there is no next one
+                System.err.println("❌ Closed with " + pending.actions.size() + " history rows the storage did not take");
+            }
+        }
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            //JVM is already shutting down, the hook will run anyway
+        }
+    }
+}
+//✅ Single Responsibility - WriteBehindQueue decides WHEN to write, the PetRepository decides HOW
\ No newline at end of file
@@ -0,0 +1,115 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+//Checks that a write the database rolled back leaves nothing behind for the next one: makes a savePets and a
+//writeBatch fail partway (a NOT NULL column gets a null after other rows were queued), follows each with a good
+//write, then reopens the database file and looks at what was committed. Then it holds the database locked from another
+//connection while WriteBehindQueue flushes (SQLITE_BUSY after the driver's busy timeout) and checks that the queued
+//history, statistics and pet fields all arrive with the next flush, in order.
+//Usage: java WriteFailureCheck
+//Exits with status 1 if a failed write shows up in the database.
+class WriteFailureCheck {
+    private static final PrintStream MUTED = new PrintStream(OutputStream.nullOutputStream(), false, StandardCharsets.UTF_8);
+    private static final PrintStream OUT = System.out;
+    private static int failures;
+
+    public static void main(String[] args) throws IOException, SQLException {
+        PetConsole.setEnabled(false);
+        File file = File.createTempFile("pet-write-failure", ".db");
+        file.deleteOnExit();
+        System.setProperty("pet.storage", "sqlite");
+        System.setProperty("pet.db.url", "jdbc:sqlite:" + file.getAbsolutePath());
+        System.setProperty("pet.flushIntervalMillis", "3600000"); //only the flushes below
+        System.setOut(MUTED); //the repository reports opening and closing
+
+        int petId, laterId;
+        try (PetRepository db = PetRepository.open(new GameConfig())) {
+            IPet pet = new PetBuilder().setName("Check").build();
+            petId = db.savePet(pet);
+
+            //savePets: the pets insert fails on the second pet, after the first one's pet_statistics row was queued
+            IPet nameless = new PetDecorator(new PetBuilder().build()) {
+                @Override
+                public String getName() { return null; }
+            };
+            expectFailure(() -> db.savePets(List.of(new PetBuilder().setName("Lost").build(), nameless)));
+            IPet later = new PetBuilder().setName("Later").build();
+            int saved = db.savePets(List.of(later));
+            laterId = later.getPetId();
+            check(saved == 1, "savePets after a failed one saved " + saved + " of 1 pets");
+
+            //writeBatch: the history insert fails, after a +100 turns delta was queued for the same transaction
+            WriteBatch failing = new WriteBatch();
+            failing.addAction(petId, null, pet);
+            failing.addStatistics(petId, new int[] {0, 0, 0, 100});
+            expectFailure(() -> db.writeBatch(failing));
+            WriteBatch good = new WriteBatch();
+            good.addAction(petId, "TICK", pet);
+            good.addStatistics(petId, new int[] {0, 0, 0, 1});
+            db.writeBatch(good);
+
+            //WriteBehindQueue: one flush while another connection holds the write lock, then one after it let go
+            WriteBehindQueue queue = new WriteBehindQueue(db, new GameConfig());
+            queue.logAction(petId, "FEED", pet);
+            queue.updateStatistics(petId, "FEED");
+            pet.setHunger(7);
+            queue.updatePet(pet);
+            try (Connection locker = DriverManager.getConnection(System.getProperty("pet.db.url"));
+                 Statement stmt = locker.createStatement()) {
+                stmt.execute("BEGIN EXCLUSIVE");
+                expectFailure(queue::flush);
+                stmt.execute("ROLLBACK");
+            }
+            queue.logAction(petId, "PLAY", pet);
+            queue.updateStatistics(petId, "PLAY");
+            queue.close();
+        }
+
+        try (PetRepository db = PetRepository.open(new GameConfig())) { //nothing cached: only what was committed
+            PetStatistics stats = db.getStatistics(petId);
+            check(stats != null && stats.totalTurns == 1,
+                    "total_turns after a rolled-back +100 and a good +1 is " + (stats == null ? "missing" : stats.totalTurns));
+            check(stats != null && stats.totalFeeds == 1 && stats.totalPlays == 1, "feeds/plays after a failed flush are "
+                    + (stats == null ? "missing" : stats.totalFeeds + "/" + stats.totalPlays) + ", expected 1/1");
+            List<String> actions = new ArrayList<>();
+            db.exportHistory(row -> {
+                if (row.petId() == petId && !row.action().equals("TICK")) actions.add(row.action());
+            });
+            check(actions.equals(List.of("FEED", "PLAY")), "history after a failed flush is " + actions + ", expected [FEED, PLAY]");
+            check(db.loadPet(petId).hunger() == 7, "hunger after a failed flush is " + db.loadPet(petId).hunger() + ", expected 7");
+            check(db.getStatistics(laterId) != null, "the pet saved after the failed savePets has no statistics row");
+            check(db.loadPet(laterId) != null && db.loadPet(laterId).name().equals("Later"),
+                    "the pet saved after the failed savePets did not load back");
+        }
+        OUT.println(failures == 0
+                ? "✅ Failed savePets and writeBatch calls left nothing behind, and a failed flush was written by the next one"
+                : "❌ " + failures + " checks found a failed write in the database");
+        if (failures != 0) System.exit(1);
+    }
+
+    //The write is meant to fail; its own error message would only look like a problem with the check
+    private static void expectFailure(Runnable write) {
+        PrintStream err = System.err;
+        System.setErr(MUTED);
+        try {
+            write.run();
+        } finally {
+            System.setErr(err);
+        }
+    }
+
+    private static void check(boolean ok, String problem) {
+        if (ok) return;
+        failures++;
+        OUT.println("❌ " + problem);
+    }
+}